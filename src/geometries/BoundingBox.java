@@ -0,0 +1,249 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+/**
+ * BoundingBox class that's represent an axis-aligned bounding box (AABB) in a 3D Cartesian coordinate system.
+ * The box is used by the acceleration structures to reject rays before the exact intersection test runs
+ */
+public class BoundingBox {
+
+    /**
+     * Padding added around every box that's built from points, so flat geometries (a triangle that lies
+     * in an axis-aligned plane) still have a volume and floating point errors never cull a real intersection
+     */
+    private static final double PADDING = 1e-6;
+
+    /** Minimal coordinates of the box */
+    public final double minX, minY, minZ;
+
+    /** Maximal coordinates of the box */
+    public final double maxX, maxY, maxZ;
+
+
+    /**
+     * BoundingBox Constructor to initialize a new box with its minimal and maximal coordinates
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * of function builds the smallest (padded) box that contains all the given points
+     * @param points the points that the box should contain
+     * @return A new BoundingBox object that contains all the points
+     */
+    public static BoundingBox of(Point... points) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+
+        for (Point point : points) {
+            minX = Math.min(minX, point.getX());
+            minY = Math.min(minY, point.getY());
+            minZ = Math.min(minZ, point.getZ());
+            maxX = Math.max(maxX, point.getX());
+            maxY = Math.max(maxY, point.getY());
+            maxZ = Math.max(maxZ, point.getZ());
+        }
+
+        return new BoundingBox(minX - PADDING, minY - PADDING, minZ - PADDING,
+                maxX + PADDING, maxY + PADDING, maxZ + PADDING);
+    }
+
+    /**
+     * union function builds the smallest box that contains both this box and the given box
+     * @param other the box to unite with
+     * @return A new BoundingBox object of the union
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * getCenter function returns the coordinate of the center of the box on a given axis
+     * @param axis 0 for x, 1 for y and 2 for z
+     * @return the center coordinate on the axis
+     */
+    public double getCenter(int axis) {
+        return switch (axis) {
+            case 0 -> (minX + maxX) / 2;
+            case 1 -> (minY + maxY) / 2;
+            default -> (minZ + maxZ) / 2;
+        };
+    }
+
+    /**
+     * surfaceArea function calculates the surface area of the box, the surface area heuristic uses it
+     * as the probability of a random ray to pass through the box
+     * @return the surface area of the box
+     */
+    public double surfaceArea() {
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * intersects function checks if a ray passes through the box before a max distance (slab test)
+     * @param ray the ray to check
+     * @param maxDistance the max distance between ray head and the box
+     * @return true if the ray passes through the box, false otherwise
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        return intersects(ray.head.getX(), ray.head.getY(), ray.head.getZ(),
+                dx, dy, dz, 1 / dx, 1 / dy, 1 / dz, maxDistance);
+    }
+
+    /**
+     * intersects function checks if a ray that is given by its components passes through the box before a max distance.
+     * The inverse direction is passed by the caller, so it is calculated once per ray and not once per box
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the box
+     * @return true if the ray passes through the box, false otherwise
+     */
+    boolean intersects(double ox, double oy, double oz, double dx, double dy, double dz,
+                       double invX, double invY, double invZ, double maxDistance) {
+        return intersects(minX, minY, minZ, maxX, maxY, maxZ, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+    }
+
+    /**
+     * entryDistance function calculates the distance along a ray that is given by its components to the point where
+     * it enters the box
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the box
+     * @return the distance to the box (0 if the head is inside it), or infinity if the ray misses the box before
+     * the max distance
+     */
+    double entryDistance(double ox, double oy, double oz, double dx, double dy, double dz,
+                         double invX, double invY, double invZ, double maxDistance) {
+        return entryDistance(minX, minY, minZ, maxX, maxY, maxZ, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+    }
+
+    /**
+     * intersects function checks if a ray passes through a box that is given by its coordinates before a max distance.
+     * It lets array based structures test their boxes without creating BoundingBox objects
+     * @param minX minimal x coordinate of the box
+     * @param minY minimal y coordinate of the box
+     * @param minZ minimal z coordinate of the box
+     * @param maxX maximal x coordinate of the box
+     * @param maxY maximal y coordinate of the box
+     * @param maxZ maximal z coordinate of the box
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the box
+     * @return true if the ray passes through the box, false otherwise
+     */
+    static boolean intersects(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                              double ox, double oy, double oz, double dx, double dy, double dz,
+                              double invX, double invY, double invZ, double maxDistance) {
+        return entryDistance(minX, minY, minZ, maxX, maxY, maxZ,
+                ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * entryDistance function calculates the distance along a ray to the point where it enters a box that is given
+     * by its coordinates (slab test), the closest hit search uses it to visit nearer boxes first
+     * @param minX minimal x coordinate of the box
+     * @param minY minimal y coordinate of the box
+     * @param minZ minimal z coordinate of the box
+     * @param maxX maximal x coordinate of the box
+     * @param maxY maximal y coordinate of the box
+     * @param maxZ maximal z coordinate of the box
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the box
+     * @return the distance to the box (0 if the head is inside it), or infinity if the ray misses the box before
+     * the max distance
+     */
+    static double entryDistance(double minX, double minY, double minZ, double maxX, double maxY, double maxZ,
+                                double ox, double oy, double oz, double dx, double dy, double dz,
+                                double invX, double invY, double invZ, double maxDistance) {
+        final double miss = Double.POSITIVE_INFINITY;
+        double tNear = 0;
+        double tFar = maxDistance;
+
+        // x slab - a ray that's parallel to the slab must start inside of it
+        if (dx == 0) {
+            if (ox < minX || ox > maxX) return miss;
+        } else {
+            double t1 = (minX - ox) * invX;
+            double t2 = (maxX - ox) * invX;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) return miss;
+        }
+
+        // y slab
+        if (dy == 0) {
+            if (oy < minY || oy > maxY) return miss;
+        } else {
+            double t1 = (minY - oy) * invY;
+            double t2 = (maxY - oy) * invY;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+            if (tNear > tFar) return miss;
+        }
+
+        // z slab
+        if (dz == 0) {
+            return oz >= minZ && oz <= maxZ ? tNear : miss;
+        }
+
+        double t1 = (minZ - oz) * invZ;
+        double t2 = (maxZ - oz) * invZ;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        return tNear <= tFar ? tNear : miss;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox {(" + minX + "," + minY + "," + minZ + "), (" + maxX + "," + maxY + "," + maxZ + ")}";
+    }
+}
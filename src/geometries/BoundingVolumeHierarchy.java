@@ -0,0 +1,424 @@
+package geometries;
+
+import geometries.BvhBuilder.Node;
+import geometries.Geometries.SplitStrategy;
+import primitives.Double3;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * BoundingVolumeHierarchy class that's represent an acceleration structure for the Geometries class.
+ * The bounded geometries are arranged in a binary tree of bounding boxes, so a ray only tests the geometries
+ * that are inside the boxes it passes through. Unbounded geometries (like planes) are kept outside the tree
+ * and are tested with every ray.
+ * The intersections are returned in the same order as the linear search over the geometries would return them,
+ * so the rendered image is exactly the same with and without the hierarchy
+ */
+class BoundingVolumeHierarchy extends Intersectable {
+
+    /** All the geometries, in the order they were added to the Geometries object */
+    final Intersectable[] geometries;
+
+    /** Bounding boxes of the geometries (null for an unbounded geometry) */
+    final BoundingBox[] boxes;
+
+    /** Indices of the bounded geometries, arranged so every leaf owns a continuous range */
+    final int[] indices;
+
+    /** Indices of the unbounded geometries */
+    final int[] unbounded;
+
+    /** The root node of the tree - null if there are no bounded geometries */
+    final Node root;
+
+    /** Statistics of the tree - updated when the tree is refitted */
+    BvhStatistics statistics;
+
+    /** Surface area heuristic cost of the tree right after it was built */
+    private final double builtCost;
+
+    /** Surface area of the root box right after the tree was built (the cost is relative to it) */
+    private final double builtArea;
+
+
+    /**
+     * Intersections of a single geometry together with the geometry position in the Geometries object
+     * @param index position of the geometry
+     * @param intersections the intersections with the geometry
+     */
+    record IndexedIntersections(int index, List<GeoPoint> intersections) {
+    }
+
+    /**
+     * SlabRay class - the ray components that the slab test needs, calculated once per ray
+     */
+    private static class SlabRay {
+        final double ox, oy, oz, dx, dy, dz, invX, invY, invZ;
+
+        /**
+         * SlabRay Constructor
+         * @param ray the ray to take the components from
+         */
+        SlabRay(Ray ray) {
+            ox = ray.head.getX();
+            oy = ray.head.getY();
+            oz = ray.head.getZ();
+            dx = ray.direction.getX();
+            dy = ray.direction.getY();
+            dz = ray.direction.getZ();
+            invX = 1 / dx;
+            invY = 1 / dy;
+            invZ = 1 / dz;
+        }
+
+        /**
+         * checks if the ray passes through a box before a max distance
+         * @param box the box to check
+         * @param maxDistance the max distance between ray head and the box
+         * @return true if the ray passes through the box
+         */
+        boolean hits(BoundingBox box, double maxDistance) {
+            return box.intersects(ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+        }
+
+        /**
+         * calculates the distance to the point where the ray enters a box
+         * @param box the box to check
+         * @param maxDistance the max distance between ray head and the box
+         * @return the distance to the box, or infinity if the ray misses it before the max distance
+         */
+        double distance(BoundingBox box, double maxDistance) {
+            return box.entryDistance(ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+        }
+    }
+
+    /**
+     * ClosestHit class - the closest intersection that the search found so far
+     */
+    private static class ClosestHit {
+        /** The closest intersection (null if there is none yet) */
+        GeoPoint point = null;
+        /** Position of the geometry of the closest intersection */
+        int index = -1;
+        /** The max distance to look for a closer intersection in */
+        double maxDistance;
+
+        /**
+         * ClosestHit Constructor
+         * @param maxDistance the max distance of the search
+         */
+        ClosestHit(double maxDistance) {
+            this.maxDistance = maxDistance;
+        }
+
+        /**
+         * check function looks for an intersection with a geometry that's closer than the closest so far
+         * @param geometry the geometry to check
+         * @param index position of the geometry
+         * @param ray the ray to look for intersections on
+         */
+        void check(Intersectable geometry, int index, Ray ray) {
+            GeoPoint current = geometry.findClosestGeoIntersection(ray, maxDistance);
+            if (current != null && closer(current, index, point, this.index)) {
+                point = current;
+                this.index = index;
+                maxDistance = Math.min(maxDistance, current.distance);
+            }
+        }
+    }
+
+
+    /**
+     * BoundingVolumeHierarchy Constructor - builds the tree over the given geometries
+     * @param geometries the geometries to build the tree for
+     * @param strategy the way to split a node of the tree into two children
+     * @param pool the pool to build the tree in parallel with (null to build it in the calling thread)
+     */
+    BoundingVolumeHierarchy(List<Intersectable> geometries, SplitStrategy strategy, ForkJoinPool pool) {
+        this.geometries = geometries.toArray(new Intersectable[0]);
+        boxes = new BoundingBox[this.geometries.length];
+
+        int boundedCount = 0;
+        for (int i = 0; i < this.geometries.length; i++) {
+            boxes[i] = this.geometries[i].getBoundingBox();
+            if (boxes[i] != null) boundedCount++;
+        }
+
+        indices = new int[boundedCount];
+        unbounded = new int[this.geometries.length - boundedCount];
+        for (int i = 0, b = 0, u = 0; i < this.geometries.length; i++) {
+            if (boxes[i] != null) indices[b++] = i;
+            else unbounded[u++] = i;
+        }
+
+        root = new BvhBuilder(boxes, indices, strategy, pool).build();
+        statistics = BvhBuilder.statistics(root, unbounded.length);
+        builtCost = statistics.sahCost();
+        builtArea = root == null ? 0 : root.box.surfaceArea();
+    }
+
+    /**
+     * refit function updates the boxes of the tree after geometries changed their extent (moved instances),
+     * the boxes are recalculated from the leaves up while the structure of the tree stays the same.
+     * Moving geometries far from their neighbours makes the boxes overlap and the tree slower, so the
+     * surface area heuristic cost of the refitted tree is compared to the cost of the tree when it was built.
+     * The costs are compared before they're divided by the area of the root - a geometry that moves far away grows
+     * the root box too, so the relative cost of the other nodes shrinks while the tree is actually worse
+     * @param rebuildThreshold the ratio between the refitted cost and the built cost that the tree tolerates
+     * @return true if the tree was refitted, false if it has to be built again
+     */
+    boolean refit(double rebuildThreshold) {
+        for (int index : indices) {
+            boxes[index] = geometries[index].getBoundingBox();
+
+            // a geometry that became unbounded has to move out of the tree
+            if (boxes[index] == null) return false;
+        }
+
+        if (root != null) {
+            BvhBuilder.refit(root, boxes, indices);
+        }
+        statistics = BvhBuilder.statistics(root, unbounded.length);
+        resetBoundingBox();
+
+        double area = root == null ? 0 : root.box.surfaceArea();
+
+        // a flat tree (zero area) has no area to scale by, so its costs are compared as they are
+        if (area == 0 || builtArea == 0) {
+            return statistics.sahCost() <= builtCost * rebuildThreshold;
+        }
+        return statistics.sahCost() * area <= builtCost * builtArea * rebuildThreshold;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<IndexedIntersections> found = null;
+
+        for (int index : unbounded) {
+            found = intersect(geometries[index], index, ray, maxDistance, found);
+        }
+
+        if (root != null) {
+            SlabRay slabRay = new SlabRay(ray);
+            if (slabRay.hits(root.box, maxDistance)) {
+                found = traverse(root, ray, slabRay, maxDistance, found);
+            }
+        }
+
+        return merge(found);
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        ClosestHit closest = new ClosestHit(maxDistance);
+
+        for (int index : unbounded) {
+            closest.check(geometries[index], index, ray);
+        }
+
+        if (root != null) {
+            SlabRay slabRay = new SlabRay(ray);
+            if (slabRay.distance(root.box, closest.maxDistance) != Double.POSITIVE_INFINITY) {
+                traverseClosest(root, ray, slabRay, closest);
+            }
+        }
+
+        return closest.point;
+    }
+
+    /**
+     * traverseClosest function looks for the closest intersection in the subtree of a node that the ray passes
+     * through its box. The nearer child is visited first, so its intersections can skip the farther child
+     * @param node the node to look in
+     * @param ray the ray to look for the intersection on
+     * @param slabRay the ray components for the box tests
+     * @param closest the closest intersection so far
+     */
+    private void traverseClosest(Node node, Ray ray, SlabRay slabRay, ClosestHit closest) {
+        if (node.isLeaf()) {
+            for (int i = node.start; i < node.start + node.count; i++) {
+                closest.check(geometries[indices[i]], indices[i], ray);
+            }
+            return;
+        }
+
+        Node near = node.left, far = node.right;
+        double nearDistance = slabRay.distance(near.box, closest.maxDistance);
+        double farDistance = slabRay.distance(far.box, closest.maxDistance);
+        if (farDistance < nearDistance) {
+            near = node.right;
+            far = node.left;
+            double temp = nearDistance;
+            nearDistance = farDistance;
+            farDistance = temp;
+        }
+
+        if (nearDistance != Double.POSITIVE_INFINITY) {
+            traverseClosest(near, ray, slabRay, closest);
+        }
+
+        if (farDistance != Double.POSITIVE_INFINITY && farDistance <= closest.maxDistance) {
+            traverseClosest(far, ray, slabRay, closest);
+        }
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        for (int index : unbounded) {
+            ktr = geometries[index].findTransparency(ray, maxDistance, ktr, threshold);
+            if (ktr == Double3.ZERO) return ktr;
+        }
+
+        if (root == null) {
+            return ktr;
+        }
+
+        SlabRay slabRay = new SlabRay(ray);
+        return slabRay.hits(root.box, maxDistance) ? traverseTransparency(root, ray, slabRay, maxDistance, ktr, threshold) : ktr;
+    }
+
+    /**
+     * traverseTransparency function continues a transparency search in the subtree of a node that the ray
+     * passes through its box, until the transparency falls below the threshold
+     * @param node the node to look in
+     * @param ray the ray to look for intersections on
+     * @param slabRay the ray components for the box tests
+     * @param maxDistance the max distance between ray head and the intersection points
+     * @param ktr the transparency that was collected so far
+     * @param threshold the transparency that's considered as no light
+     * @return the product of the transparency, or Double3.ZERO if it fell below the threshold
+     */
+    private Double3 traverseTransparency(Node node, Ray ray, SlabRay slabRay, double maxDistance, Double3 ktr,
+                                         double threshold) {
+        if (node.isLeaf()) {
+            for (int i = node.start; i < node.start + node.count && ktr != Double3.ZERO; i++) {
+                ktr = geometries[indices[i]].findTransparency(ray, maxDistance, ktr, threshold);
+            }
+            return ktr;
+        }
+
+        if (slabRay.hits(node.left.box, maxDistance)) {
+            ktr = traverseTransparency(node.left, ray, slabRay, maxDistance, ktr, threshold);
+        }
+
+        if (ktr != Double3.ZERO && slabRay.hits(node.right.box, maxDistance)) {
+            ktr = traverseTransparency(node.right, ray, slabRay, maxDistance, ktr, threshold);
+        }
+
+        return ktr;
+    }
+
+    /**
+     * closer function checks if an intersection should replace the closest intersection so far -
+     * when both are at the same distance the geometry that was added first wins, like in the linear search
+     * @param current the new intersection
+     * @param index position of the geometry of the new intersection
+     * @param closest the closest intersection so far (can be null)
+     * @param closestIndex position of the geometry of the closest intersection so far
+     * @return true if the new intersection is closer
+     */
+    static boolean closer(GeoPoint current, int index, GeoPoint closest, int closestIndex) {
+        return closest == null || current.distance < closest.distance
+                || (current.distance == closest.distance && index < closestIndex);
+    }
+
+    /**
+     * closer function checks if an intersection distance is closer than the closest one so far,
+     * with the same order as {@link #closer(GeoPoint, int, GeoPoint, int)}
+     * @param distance distance of the intersection
+     * @param index position of the geometry of the intersection
+     * @param closestDistance distance of the closest intersection so far
+     * @param closestIndex position of the geometry of the closest intersection so far (negative if there is none)
+     * @return true if the intersection should replace the closest one
+     */
+    static boolean closer(double distance, int index, double closestDistance, int closestIndex) {
+        return closestIndex < 0 || distance < closestDistance || (distance == closestDistance && index < closestIndex);
+    }
+
+    /**
+     * traverse function looks for intersections in the subtree of a node that the ray passes through its box
+     * @param node the node to look in
+     * @param ray the ray to look for intersections on
+     * @param slabRay the ray components for the box tests
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param found the intersections that were found so far (can be null)
+     * @return the intersections that were found so far (can be null)
+     */
+    private List<IndexedIntersections> traverse(Node node, Ray ray, SlabRay slabRay, double maxDistance,
+                                                List<IndexedIntersections> found) {
+        if (node.isLeaf()) {
+            for (int i = node.start; i < node.start + node.count; i++) {
+                found = intersect(geometries[indices[i]], indices[i], ray, maxDistance, found);
+            }
+            return found;
+        }
+
+        if (slabRay.hits(node.left.box, maxDistance)) {
+            found = traverse(node.left, ray, slabRay, maxDistance, found);
+        }
+
+        if (slabRay.hits(node.right.box, maxDistance)) {
+            found = traverse(node.right, ray, slabRay, maxDistance, found);
+        }
+
+        return found;
+    }
+
+    /**
+     * intersect function looks for intersections with a single geometry
+     * @param geometry the geometry to look for intersections with
+     * @param index position of the geometry
+     * @param ray the ray to look for intersections on
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param found the intersections that were found so far (can be null)
+     * @return the intersections that were found so far (can be null)
+     */
+    static List<IndexedIntersections> intersect(Intersectable geometry, int index, Ray ray, double maxDistance,
+                                                List<IndexedIntersections> found) {
+        List<GeoPoint> intersections = geometry.findGeoIntersections(ray, maxDistance);
+        if (intersections == null) {
+            return found;
+        }
+
+        // Allocate memory if not initialized yet
+        if (found == null) {
+            found = new ArrayList<>();
+        }
+
+        found.add(new IndexedIntersections(index, intersections));
+        return found;
+    }
+
+    /**
+     * merge function merges the intersections of the geometries into a single list, in the order of
+     * the geometries like the linear search returns them
+     * @param found the intersections of the geometries (can be null)
+     * @return list of all the intersections, or null if there are no intersections
+     */
+    static List<GeoPoint> merge(List<IndexedIntersections> found) {
+        if (found == null) {
+            return null;
+        }
+
+        if (found.size() > 1) {
+            found.sort(Comparator.comparingInt(IndexedIntersections::index));
+        }
+
+        List<GeoPoint> intersections = new LinkedList<>();
+        for (IndexedIntersections current : found) {
+            intersections.addAll(current.intersections());
+        }
+
+        return intersections;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return root == null || unbounded.length > 0 ? null : root.box;
+    }
+}
@@ -0,0 +1,542 @@
+package geometries;
+
+import geometries.Geometries.SplitStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * BvhBuilder class - builds the tree of a bounding volume hierarchy over the boxes of geometries.
+ * The builder works only with the boxes, it arranges an array of indices of the boxes so that every leaf
+ * of the tree owns a continuous range of the array.
+ * The builder can use a fork/join pool - big subtrees are built in parallel and the geometries of the top levels
+ * are binned in parallel chunks. Every subtree works on its own range and the chunks are merged in their order,
+ * so the tree is exactly the same no matter how many threads build it
+ */
+class BvhBuilder {
+
+    /** Amount of geometries that a leaf always accepts without trying to split it */
+    static final int MAX_LEAF_SIZE = 4;
+
+    /** Maximal amount of geometries in a leaf that the surface area heuristic prefers not to split */
+    private static final int MAX_SAH_LEAF_SIZE = 8;
+
+    /** Amount of bins along an axis for the binned surface area heuristic */
+    private static final int BIN_COUNT = 16;
+
+    /** Cost of visiting a node relative to the cost of an intersection test */
+    static final double TRAVERSAL_COST = 0.125;
+
+    /** Cost of an intersection test with a geometry */
+    static final double INTERSECTION_COST = 1;
+
+    /** Minimal amount of geometries in a subtree that's built as a separate task */
+    private static final int PARALLEL_SUBTREE_SIZE = 4096;
+
+    /** Minimal amount of geometries in a node that's binned in parallel chunks */
+    private static final int PARALLEL_BINNING_SIZE = 65536;
+
+    /** Amount of geometries in a chunk of parallel binning */
+    private static final int BINNING_CHUNK_SIZE = 16384;
+
+    /** Boxes of the geometries */
+    private final BoundingBox[] boxes;
+
+    /** Centers of the boxes - three coordinates per box */
+    private final double[] centers;
+
+    /** Indices of the boxes to build the tree for, arranged by the builder */
+    private final int[] indices;
+
+    /** The way to split a node into two children */
+    private final SplitStrategy strategy;
+
+    /** The pool to build in parallel with (null to build in the calling thread) */
+    private final ForkJoinPool pool;
+
+
+    /**
+     * Node class - a node in the tree, a leaf holds a range of geometries and an inner node holds two children
+     */
+    static class Node {
+        /** Box that contains everything below the node - recalculated when the tree is refitted */
+        BoundingBox box;
+        /** Children of an inner node (null for a leaf) */
+        final Node left, right;
+        /** Range of the leaf geometries in the indices array */
+        final int start, count;
+
+        /**
+         * Leaf node Constructor
+         * @param box the box of the leaf
+         * @param start first position in the indices array
+         * @param count amount of geometries in the leaf
+         */
+        Node(BoundingBox box, int start, int count) {
+            this.box = box;
+            this.left = null;
+            this.right = null;
+            this.start = start;
+            this.count = count;
+        }
+
+        /**
+         * Inner node Constructor
+         * @param box the box of the node
+         * @param left left child
+         * @param right right child
+         */
+        Node(BoundingBox box, Node left, Node right) {
+            this.box = box;
+            this.left = left;
+            this.right = right;
+            this.start = 0;
+            this.count = 0;
+        }
+
+        /**
+         * @return true if the node is a leaf
+         */
+        boolean isLeaf() { return left == null; }
+    }
+
+
+    /**
+     * BvhBuilder Constructor
+     * @param boxes boxes of the geometries
+     * @param indices indices of the boxes to build the tree for - the builder reorders this array
+     * @param strategy the way to split a node into two children
+     * @param pool the pool to build in parallel with (null to build in the calling thread)
+     */
+    BvhBuilder(BoundingBox[] boxes, int[] indices, SplitStrategy strategy, ForkJoinPool pool) {
+        this.boxes = boxes;
+        this.indices = indices;
+        this.strategy = strategy;
+        this.pool = pool;
+
+        centers = new double[boxes.length * 3];
+        for (int index : indices) {
+            for (int axis = 0; axis < 3; axis++) {
+                centers[index * 3 + axis] = boxes[index].getCenter(axis);
+            }
+        }
+    }
+
+    /**
+     * build function builds the whole tree
+     * @return the root node of the tree, or null if there are no boxes
+     */
+    Node build() {
+        if (indices.length == 0) {
+            return null;
+        }
+
+        // a small tree isn't worth the tasks
+        if (pool == null || indices.length < PARALLEL_SUBTREE_SIZE) {
+            return build(0, indices.length);
+        }
+
+        return pool.invoke(new BuildTask(0, indices.length));
+    }
+
+    /**
+     * BuildTask class - a task that builds the subtree of a range of geometries
+     */
+    @SuppressWarnings("serial") // the tasks are never serialized
+    private class BuildTask extends RecursiveTask<Node> {
+        /** Range of the subtree in the indices array */
+        private final int start, end;
+
+        /**
+         * BuildTask Constructor
+         * @param start first position of the range in the indices array
+         * @param end position after the last position of the range in the indices array
+         */
+        BuildTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Node compute() {
+            return build(start, end);
+        }
+    }
+
+    /**
+     * build function builds the subtree of a range of geometries recursively
+     * @param start first position of the range in the indices array
+     * @param end position after the last position of the range in the indices array
+     * @return the root node of the subtree
+     */
+    private Node build(int start, int end) {
+        BoundingBox box = boxes[indices[start]];
+        for (int i = start + 1; i < end; i++) {
+            box = box.union(boxes[indices[i]]);
+        }
+
+        int count = end - start;
+        if (count <= MAX_LEAF_SIZE) {
+            return new Node(box, start, count);
+        }
+
+        // find the axis that the centers of the boxes are spread along the most
+        double[] min = new double[3];
+        double[] max = new double[3];
+        int axis = centerBounds(start, end, min, max);
+
+        // all the centers are in the same point - there is no way to separate the geometries
+        if (max[axis] - min[axis] <= 0) {
+            return new Node(box, start, count);
+        }
+
+        int middle = switch (strategy) {
+            case MEDIAN -> splitMedian(start, end, axis, (min[axis] + max[axis]) / 2);
+            case EQUAL_COUNTS -> splitEqualCounts(start, end, axis);
+            case SAH -> splitSah(start, end, box, min, max);
+        };
+
+        if (middle < 0) {
+            return new Node(box, start, count);
+        }
+
+        // a big left subtree is built by another thread while this thread builds the right subtree
+        if (pool != null && middle - start >= PARALLEL_SUBTREE_SIZE) {
+            BuildTask left = new BuildTask(start, middle);
+            left.fork();
+            Node right = build(middle, end);
+            return new Node(box, left.join(), right);
+        }
+
+        return new Node(box, build(start, middle), build(middle, end));
+    }
+
+    /**
+     * centerBounds function finds the bounds of the centers of a range of boxes
+     * @param start first position of the range
+     * @param end position after the last position of the range
+     * @param min array to fill with the minimal center coordinates
+     * @param max array to fill with the maximal center coordinates
+     * @return the axis that the centers are spread along the most
+     */
+    private int centerBounds(int start, int end, double[] min, double[] max) {
+        int axis = 0;
+        for (int a = 0; a < 3; a++) {
+            min[a] = Double.POSITIVE_INFINITY;
+            max[a] = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; i++) {
+                double center = centers[indices[i] * 3 + a];
+                min[a] = Math.min(min[a], center);
+                max[a] = Math.max(max[a], center);
+            }
+
+            if (max[a] - min[a] > max[axis] - min[axis]) {
+                axis = a;
+            }
+        }
+        return axis;
+    }
+
+    /**
+     * splitMedian function splits a range in the middle of the centers extent along an axis (spatial median).
+     * When all the geometries fall on one side the range is split into equal counts instead
+     * @param start first position of the range
+     * @param end position after the last position of the range
+     * @param axis the axis to split along
+     * @param position the position of the split along the axis
+     * @return the position of the first geometry of the second child
+     */
+    private int splitMedian(int start, int end, int axis, double position) {
+        int middle = partition(start, end, axis, position);
+        return middle == start || middle == end ? splitEqualCounts(start, end, axis) : middle;
+    }
+
+    /**
+     * splitEqualCounts function splits a range into two halves with the same amount of geometries
+     * after sorting the range by the centers of the boxes along an axis (object median)
+     * @param start first position of the range
+     * @param end position after the last position of the range
+     * @param axis the axis to split along
+     * @return the position of the first geometry of the second child
+     */
+    private int splitEqualCounts(int start, int end, int axis) {
+        Integer[] range = new Integer[end - start];
+        for (int i = start; i < end; i++) {
+            range[i - start] = indices[i];
+        }
+
+        // stable sort - the tree is the same for the same geometries
+        Arrays.sort(range, Comparator.comparingDouble(i -> centers[i * 3 + axis]));
+        for (int i = start; i < end; i++) {
+            indices[i] = range[i - start];
+        }
+
+        return (start + end) >>> 1;
+    }
+
+    /**
+     * splitSah function splits a range at the bin border with the lowest surface area heuristic cost,
+     * the geometries are binned by their centers along each of the three axes
+     * @param start first position of the range
+     * @param end position after the last position of the range
+     * @param box the box of the whole range
+     * @param min minimal center coordinates of the range
+     * @param max maximal center coordinates of the range
+     * @return the position of the first geometry of the second child, or -1 if a leaf is cheaper than any split
+     */
+    private int splitSah(int start, int end, BoundingBox box, double[] min, double[] max) {
+        int count = end - start;
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1;
+        int bestBin = -1;
+
+        Bins bins = pool != null && count >= PARALLEL_BINNING_SIZE
+                ? binParallel(start, end, min, max)
+                : new Bins().add(start, end, min, max);
+
+        for (int axis = 0; axis < 3; axis++) {
+            if (max[axis] - min[axis] <= 0) continue;
+
+            int[] binCounts = bins.counts[axis];
+            BoundingBox[] binBoxes = bins.boxes[axis];
+
+            // sweep from the right to find the area and count to the right of every border
+            double[] rightAreas = new double[BIN_COUNT];
+            int[] rightCounts = new int[BIN_COUNT];
+            BoundingBox right = null;
+            int rightCount = 0;
+            for (int bin = BIN_COUNT - 1; bin > 0; bin--) {
+                if (binBoxes[bin] != null) right = right == null ? binBoxes[bin] : right.union(binBoxes[bin]);
+                rightCount += binCounts[bin];
+                rightAreas[bin] = right == null ? 0 : right.surfaceArea();
+                rightCounts[bin] = rightCount;
+            }
+
+            // sweep from the left and evaluate the cost of the border before every bin
+            BoundingBox left = null;
+            int leftCount = 0;
+            for (int bin = 1; bin < BIN_COUNT; bin++) {
+                if (binBoxes[bin - 1] != null) left = left == null ? binBoxes[bin - 1] : left.union(binBoxes[bin - 1]);
+                leftCount += binCounts[bin - 1];
+                if (leftCount == 0 || rightCounts[bin] == 0) continue;
+
+                double cost = leftCount * left.surfaceArea() + rightCounts[bin] * rightAreas[bin];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = bin;
+                }
+            }
+        }
+
+        if (bestAxis < 0) {
+            return splitEqualCounts(start, end, centerBounds(start, end, min, max));
+        }
+
+        double area = box.surfaceArea();
+        double splitCost = TRAVERSAL_COST + INTERSECTION_COST * bestCost / area;
+        if (count <= MAX_SAH_LEAF_SIZE && splitCost >= count * INTERSECTION_COST) {
+            return -1;
+        }
+
+        // move every geometry that's binned before the best border to the start of the range
+        int middle = start;
+        double extent = max[bestAxis] - min[bestAxis];
+        for (int i = start; i < end; i++) {
+            if (bin(indices[i], bestAxis, min[bestAxis], extent) < bestBin) {
+                swap(i, middle++);
+            }
+        }
+
+        return middle;
+    }
+
+    /**
+     * Bins class - the amount of geometries and the box of every bin along each of the three axes
+     */
+    private class Bins {
+        /** Amount of geometries in every bin, per axis */
+        final int[][] counts = new int[3][BIN_COUNT];
+        /** Box of the geometries in every bin, per axis (null for an empty bin) */
+        final BoundingBox[][] boxes = new BoundingBox[3][BIN_COUNT];
+
+        /**
+         * add function bins a range of geometries by the centers of their boxes
+         * @param start first position of the range
+         * @param end position after the last position of the range
+         * @param min minimal center coordinates of the node
+         * @param max maximal center coordinates of the node
+         * @return this - current object
+         */
+        Bins add(int start, int end, double[] min, double[] max) {
+            for (int axis = 0; axis < 3; axis++) {
+                double extent = max[axis] - min[axis];
+                if (extent <= 0) continue;
+
+                for (int i = start; i < end; i++) {
+                    BoundingBox box = BvhBuilder.this.boxes[indices[i]];
+                    int bin = bin(indices[i], axis, min[axis], extent);
+                    counts[axis][bin]++;
+                    boxes[axis][bin] = boxes[axis][bin] == null ? box : boxes[axis][bin].union(box);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * add function adds the bins of another range
+         * @param other the bins of the other range
+         * @return this - current object
+         */
+        Bins add(Bins other) {
+            for (int axis = 0; axis < 3; axis++) {
+                for (int bin = 0; bin < BIN_COUNT; bin++) {
+                    counts[axis][bin] += other.counts[axis][bin];
+                    BoundingBox box = other.boxes[axis][bin];
+                    if (box != null) {
+                        boxes[axis][bin] = boxes[axis][bin] == null ? box : boxes[axis][bin].union(box);
+                    }
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * binParallel function bins a big range in chunks on the pool, the chunks are merged in their order
+     * @param start first position of the range
+     * @param end position after the last position of the range
+     * @param min minimal center coordinates of the range
+     * @param max maximal center coordinates of the range
+     * @return the bins of the whole range
+     */
+    private Bins binParallel(int start, int end, double[] min, double[] max) {
+        List<ForkJoinTask<Bins>> chunks = new ArrayList<>();
+        for (int chunk = start; chunk < end; chunk += BINNING_CHUNK_SIZE) {
+            int chunkStart = chunk, chunkEnd = Math.min(end, chunk + BINNING_CHUNK_SIZE);
+            chunks.add(ForkJoinTask.adapt(() -> new Bins().add(chunkStart, chunkEnd, min, max)));
+        }
+        ForkJoinTask.invokeAll(chunks);
+
+        Bins bins = new Bins();
+        for (ForkJoinTask<Bins> chunk : chunks) {
+            bins.add(chunk.join());
+        }
+        return bins;
+    }
+
+    /**
+     * bin function finds the bin of a geometry by the center of its box
+     * @param index index of the box
+     * @param axis the axis of the bins
+     * @param min minimal center coordinate along the axis
+     * @param extent extent of the centers along the axis
+     * @return the bin of the geometry
+     */
+    private int bin(int index, int axis, double min, double extent) {
+        int bin = (int) (BIN_COUNT * (centers[index * 3 + axis] - min) / extent);
+        return Math.min(bin, BIN_COUNT - 1);
+    }
+
+    /**
+     * partition function moves every geometry with a center before a position to the start of a range
+     * @param start first position of the range
+     * @param end position after the last position of the range
+     * @param axis the axis of the position
+     * @param position the position to partition by
+     * @return the position of the first geometry with a center after the position
+     */
+    private int partition(int start, int end, int axis, double position) {
+        int middle = start;
+        for (int i = start; i < end; i++) {
+            if (centers[indices[i] * 3 + axis] < position) {
+                swap(i, middle++);
+            }
+        }
+        return middle;
+    }
+
+    /**
+     * swap function swaps two positions in the indices array
+     * @param i first position
+     * @param j second position
+     */
+    private void swap(int i, int j) {
+        int temp = indices[i];
+        indices[i] = indices[j];
+        indices[j] = temp;
+    }
+
+    /**
+     * refit function recalculates the boxes of a subtree from the leaves up, the structure of the tree stays the same
+     * @param node the root of the subtree
+     * @param boxes the current boxes of the geometries
+     * @param indices indices of the boxes, arranged by the tree
+     * @return the new box of the node
+     */
+    static BoundingBox refit(Node node, BoundingBox[] boxes, int[] indices) {
+        if (node.isLeaf()) {
+            BoundingBox box = boxes[indices[node.start]];
+            for (int i = node.start + 1; i < node.start + node.count; i++) {
+                box = box.union(boxes[indices[i]]);
+            }
+            return node.box = box;
+        }
+
+        return node.box = refit(node.left, boxes, indices).union(refit(node.right, boxes, indices));
+    }
+
+    /**
+     * statistics function walks over a tree and collects its statistics
+     * @param root the root of the tree (can be null)
+     * @param unboundedCount amount of the geometries that are kept outside the tree
+     * @return the statistics of the tree
+     */
+    static BvhStatistics statistics(Node root, int unboundedCount) {
+        if (root == null) {
+            return new BvhStatistics(0, 0, 0, 0, 0, 0, 0, unboundedCount);
+        }
+
+        // nodes, leaves, max depth, min leaf, max leaf, geometries in leaves
+        int[] counters = { 0, 0, 0, Integer.MAX_VALUE, 0, 0 };
+        double[] cost = { 0 };
+        collect(root, 1, root.box.surfaceArea(), counters, cost);
+
+        return new BvhStatistics(counters[0], counters[1], counters[2], counters[3], counters[4],
+                (double) counters[5] / counters[1], cost[0], unboundedCount);
+    }
+
+    /**
+     * collect function collects the statistics of a subtree recursively
+     * @param node the root of the subtree
+     * @param depth depth of the node
+     * @param rootArea surface area of the root of the whole tree
+     * @param counters counters to collect into
+     * @param cost surface area heuristic cost to collect into
+     */
+    private static void collect(Node node, int depth, double rootArea, int[] counters, double[] cost) {
+        counters[0]++;
+        counters[2] = Math.max(counters[2], depth);
+
+        // a flat tree (zero area) counts every node as if it's visited by every ray
+        double probability = rootArea > 0 ? node.box.surfaceArea() / rootArea : 1;
+
+        if (node.isLeaf()) {
+            counters[1]++;
+            counters[3] = Math.min(counters[3], node.count);
+            counters[4] = Math.max(counters[4], node.count);
+            counters[5] += node.count;
+            cost[0] += probability * node.count * INTERSECTION_COST;
+            return;
+        }
+
+        cost[0] += probability * TRAVERSAL_COST;
+        collect(node.left, depth + 1, rootArea, counters, cost);
+        collect(node.right, depth + 1, rootArea, counters, cost);
+    }
+}
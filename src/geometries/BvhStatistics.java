@@ -0,0 +1,18 @@
+package geometries;
+
+/**
+ * Statistics of a bounding volume hierarchy that's built for a Geometries object,
+ * used to compare the split strategies on a scene
+ * @param nodeCount amount of nodes in the tree (inner nodes and leaves)
+ * @param leafCount amount of leaves in the tree
+ * @param maxDepth depth of the deepest leaf (the root is in depth 1)
+ * @param minLeafSize amount of geometries in the smallest leaf
+ * @param maxLeafSize amount of geometries in the biggest leaf
+ * @param averageLeafSize average amount of geometries in a leaf
+ * @param sahCost the surface area heuristic cost of the tree - the expected cost of a ray that hits the root box,
+ *                in units of a single intersection test
+ * @param unboundedCount amount of unbounded geometries (like planes) that are kept outside the tree
+ */
+public record BvhStatistics(int nodeCount, int leafCount, int maxDepth, int minLeafSize, int maxLeafSize,
+                            double averageLeafSize, double sahCost, int unboundedCount) {
+}
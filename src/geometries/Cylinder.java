@@ -29,6 +29,27 @@ public class Cylinder extends Tube {
     }
 
 
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        Point bottom = axis.head;
+        Point top = axis.getPoint(height);
+        Vector direction = axis.direction;
+
+        // a disk with a normal d spreads to radius * sqrt(1 - d_i^2) along every axis i
+        double ex = radius * Math.sqrt(Math.max(0, 1 - direction.getX() * direction.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - direction.getY() * direction.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - direction.getZ() * direction.getZ()));
+
+        return BoundingBox.of(
+                new Point(Math.min(bottom.getX(), top.getX()) - ex,
+                        Math.min(bottom.getY(), top.getY()) - ey,
+                        Math.min(bottom.getZ(), top.getZ()) - ez),
+                new Point(Math.max(bottom.getX(), top.getX()) + ex,
+                        Math.max(bottom.getY(), top.getY()) + ey,
+                        Math.max(bottom.getZ(), top.getZ()) + ez));
+    }
+
+
     @Override
     public Vector getNormal(Point p) {
         Point head = axis.head;
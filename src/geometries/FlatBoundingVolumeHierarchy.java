@@ -0,0 +1,651 @@
+package geometries;
+
+import geometries.BoundingVolumeHierarchy.IndexedIntersections;
+import geometries.BvhBuilder.Node;
+import primitives.Double3;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static geometries.BoundingVolumeHierarchy.closer;
+import static geometries.BoundingVolumeHierarchy.intersect;
+import static geometries.BoundingVolumeHierarchy.merge;
+
+/**
+ * FlatBoundingVolumeHierarchy class that's represent a compiled form of a bounding volume hierarchy.
+ * The tree is stored in primitive arrays in depth first order (the left child of a node is the next node),
+ * so the traversal is a loop over an explicit stack that reads continuous memory instead of following
+ * references between node objects, and it allocates nothing of its own.
+ * The triangles and the spheres of the leaves are copied into a {@link PrimitiveBatch}, so the closest hit and
+ * the shadow searches test them on arrays too, and the closest hit searches can test all the triangles of a leaf
+ * at once with the vector kernel of the batch.
+ * A packet of coherent rays is searched together - a node is visited once for the whole packet if any of its rays
+ * passes through the box, and the rays before the first one that passes through it are skipped in the subtree
+ */
+class FlatBoundingVolumeHierarchy extends Intersectable {
+
+    /** All the geometries, in the order they were added to the Geometries object */
+    private final Intersectable[] geometries;
+
+    /** Indices of the bounded geometries, every leaf owns a continuous range */
+    private final int[] indices;
+
+    /** Indices of the unbounded geometries */
+    private final int[] unbounded;
+
+    /** Bounds of the nodes - minimal x, y, z and then maximal x, y, z of every node */
+    private final double[] bounds;
+
+    /**
+     * Two numbers for every node - for a leaf the first position of its range in the indices array
+     * and the amount of its geometries, for an inner node the position of its right child and zero
+     */
+    private final int[] nodes;
+
+    /** Coordinates of the triangles and the spheres, in the order of the indices array */
+    private final PrimitiveBatch batch;
+
+    /** The hierarchy that the arrays were compiled from */
+    private final BoundingVolumeHierarchy bvh;
+
+    /** Box of the whole tree (null if the tree is empty) - updated when the tree is refitted */
+    private BoundingBox box;
+
+    /** Statistics of the tree - updated when the tree is refitted */
+    BvhStatistics statistics;
+
+    /** Traversal state of every thread - the stacks of the nodes and the barycentric coordinates of a hit */
+    private final ThreadLocal<Traversal> traversals;
+
+    /** Smallest packet that's searched together - smaller packets are searched ray by ray */
+    private static final int MIN_PACKET = 4;
+
+    /** Largest distance between the heads of the rays of a packet, relative to the size of the whole hierarchy */
+    private static final double PACKET_SPREAD = 0.01;
+
+    /**
+     * Packet class - the components of the rays of a packet that the box tests need, calculated once per packet
+     */
+    private static final class Packet {
+        /** Amount of rays */
+        final int size;
+        /** Heads of the rays */
+        final double[] ox, oy, oz;
+        /** Directions of the rays */
+        final double[] dx, dy, dz;
+        /** Inverse directions of the rays */
+        final double[] invX, invY, invZ;
+
+        /**
+         * Packet Constructor
+         * @param rays the rays of the packet
+         */
+        Packet(Ray[] rays) {
+            size = rays.length;
+            ox = new double[size];
+            oy = new double[size];
+            oz = new double[size];
+            dx = new double[size];
+            dy = new double[size];
+            dz = new double[size];
+            invX = new double[size];
+            invY = new double[size];
+            invZ = new double[size];
+            for (int r = 0; r < size; r++) {
+                ox[r] = rays[r].head.getX();
+                oy[r] = rays[r].head.getY();
+                oz[r] = rays[r].head.getZ();
+                dx[r] = rays[r].direction.getX();
+                dy[r] = rays[r].direction.getY();
+                dz[r] = rays[r].direction.getZ();
+                invX[r] = 1 / dx[r];
+                invY[r] = 1 / dy[r];
+                invZ[r] = 1 / dz[r];
+            }
+        }
+
+        /**
+         * coherent function checks if the rays start near each other and go in the same direction - all of them
+         * in the same octant, otherwise the rays visit different parts of the tree and the packet diverges
+         * @param spread the largest distance between the heads on every axis
+         * @return true if the packet can be searched together
+         */
+        boolean coherent(double spread) {
+            for (int r = 1; r < size; r++) {
+                if ((dx[r] < 0) != (dx[0] < 0) || (dy[r] < 0) != (dy[0] < 0) || (dz[r] < 0) != (dz[0] < 0)
+                        || Math.abs(ox[r] - ox[0]) > spread || Math.abs(oy[r] - oy[0]) > spread
+                        || Math.abs(oz[r] - oz[0]) > spread) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * FlatBoundingVolumeHierarchy Constructor - compiles a hierarchy into arrays
+     * @param bvh the hierarchy to compile
+     * @param vectorized whether to test the triangles of a leaf with the vector kernel (only if the vector API
+     *                   is available)
+     */
+    FlatBoundingVolumeHierarchy(BoundingVolumeHierarchy bvh, boolean vectorized) {
+        this.bvh = bvh;
+        geometries = bvh.geometries;
+        indices = bvh.indices;
+        unbounded = bvh.unbounded;
+        batch = new PrimitiveBatch(geometries, indices, vectorized);
+        statistics = bvh.statistics;
+        box = bvh.root == null ? null : bvh.root.box;
+
+        bounds = new double[statistics.nodeCount() * 6];
+        nodes = new int[statistics.nodeCount() * 2];
+        if (bvh.root != null) {
+            flatten(bvh.root, 0);
+        }
+
+        int stackSize = statistics.maxDepth() + 1;
+        int leafSize = batch.vectorized() ? statistics.maxLeafSize() + PrimitiveBatch.LANES : 0;
+        traversals = ThreadLocal.withInitial(() -> new Traversal(stackSize, leafSize));
+    }
+
+    /**
+     * refit function refits the hierarchy that the arrays were compiled from and compiles the new boxes
+     * @param rebuildThreshold the ratio between the refitted cost and the built cost that the tree tolerates
+     * @return true if the tree was refitted, false if it has to be built again
+     * @see BoundingVolumeHierarchy#refit(double)
+     */
+    boolean refit(double rebuildThreshold) {
+        if (!bvh.refit(rebuildThreshold)) {
+            return false;
+        }
+
+        statistics = bvh.statistics;
+        box = bvh.root == null ? null : bvh.root.box;
+        if (bvh.root != null) {
+            flatten(bvh.root, 0);
+        }
+        resetBoundingBox();
+        return true;
+    }
+
+    /**
+     * flatten function writes a subtree into the arrays in depth first order
+     * @param node the root of the subtree
+     * @param position the position of the node in the arrays
+     * @return the position after the last node of the subtree
+     */
+    private int flatten(Node node, int position) {
+        bounds[position * 6] = node.box.minX;
+        bounds[position * 6 + 1] = node.box.minY;
+        bounds[position * 6 + 2] = node.box.minZ;
+        bounds[position * 6 + 3] = node.box.maxX;
+        bounds[position * 6 + 4] = node.box.maxY;
+        bounds[position * 6 + 5] = node.box.maxZ;
+
+        if (node.isLeaf()) {
+            nodes[position * 2] = node.start;
+            nodes[position * 2 + 1] = node.count;
+            return position + 1;
+        }
+
+        int right = flatten(node.left, position + 1);
+        nodes[position * 2] = right;
+        nodes[position * 2 + 1] = 0;
+        return flatten(node.right, right);
+    }
+
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<IndexedIntersections> found = null;
+
+        for (int index : unbounded) {
+            found = intersect(geometries[index], index, ray, maxDistance, found);
+        }
+
+        if (nodes.length == 0) {
+            return merge(found);
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 6;
+            if (!BoundingBox.intersects(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                    ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance)) {
+                continue;
+            }
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int i = start; i < start + count; i++) {
+                    found = intersect(geometries[indices[i]], indices[i], ray, maxDistance, found);
+                }
+            } else {
+                // push the right child first so the left child is visited first
+                stack[top++] = nodes[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+
+        return merge(found);
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        // the closest intersection with a batched geometry is kept as its position, distance and barycentric
+        // coordinates, and its point is created only at the end
+        GeoPoint closest = null;
+        int closestIndex = -1;
+        int closestPosition = -1;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        double closestU = Double.NaN, closestV = Double.NaN;
+
+        for (int index : unbounded) {
+            GeoPoint current = geometries[index].findClosestGeoIntersection(ray, maxDistance);
+            if (current != null && closer(current.distance, index, closestDistance, closestIndex)) {
+                closest = current;
+                closestIndex = index;
+                closestDistance = current.distance;
+                maxDistance = Math.min(maxDistance, current.distance);
+            }
+        }
+
+        if (nodes.length == 0) {
+            return closest;
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        double[] uv = traversal.uv;
+        double[] distances = traversal.distances;
+        int top = 0;
+        stack[top] = 0;
+        distances[top++] = distance(0, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+
+        while (top > 0) {
+            int node = stack[--top];
+
+            // a closer intersection that was found since the node was pushed skips it
+            if (distances[top] == Double.POSITIVE_INFINITY || distances[top] > maxDistance) {
+                continue;
+            }
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                if (batch.vectorized()) {
+                    batch.testTriangles(start, count, ox, oy, oz, dx, dy, dz, maxDistance, traversal);
+                }
+
+                for (int i = start; i < start + count; i++) {
+                    if (batch.batched(i)) {
+                        int k = i - start;
+                        double distance = batch.vectorized() && batch.triangle(i)
+                                ? batch.distance(i, traversal.hits[k], traversal.hitsU[k], traversal.hitsV[k],
+                                        ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance, uv)
+                                : batch.distance(i, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance, uv);
+                        if (!Double.isNaN(distance) && closer(distance, indices[i], closestDistance, closestIndex)) {
+                            closest = null;
+                            closestPosition = i;
+                            closestIndex = indices[i];
+                            closestDistance = distance;
+                            closestU = uv[0];
+                            closestV = uv[1];
+                            maxDistance = Math.min(maxDistance, distance);
+                        }
+                        continue;
+                    }
+
+                    GeoPoint current = geometries[indices[i]].findClosestGeoIntersection(ray, maxDistance);
+                    if (current != null && closer(current.distance, indices[i], closestDistance, closestIndex)) {
+                        closest = current;
+                        closestPosition = -1;
+                        closestIndex = indices[i];
+                        closestDistance = current.distance;
+                        maxDistance = Math.min(maxDistance, current.distance);
+                    }
+                }
+                continue;
+            }
+
+            // push the farther child first so the nearer child is visited first
+            int near = node + 1, far = nodes[node * 2];
+            double nearDistance = distance(near, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+            double farDistance = distance(far, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+            if (farDistance < nearDistance) {
+                int temp = near;
+                near = far;
+                far = temp;
+                double tempDistance = nearDistance;
+                nearDistance = farDistance;
+                farDistance = tempDistance;
+            }
+
+            stack[top] = far;
+            distances[top++] = farDistance;
+            stack[top] = near;
+            distances[top++] = nearDistance;
+        }
+
+        return closestPosition < 0 ? closest
+                : new GeoPoint((Geometry) geometries[closestIndex], ray.getPoint(closestDistance), closestDistance)
+                        .setBarycentrics(closestU, closestV);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        for (int index : unbounded) {
+            ktr = geometries[index].findTransparency(ray, maxDistance, ktr, threshold);
+            if (ktr == Double3.ZERO) return ktr;
+        }
+
+        if (nodes.length == 0) {
+            return ktr;
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            int b = node * 6;
+            if (!BoundingBox.intersects(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4], bounds[b + 5],
+                    ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance)) {
+                continue;
+            }
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int i = start; i < start + count; i++) {
+                    // a batched geometry that the ray misses is skipped, and an opaque one that it hits blocks the light
+                    if (batch.batched(i)) {
+                        if (Double.isNaN(batch.distance(i, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance,
+                                null))) {
+                            continue;
+                        }
+                        if (((Geometry) geometries[indices[i]]).getMaterial().kT.lowerThan(threshold)) {
+                            return Double3.ZERO;
+                        }
+                    }
+
+                    ktr = geometries[indices[i]].findTransparency(ray, maxDistance, ktr, threshold);
+
+                    // the light is blocked - the rest of the tree doesn't matter
+                    if (ktr == Double3.ZERO) return ktr;
+                }
+            } else {
+                stack[top++] = nodes[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+
+        return ktr;
+    }
+
+    @Override
+    protected GeoPoint[] findClosestGeoIntersectionsHelper(Ray[] rays, double maxDistance) {
+        Packet packet = new Packet(rays);
+        if (packet.size < MIN_PACKET || nodes.length == 0 || !packet.coherent(packetSpread())) {
+            return super.findClosestGeoIntersectionsHelper(rays, maxDistance);
+        }
+
+        // the closest intersection of every ray - as in the search of a single ray
+        int size = packet.size;
+        GeoPoint[] closest = new GeoPoint[size];
+        int[] closestIndex = new int[size];
+        int[] closestPosition = new int[size];
+        double[] closestDistance = new double[size];
+        double[] closestU = new double[size];
+        double[] closestV = new double[size];
+        double[] maxDistances = new double[size];
+        Arrays.fill(closestIndex, -1);
+        Arrays.fill(closestPosition, -1);
+        Arrays.fill(closestDistance, Double.POSITIVE_INFINITY);
+        Arrays.fill(maxDistances, maxDistance);
+
+        for (int r = 0; r < size; r++) {
+            for (int index : unbounded) {
+                GeoPoint current = geometries[index].findClosestGeoIntersection(rays[r], maxDistances[r]);
+                if (current != null && closer(current.distance, index, closestDistance[r], closestIndex[r])) {
+                    closest[r] = current;
+                    closestIndex[r] = index;
+                    closestDistance[r] = current.distance;
+                    maxDistances[r] = Math.min(maxDistances[r], current.distance);
+                }
+            }
+        }
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        double[] uv = traversal.uv;
+        int[] firsts = traversal.firsts;
+        int top = 0;
+        stack[top] = 0;
+        firsts[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            int first = firsts[top];
+            while (first < size && !hits(node, packet, first, maxDistances[first])) first++;
+            if (first == size) continue;
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int r = first; r < size; r++) {
+                    if (r > first && !hits(node, packet, r, maxDistances[r])) continue;
+
+                    if (batch.vectorized()) {
+                        batch.testTriangles(start, count, packet.ox[r], packet.oy[r], packet.oz[r],
+                                packet.dx[r], packet.dy[r], packet.dz[r], maxDistances[r], traversal);
+                    }
+
+                    for (int i = start; i < start + count; i++) {
+                        if (batch.batched(i)) {
+                            int k = i - start;
+                            double distance = batch.vectorized() && batch.triangle(i)
+                                    ? batch.distance(i, traversal.hits[k], traversal.hitsU[k], traversal.hitsV[k],
+                                            packet.ox[r], packet.oy[r], packet.oz[r],
+                                            packet.dx[r], packet.dy[r], packet.dz[r],
+                                            packet.invX[r], packet.invY[r], packet.invZ[r], maxDistances[r], uv)
+                                    : batch.distance(i, packet.ox[r], packet.oy[r], packet.oz[r],
+                                            packet.dx[r], packet.dy[r], packet.dz[r],
+                                            packet.invX[r], packet.invY[r], packet.invZ[r], maxDistances[r], uv);
+                            if (!Double.isNaN(distance)
+                                    && closer(distance, indices[i], closestDistance[r], closestIndex[r])) {
+                                closest[r] = null;
+                                closestPosition[r] = i;
+                                closestIndex[r] = indices[i];
+                                closestDistance[r] = distance;
+                                closestU[r] = uv[0];
+                                closestV[r] = uv[1];
+                                maxDistances[r] = Math.min(maxDistances[r], distance);
+                            }
+                            continue;
+                        }
+
+                        GeoPoint current = geometries[indices[i]].findClosestGeoIntersection(rays[r], maxDistances[r]);
+                        if (current != null && closer(current.distance, indices[i], closestDistance[r], closestIndex[r])) {
+                            closest[r] = current;
+                            closestPosition[r] = -1;
+                            closestIndex[r] = indices[i];
+                            closestDistance[r] = current.distance;
+                            maxDistances[r] = Math.min(maxDistances[r], current.distance);
+                        }
+                    }
+                }
+                continue;
+            }
+
+            // the first ray that passes through the node picks the nearer child for the whole packet
+            int near = node + 1, far = nodes[node * 2];
+            if (distance(far, packet, first, maxDistances[first]) < distance(near, packet, first, maxDistances[first])) {
+                int temp = near;
+                near = far;
+                far = temp;
+            }
+
+            stack[top] = far;
+            firsts[top++] = first;
+            stack[top] = near;
+            firsts[top++] = first;
+        }
+
+        for (int r = 0; r < size; r++) {
+            if (closestPosition[r] >= 0) {
+                closest[r] = new GeoPoint((Geometry) geometries[closestIndex[r]], rays[r].getPoint(closestDistance[r]),
+                        closestDistance[r]).setBarycentrics(closestU[r], closestV[r]);
+            }
+        }
+        return closest;
+    }
+
+    @Override
+    protected Double3[] findTransparenciesHelper(Ray[] rays, double maxDistance, double threshold) {
+        Packet packet = new Packet(rays);
+        if (packet.size < MIN_PACKET || nodes.length == 0 || !packet.coherent(packetSpread())) {
+            return super.findTransparenciesHelper(rays, maxDistance, threshold);
+        }
+
+        // a ray whose light is blocked leaves the packet
+        int size = packet.size;
+        Double3[] ktr = new Double3[size];
+        for (int r = 0; r < size; r++) {
+            ktr[r] = Double3.ONE;
+            for (int index : unbounded) {
+                ktr[r] = geometries[index].findTransparency(rays[r], maxDistance, ktr[r], threshold);
+                if (ktr[r] == Double3.ZERO) break;
+            }
+        }
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        int[] firsts = traversal.firsts;
+        int top = 0;
+        stack[top] = 0;
+        firsts[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            int first = firsts[top];
+            while (first < size && (ktr[first] == Double3.ZERO || !hits(node, packet, first, maxDistance))) first++;
+            if (first == size) continue;
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int r = first; r < size; r++) {
+                    if (ktr[r] == Double3.ZERO || (r > first && !hits(node, packet, r, maxDistance))) continue;
+
+                    for (int i = start; i < start + count && ktr[r] != Double3.ZERO; i++) {
+                        if (batch.batched(i)) {
+                            if (Double.isNaN(batch.distance(i, packet.ox[r], packet.oy[r], packet.oz[r],
+                                    packet.dx[r], packet.dy[r], packet.dz[r],
+                                    packet.invX[r], packet.invY[r], packet.invZ[r], maxDistance, null))) {
+                                continue;
+                            }
+                            if (((Geometry) geometries[indices[i]]).getMaterial().kT.lowerThan(threshold)) {
+                                ktr[r] = Double3.ZERO;
+                                continue;
+                            }
+                        }
+
+                        ktr[r] = geometries[indices[i]].findTransparency(rays[r], maxDistance, ktr[r], threshold);
+                    }
+                }
+            } else {
+                // the left child first, in the order of the search of a single ray
+                stack[top] = nodes[node * 2];
+                firsts[top++] = first;
+                stack[top] = node + 1;
+                firsts[top++] = first;
+            }
+        }
+
+        return ktr;
+    }
+
+    /**
+     * packetSpread function calculates the largest distance between the heads of the rays of a coherent packet -
+     * rays from far apart points visit different parts of the tree even if they go the same way
+     * @return the distance on every axis
+     */
+    private double packetSpread() {
+        return PACKET_SPREAD * Math.max(bounds[3] - bounds[0], Math.max(bounds[4] - bounds[1], bounds[5] - bounds[2]));
+    }
+
+    /**
+     * hits function checks if a ray of a packet passes through the box of a node
+     * @param node the node
+     * @param packet the packet
+     * @param ray the index of the ray in the packet
+     * @param maxDistance the max distance between ray head and the box
+     * @return true if the ray passes through the box
+     */
+    private boolean hits(int node, Packet packet, int ray, double maxDistance) {
+        return distance(node, packet, ray, maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * distance function calculates the distance along a ray of a packet to the box of a node
+     * @param node the node
+     * @param packet the packet
+     * @param ray the index of the ray in the packet
+     * @param maxDistance the max distance between ray head and the box
+     * @return the distance to the box, or infinity if the ray misses it before the max distance
+     */
+    private double distance(int node, Packet packet, int ray, double maxDistance) {
+        return distance(node, packet.ox[ray], packet.oy[ray], packet.oz[ray], packet.dx[ray], packet.dy[ray],
+                packet.dz[ray], packet.invX[ray], packet.invY[ray], packet.invZ[ray], maxDistance);
+    }
+
+    /**
+     * distance function calculates the distance along a ray to the box of a node
+     * @param node the node
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the box
+     * @return the distance to the box, or infinity if the ray misses it before the max distance
+     */
+    private double distance(int node, double ox, double oy, double oz, double dx, double dy, double dz,
+                            double invX, double invY, double invZ, double maxDistance) {
+        int b = node * 6;
+        return BoundingBox.entryDistance(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4],
+                bounds[b + 5], ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return unbounded.length > 0 ? null : box;
+    }
+}
@@ -1,16 +1,66 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Ray;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Geometries class that's represent all geometries objects that Intersectable in a 3D Cartesian coordinate system
  */
 public class Geometries extends Intersectable {
 
-    private final List<Intersectable> geometries = new LinkedList<>();
+    /**
+     * Acceleration enum - the ways Geometries can search for intersections
+     */
+    public enum Acceleration {
+        /** Linear search over all the geometries */
+        NONE,
+        /** Bounding volume hierarchy over the geometries */
+        BVH,
+        /** Bounding volume hierarchy that's compiled into flat arrays */
+        FLAT_BVH,
+        /** Uniform grid of cells that a ray walks through (3D-DDA) */
+        GRID
+    }
+
+    /**
+     * SplitStrategy enum - the ways to split a node of a bounding volume hierarchy into two children
+     */
+    public enum SplitStrategy {
+        /** Split in the middle of the extent of the geometries centers along the longest axis (spatial median) */
+        MEDIAN,
+        /** Split into two halves with the same amount of geometries along the longest axis (object median) */
+        EQUAL_COUNTS,
+        /** Split at the cheapest border of binned geometries according to the surface area heuristic */
+        SAH
+    }
+
+    private final List<Intersectable> geometries = new ArrayList<>();
+
+    /** The acceleration mode to search for intersections with */
+    private Acceleration acceleration = Acceleration.NONE;
+
+    /** The split strategy of the bounding volume hierarchy */
+    private SplitStrategy splitStrategy = SplitStrategy.SAH;
+
+    /** The acceleration structure - built once, on the first search or by calling build() */
+    private volatile Intersectable accelerator = null;
+
+    /**
+     * Amount of threads that build a hierarchy - 0 for the common fork/join pool,
+     * 1 for the calling thread only, more for a pool of that size
+     */
+    private int buildThreads = 0;
+
+    /** Ratio between the cost of a refitted hierarchy and its cost when it was built that triggers a rebuild */
+    private double rebuildThreshold = 1.5;
+
+    /** Whether a flat hierarchy tests the triangles of a leaf with the vector API when it's available */
+    private boolean vectorized = true;
 
 
     /**
@@ -35,11 +85,177 @@ public class Geometries extends Intersectable {
      */
     public void add(Intersectable... geometries) {
             this.geometries.addAll(List.of(geometries));
+            accelerator = null;
+            resetBoundingBox();
+    }
+
+    /**
+     * Setter for the acceleration mode
+     * @param acceleration the new acceleration mode
+     * @return this - current object
+     */
+    public Geometries setAcceleration(Acceleration acceleration) {
+        this.acceleration = acceleration;
+        accelerator = null;
+        return this;
+    }
+
+    /**
+     * Setter for the split strategy of the bounding volume hierarchy
+     * @param splitStrategy the new split strategy
+     * @return this - current object
+     */
+    public Geometries setSplitStrategy(SplitStrategy splitStrategy) {
+        this.splitStrategy = splitStrategy;
+        accelerator = null;
+        return this;
+    }
+
+    /**
+     * Setter for the amount of threads that build a hierarchy, the tree is the same for any amount of threads
+     * @param buildThreads 0 for the common fork/join pool, 1 for the calling thread only, more for a pool of that size
+     * @return this - current object
+     */
+    public Geometries setBuildThreads(int buildThreads) {
+        if (buildThreads < 0) {
+            throw new IllegalArgumentException("Amount of build threads must not be negative");
+        }
+
+        this.buildThreads = buildThreads;
+        return this;
+    }
+
+    /**
+     * Setter for the rebuild threshold of refit
+     * @param rebuildThreshold ratio between the surface area heuristic cost of a refitted hierarchy and its cost
+     *                         when it was built, a refit that passes it builds the hierarchy again
+     * @return this - current object
+     */
+    public Geometries setRebuildThreshold(double rebuildThreshold) {
+        if (rebuildThreshold < 1) {
+            throw new IllegalArgumentException("Rebuild threshold must be at least 1");
+        }
+
+        this.rebuildThreshold = rebuildThreshold;
+        return this;
+    }
+
+    /**
+     * Setter for the vector test of the triangles of a flat hierarchy - the triangles of a leaf are tested all at
+     * once, 4 or 8 of them according to the platform. It works only if the jdk.incubator.vector module is added
+     * (--add-modules jdk.incubator.vector), otherwise the triangles are tested one by one anyway.
+     * The intersections are the same in both ways
+     * @param vectorized true to use the vector API when it's available, false to always test one by one
+     * @return this - current object
+     */
+    public Geometries setVectorized(boolean vectorized) {
+        this.vectorized = vectorized;
+        accelerator = null;
+        return this;
+    }
+
+    /**
+     * build function builds the acceleration structure of the current acceleration mode.
+     * Calling it is optional - the structure is built on the first search if it's not built yet,
+     * but adding geometries afterwards requires building it again
+     * @return this - current object
+     */
+    public Geometries build() {
+        synchronized (geometries) {
+            ForkJoinPool pool = switch (buildThreads) {
+                case 0 -> ForkJoinPool.commonPool();
+                case 1 -> null;
+                default -> new ForkJoinPool(buildThreads);
+            };
+
+            try {
+                accelerator = switch (acceleration) {
+                    case NONE -> null;
+                    case BVH -> new BoundingVolumeHierarchy(geometries, splitStrategy, pool);
+                    case FLAT_BVH -> new FlatBoundingVolumeHierarchy(
+                            new BoundingVolumeHierarchy(geometries, splitStrategy, pool), vectorized);
+                    case GRID -> new UniformGrid(geometries);
+                };
+            } finally {
+                if (buildThreads > 1) pool.shutdown();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * refit function updates the geometries after some of them moved (like an Instance with a new transformation),
+     * it should be called between frames, when nothing is rendered.
+     * A hierarchy keeps its structure and only recalculates its boxes, unless the refitted hierarchy became
+     * more expensive than the rebuild threshold allows - then it's built again. A grid is always built again
+     * @return this - current object
+     */
+    public Geometries refit() {
+        synchronized (geometries) {
+            resetBoundingBox();
+
+            // inner geometries are refitted first so their boxes are up-to-date
+            for (Intersectable geometry : geometries) {
+                if (geometry instanceof Geometries inner) inner.refit();
+            }
+
+            // the structure is built on the next search anyway
+            if (accelerator == null) {
+                return this;
+            }
+
+            boolean refitted = switch (acceleration) {
+                case NONE, GRID -> false;
+                case BVH -> ((BoundingVolumeHierarchy) accelerator).refit(rebuildThreshold);
+                case FLAT_BVH -> ((FlatBoundingVolumeHierarchy) accelerator).refit(rebuildThreshold);
+            };
+
+            if (!refitted) {
+                build();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Getter for the acceleration structure - builds it if it's not built yet.
+     * Rendering threads may call it at the same time, so the structure is built only once
+     * @return the acceleration structure
+     */
+    private Intersectable getAccelerator() {
+        Intersectable current = accelerator;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (geometries) {
+            if (accelerator == null) {
+                build();
+            }
+            return accelerator;
+        }
+    }
+
+
+    /**
+     * Getter for the statistics of the bounding volume hierarchy - builds it if it's not built yet
+     * @return the statistics of the hierarchy, or null if the acceleration mode is not a hierarchy
+     */
+    public BvhStatistics getBvhStatistics() {
+        return switch (acceleration) {
+            case NONE, GRID -> null;
+            case BVH -> ((BoundingVolumeHierarchy) getAccelerator()).statistics;
+            case FLAT_BVH -> ((FlatBoundingVolumeHierarchy) getAccelerator()).statistics;
+        };
     }
 
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        if (acceleration != Acceleration.NONE) {
+            return getAccelerator().findGeoIntersections(ray, maxDistance);
+        }
+
         List<GeoPoint> intersections = null;
         for (Intersectable geometry : geometries) {
             List<GeoPoint> currentIntersections = geometry.findGeoIntersections(ray, maxDistance);
@@ -57,4 +273,70 @@ public class Geometries extends Intersectable {
 
         return intersections;
     }
-}
\ No newline at end of file
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        if (acceleration != Acceleration.NONE) {
+            return getAccelerator().findClosestGeoIntersection(ray, maxDistance);
+        }
+
+        // the first geometry wins when two intersections are at the same distance, like in the list search
+        GeoPoint closest = null;
+        for (Intersectable geometry : geometries) {
+            GeoPoint current = geometry.findClosestGeoIntersection(ray, maxDistance);
+            if (current != null && (closest == null || current.distance < closest.distance)) {
+                closest = current;
+                maxDistance = Math.min(maxDistance, current.distance);
+            }
+        }
+
+        return closest;
+    }
+
+    @Override
+    protected GeoPoint[] findClosestGeoIntersectionsHelper(Ray[] rays, double maxDistance) {
+        return acceleration != Acceleration.NONE
+                ? getAccelerator().findClosestGeoIntersectionsHelper(rays, maxDistance)
+                : super.findClosestGeoIntersectionsHelper(rays, maxDistance);
+    }
+
+    @Override
+    protected Double3[] findTransparenciesHelper(Ray[] rays, double maxDistance, double threshold) {
+        return acceleration != Acceleration.NONE
+                ? getAccelerator().findTransparenciesHelper(rays, maxDistance, threshold)
+                : super.findTransparenciesHelper(rays, maxDistance, threshold);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        if (acceleration != Acceleration.NONE) {
+            return getAccelerator().findTransparency(ray, maxDistance, ktr, threshold);
+        }
+
+        for (Intersectable geometry : geometries) {
+            ktr = geometry.findTransparency(ray, maxDistance, ktr, threshold);
+            if (ktr == Double3.ZERO) {
+                return ktr;
+            }
+        }
+
+        return ktr;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        BoundingBox box = null;
+        for (Intersectable geometry : geometries) {
+            BoundingBox current = geometry.getBoundingBox();
+
+            // a single unbounded geometry makes all the geometries unbounded
+            if (current == null) {
+                return null;
+            }
+
+            box = box == null ? current : box.union(current);
+        }
+
+        return box;
+    }
+}
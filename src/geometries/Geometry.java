@@ -1,8 +1,11 @@
 package geometries;
 import primitives.Color;
+import primitives.Double3;
 import primitives.Material;
+import primitives.MutableVector;
 import primitives.Vector;
 import primitives.Point;
+import primitives.Ray;
 
 /**
  * Geometry interface for all geometry related
@@ -42,10 +45,31 @@ public abstract class Geometry extends Intersectable {
     public Color getEmission() { return emission; }
 
 
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        // an opaque geometry blocks the light at any intersection - there's no need to find all of them
+        if (getMaterial().kT.lowerThan(threshold)) {
+            return findClosestGeoIntersectionHelper(ray, maxDistance) == null ? ktr : Double3.ZERO;
+        }
+
+        return super.findTransparencyHelper(ray, maxDistance, ktr, threshold);
+    }
+
     /**
      * getNormal function that calculate the normal with different geometrical shapes (implemented for classes the implements the interface)
      * @param p point to calculate the normal with
      * @return The normal vector
      */
     public abstract Vector getNormal(Point p);
+
+    /**
+     * getNormal function that calculates the normal into a scratch vector, for the hot path of the ray tracer
+     * (the shapes that can calculate it without creating a vector override it)
+     * @param p point to calculate the normal with
+     * @param normal the scratch vector of the result
+     * @return the scratch vector
+     */
+    public MutableVector getNormal(Point p, MutableVector normal) {
+        return normal.set(getNormal(p));
+    }
 }
\ No newline at end of file
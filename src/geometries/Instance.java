@@ -0,0 +1,203 @@
+package geometries;
+
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.List;
+
+/**
+ * Instance class that's represent a copy of a shared object (usually a mesh in a Geometries object)
+ * placed in the world by an affine transformation.
+ * Many instances share the same object and its acceleration structure, so a scene with many copies keeps
+ * the geometry only once - the top level Geometries holds the instances, and every shared object keeps its own
+ * structure over its geometries. A ray is moved into the space of the object, and the intersections are moved back
+ * to the world space
+ */
+public class Instance extends Intersectable {
+
+    /** The shared object */
+    private final Intersectable object;
+
+    /** The transformation from the space of the object to the world space */
+    private Transform transform;
+
+    /**
+     * Instance Constructor - places a shared object in the world
+     * @param object the shared object
+     * @param transform the transformation from the space of the object to the world space
+     */
+    public Instance(Intersectable object, Transform transform) {
+        this.object = object;
+        this.transform = transform;
+    }
+
+    // Getter for the shared object
+    public Intersectable getObject() { return object; }
+
+    // Getter for the transformation
+    public Transform getTransform() { return transform; }
+
+    /**
+     * Setter for the transformation - moves the instance (the Geometries that contain it must be refitted)
+     * @param transform the new transformation from the space of the object to the world space
+     * @return this - current object
+     * @see Geometries#refit()
+     */
+    public Instance setTransform(Transform transform) {
+        this.transform = transform;
+        resetBoundingBox();
+        return this;
+    }
+
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        return intersect(object, ray, maxDistance);
+    }
+
+    /**
+     * intersect function finds the intersections of a world space ray with a part of the object
+     * @param target the object or one of its geometries
+     * @param ray the ray in the world space
+     * @param maxDistance the max distance in the world space
+     * @return the intersections in the world space, with new views of the intersected geometries
+     */
+    private List<GeoPoint> intersect(Intersectable target, Ray ray, double maxDistance) {
+        // the distances along the ray change by the length of the direction in the object space
+        Vector direction = transform.applyInverseVector(ray.direction);
+        Ray objectRay = new Ray(transform.applyInverse(ray.head), direction);
+        double objectDistance = maxDistance == Double.POSITIVE_INFINITY ? maxDistance : maxDistance * direction.length();
+
+        List<GeoPoint> intersections = target.findGeoIntersections(objectRay, objectDistance);
+        if (intersections == null) {
+            return null;
+        }
+
+        return intersections.stream()
+                .map(gp -> new GeoPoint(new InstancedGeometry(gp.geometry), transform.apply(gp.point))
+                        .setBarycentrics(gp.u, gp.v))
+                .toList();
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        return closest(object, ray, maxDistance);
+    }
+
+    /**
+     * closest function finds the closest intersection of a world space ray with a part of the object
+     * @param target the object or one of its geometries
+     * @param ray the ray in the world space
+     * @param maxDistance the max distance in the world space
+     * @return the closest intersection in the world space, with a new view of the intersected geometry
+     */
+    private GeoPoint closest(Intersectable target, Ray ray, double maxDistance) {
+        Vector direction = transform.applyInverseVector(ray.direction);
+        double scale = direction.length();
+        GeoPoint closest = target.findClosestGeoIntersection(new Ray(transform.applyInverse(ray.head), direction),
+                maxDistance == Double.POSITIVE_INFINITY ? maxDistance : maxDistance * scale);
+
+        return closest == null ? null
+                : new GeoPoint(new InstancedGeometry(closest.geometry), transform.apply(closest.point),
+                        closest.distance / scale).setBarycentrics(closest.u, closest.v);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        Vector direction = transform.applyInverseVector(ray.direction);
+        return object.findTransparency(new Ray(transform.applyInverse(ray.head), direction),
+                maxDistance == Double.POSITIVE_INFINITY ? maxDistance : maxDistance * direction.length(), ktr, threshold);
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return transform(object.getBoundingBox());
+    }
+
+    /**
+     * transform function calculates the world space box of an object space box
+     * @param box the box in the space of the object
+     * @return the box of the eight transformed corners, or null if the box is null (unbounded)
+     */
+    private BoundingBox transform(BoundingBox box) {
+        if (box == null) {
+            return null;
+        }
+
+        Point[] corners = new Point[8];
+        for (int i = 0; i < 8; i++) {
+            corners[i] = transform.apply(new Point(
+                    (i & 1) == 0 ? box.minX : box.maxX,
+                    (i & 2) == 0 ? box.minY : box.maxY,
+                    (i & 4) == 0 ? box.minZ : box.maxZ));
+        }
+        return BoundingBox.of(corners);
+    }
+
+
+    /**
+     * InstancedGeometry class - a geometry of the shared object as it's seen in the world space of an instance.
+     * It shares the material and the emission of the geometry, and moves the normals to the world space.
+     * A view is created for every intersection (nothing is kept per geometry), and two views of the same geometry
+     * in the same instance are equal
+     */
+    private class InstancedGeometry extends Geometry {
+
+        /** The geometry in the space of the object */
+        private final Geometry geometry;
+
+        /**
+         * InstancedGeometry Constructor
+         * @param geometry the geometry in the space of the object
+         */
+        InstancedGeometry(Geometry geometry) {
+            this.geometry = geometry;
+        }
+
+        @Override
+        public Material getMaterial() { return geometry.getMaterial(); }
+
+        @Override
+        public Color getEmission() { return geometry.getEmission(); }
+
+        @Override
+        public Vector getNormal(Point p) {
+            return transform.applyNormal(geometry.getNormal(transform.applyInverse(p)));
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            return intersect(geometry, ray, maxDistance);
+        }
+
+        @Override
+        protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+            return closest(geometry, ray, maxDistance);
+        }
+
+        @Override
+        protected BoundingBox calcBoundingBox() {
+            return transform(geometry.getBoundingBox());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || obj instanceof InstancedGeometry other
+                    && geometry.equals(other.geometry) && instance() == other.instance();
+        }
+
+        @Override
+        public int hashCode() { return geometry.hashCode(); }
+
+        /**
+         * instance function returns the instance of the view
+         * @return the instance
+         */
+        private Instance instance() { return Instance.this; }
+    }
+}
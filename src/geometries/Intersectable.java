@@ -1,15 +1,24 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Ray;
 import primitives.Point;
 
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Intersectable interface that's represent an intersections between two geometries objects in a 3D Cartesian coordinate system
  */
 public abstract class Intersectable {
 
+    /** Marks a calculated bounding box of an unbounded object (contains the whole space) */
+    private static final BoundingBox UNBOUNDED = new BoundingBox(
+            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    /** The bounding box of the object - calculated on the first request (null until then) */
+    private BoundingBox boundingBox = null;
 
     /**
      * findIntersections Function finds the intersection points between a ray and other geometries objects
@@ -29,7 +38,7 @@ public abstract class Intersectable {
      * @return list of GeoPoint intersections which the ray intersects with
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray) {
-        return findGeoIntersectionsHelper(ray, Double.POSITIVE_INFINITY);
+        return findGeoIntersections(ray, Double.POSITIVE_INFINITY);
     }
 
     /**
@@ -39,9 +48,167 @@ public abstract class Intersectable {
      * @return list of GeoPoint intersections which the ray intersects with
      */
     public final List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance) {
+        // a ray that misses the bounding box can't intersect the object itself
+        BoundingBox box = calculatedBoundingBox();
+        if (box != UNBOUNDED && !box.intersects(ray, maxDistance)) {
+            return null;
+        }
+
         return findGeoIntersectionsHelper(ray, maxDistance);
     }
 
+    /**
+     * findClosestGeoIntersection function finds the intersection that's closest to the ray head
+     * @param ray ray to look for the intersection on
+     * @return the closest intersection, or null if there are no intersections
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        return findClosestGeoIntersection(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * findClosestGeoIntersection function finds the intersection that's closest to the ray head in range of a max distance.
+     * Unlike findGeoIntersections it doesn't create lists of intersections - the search keeps only the closest
+     * intersection so far and shrinks the max distance to it, so farther objects are skipped
+     * @param ray ray to look for the intersection on
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @return the closest intersection (with its distance), or null if there are no intersections
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray, double maxDistance) {
+        BoundingBox box = calculatedBoundingBox();
+        if (box != UNBOUNDED && !box.intersects(ray, maxDistance)) {
+            return null;
+        }
+
+        return findClosestGeoIntersectionHelper(ray, maxDistance);
+    }
+
+    /**
+     * helper function to find the closest intersection in max distance.
+     * The default implementation picks the closest of all the intersections, objects that are searched often
+     * override it to avoid the lists.
+     * When two intersections are at the same distance the first one (in the order of findGeoIntersections) is returned
+     * @param ray ray to look for the intersection on
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @return the closest intersection (with its distance), or null if there are no intersections
+     */
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        GeoPoint closest = ray.findClosestGeoPoint(findGeoIntersectionsHelper(ray, maxDistance));
+        if (closest != null) {
+            closest.distance = closest.point.distance(ray.head);
+        }
+        return closest;
+    }
+
+    /**
+     * findTransparency function calculates how much light passes along a ray until a max distance - the product of
+     * the transparency (kT) of the geometries at all the intersections (shadow rays).
+     * The search stops as soon as the product falls below a threshold, so an opaque geometry ends it
+     * at its first intersection
+     * @param ray ray to look for intersections on
+     * @param maxDistance the max distance between ray head and the intersection points
+     * @param threshold the transparency that's considered as no light
+     * @return the product of the transparency, or Double3.ZERO if it fell below the threshold
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, double threshold) {
+        return findTransparency(ray, maxDistance, Double3.ONE, threshold);
+    }
+
+    /**
+     * findTransparency function continues a transparency search with the intersections of this object
+     * @param ray ray to look for intersections on
+     * @param maxDistance the max distance between ray head and the intersection points
+     * @param ktr the transparency that was collected so far
+     * @param threshold the transparency that's considered as no light
+     * @return the product of the transparency, or Double3.ZERO if it fell below the threshold
+     */
+    protected final Double3 findTransparency(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        BoundingBox box = calculatedBoundingBox();
+        if (box != UNBOUNDED && !box.intersects(ray, maxDistance)) {
+            return ktr;
+        }
+
+        return findTransparencyHelper(ray, maxDistance, ktr, threshold);
+    }
+
+    /**
+     * helper function of the transparency search - multiplies the transparency of all the intersections.
+     * Objects that are searched often override it to stop earlier or to avoid the lists
+     * @param ray ray to look for intersections on
+     * @param maxDistance the max distance between ray head and the intersection points
+     * @param ktr the transparency that was collected so far
+     * @param threshold the transparency that's considered as no light
+     * @return the product of the transparency, or Double3.ZERO if it fell below the threshold
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray, maxDistance);
+        if (intersections == null) {
+            return ktr;
+        }
+
+        for (GeoPoint gp : intersections) {
+            ktr = ktr.product(gp.geometry.getMaterial().kT);
+            if (ktr.lowerThan(threshold)) {
+                return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+    /**
+     * findClosestGeoIntersections function finds the closest intersection of every ray of a packet - rays that
+     * are nearly parallel and start near each other (like the samples of a pixel) can share the search
+     * @param rays the rays of the packet
+     * @return the closest intersection of every ray (null for a ray without intersections)
+     */
+    public final GeoPoint[] findClosestGeoIntersections(Ray[] rays) {
+        return findClosestGeoIntersectionsHelper(rays, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * helper function of the packet closest hit search - the default searches ray by ray,
+     * objects that can search for a packet together override it
+     * @param rays the rays of the packet
+     * @param maxDistance the max distance between the ray heads and the intersection points
+     * @return the closest intersection of every ray (null for a ray without intersections)
+     */
+    protected GeoPoint[] findClosestGeoIntersectionsHelper(Ray[] rays, double maxDistance) {
+        GeoPoint[] closest = new GeoPoint[rays.length];
+        for (int k = 0; k < rays.length; k++) {
+            closest[k] = findClosestGeoIntersection(rays[k], maxDistance);
+        }
+        return closest;
+    }
+
+    /**
+     * findTransparencies function calculates the transparency along every ray of a packet
+     * (like the shadow rays from a point to an area light)
+     * @param rays the rays of the packet
+     * @param maxDistance the max distance between the ray heads and the intersection points
+     * @param threshold the transparency that's considered as no light
+     * @return the transparency along every ray, Double3.ZERO for a ray whose transparency fell below the threshold
+     * @see #findTransparency(Ray, double, double)
+     */
+    public final Double3[] findTransparencies(Ray[] rays, double maxDistance, double threshold) {
+        return findTransparenciesHelper(rays, maxDistance, threshold);
+    }
+
+    /**
+     * helper function of the packet transparency search - the default searches ray by ray,
+     * objects that can search for a packet together override it
+     * @param rays the rays of the packet
+     * @param maxDistance the max distance between the ray heads and the intersection points
+     * @param threshold the transparency that's considered as no light
+     * @return the transparency along every ray
+     */
+    protected Double3[] findTransparenciesHelper(Ray[] rays, double maxDistance, double threshold) {
+        Double3[] ktr = new Double3[rays.length];
+        for (int k = 0; k < rays.length; k++) {
+            ktr[k] = findTransparency(rays[k], maxDistance, threshold);
+        }
+        return ktr;
+    }
+
     /**
      * helper function to find GeoPoint intersections in max distance
      * @param ray ray to look for intersections on
@@ -50,6 +217,45 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * getBoundingBox function returns the axis-aligned box that contains the whole object,
+     * the box is calculated on the first call and kept for the next calls
+     * @return the bounding box of the object, or null if the object is unbounded
+     */
+    public final BoundingBox getBoundingBox() {
+        BoundingBox box = calculatedBoundingBox();
+        return box == UNBOUNDED ? null : box;
+    }
+
+    /**
+     * calculatedBoundingBox function returns the kept bounding box and calculates it if needed.
+     * Rendering threads may calculate it at the same time, but they all get an equal immutable box
+     * @return the bounding box of the object, or UNBOUNDED if the object is unbounded
+     */
+    private BoundingBox calculatedBoundingBox() {
+        BoundingBox box = boundingBox;
+        if (box == null) {
+            box = calcBoundingBox();
+            boundingBox = box = box == null ? UNBOUNDED : box;
+        }
+        return box;
+    }
+
+    /**
+     * resetBoundingBox function drops the kept bounding box, so it's calculated again on the next request.
+     * Objects that change their extent must call it
+     */
+    protected void resetBoundingBox() {
+        boundingBox = null;
+    }
+
+    /**
+     * calcBoundingBox function calculates the axis-aligned box that contains the whole object,
+     * the acceleration structures and the intersection search use it to skip objects that a ray can't intersect
+     * @return the bounding box of the object, or null if the object is unbounded
+     */
+    protected abstract BoundingBox calcBoundingBox();
+
 
     /**
      * GeoPoint class - hold a point and geometry object
@@ -62,11 +268,35 @@ public abstract class Intersectable {
          * @param point new Point object
          */
         public GeoPoint(Geometry geometry, Point point) {
+            this(geometry, point, Double.NaN);
+        }
+
+        /**
+         * GeoPoint Constructor to initialize geometry, point and the distance of the point from the ray head
+         * @param geometry new Geometry object
+         * @param point new Point object
+         * @param distance distance between the ray head and the point
+         */
+        public GeoPoint(Geometry geometry, Point point, double distance) {
             this.geometry = geometry;
             this.point = point;
+            this.distance = distance;
         }
 
 
+        /**
+         * setBarycentrics function sets the barycentric coordinates of the point on a triangle - the point is
+         * (1 - u - v) * first vertex + u * second vertex + v * third vertex
+         * @param u weight of the second vertex
+         * @param v weight of the third vertex
+         * @return this point
+         */
+        public GeoPoint setBarycentrics(double u, double v) {
+            this.u = u;
+            this.v = v;
+            return this;
+        }
+
         @Override
         public String toString() {
             return "Point: " + point.toString() + " Geometry: "  + geometry.toString();
@@ -78,7 +308,7 @@ public abstract class Intersectable {
 
             if (this == obj) return true;
 
-            return (obj instanceof GeoPoint other) && geometry == other.geometry && point.equals(other.point);
+            return (obj instanceof GeoPoint other) && Objects.equals(geometry, other.geometry) && point.equals(other.point);
         }
 
         // Geometry object
@@ -86,5 +316,12 @@ public abstract class Intersectable {
 
         // Point object
         public Point point;
+
+        // Distance between the ray head and the point (NaN if it wasn't calculated)
+        public double distance;
+
+        // Barycentric coordinates of the point on a triangle - the weights of its second and third vertices
+        // (NaN for other geometries)
+        public double u = Double.NaN, v = Double.NaN;
     }
 }
\ No newline at end of file
@@ -1,4 +1,5 @@
 package geometries;
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -57,34 +58,56 @@ public class Plane extends Geometry {
     // According to the formula:
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        double t = distance(ray, maxDistance);
+        return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
 
-        // Ray cannot start from a plane
-        if (ray.head.equals(q)) return null;
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double t = distance(ray, maxDistance);
+        return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t), t);
+    }
 
-        Point head = ray.head;
-        Vector direction = ray.direction;
+    /**
+     * distance function calculates the distance along a ray to its intersection with the plane,
+     * on the coordinates so nothing is created
+     * @param ray the ray to intersect with
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    double distance(Ray ray, double maxDistance) {
+        // Ray cannot start from a plane
+        if (ray.head.equals(q)) return Double.NaN;
 
-        double NV = alignZero(direction.dotProduct(normal)); // (denominator : direction dot product normal)
+        double NV = alignZero(ray.direction.dotProduct(normal)); // (denominator : direction dot product normal)
 
         // The denominator is zero (ray parallel to plane) - Undefined
-        if (isZero(NV)) return null;
+        if (isZero(NV)) return Double.NaN;
 
-        // Vector from head (start point) towards to the reference point on the plane
-        Vector vec = q.subtract(head); // (P0 - q)
-        double N_P = alignZero(vec.dotProduct(normal)); // P0 dot product normal (which P0 is vec)
+        // Vector from head (start point) towards to the reference point on the plane (P0 - q), dot product normal
+        double N_P = alignZero((q.getX() - ray.head.getX()) * normal.getX()
+                + (q.getY() - ray.head.getY()) * normal.getY()
+                + (q.getZ() - ray.head.getZ()) * normal.getZ());
 
-        if (isZero(N_P)) return null;
+        if (isZero(N_P)) return Double.NaN;
 
         double t = alignZero(N_P / NV);
 
-        if (t < 0) return null;
+        if (t < 0) return Double.NaN;
 
         // if intersection is after the max distance.
         if (alignZero(t - maxDistance) > 0) {
-            return null;
+            return Double.NaN;
         }
 
-        return List.of(new GeoPoint(this, ray.getPoint(t)));
+        return t;
+    }
+
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        // a plane is infinite - it can't be bounded by a box
+        return null;
     }
 
 
@@ -93,6 +116,11 @@ public class Plane extends Geometry {
         return normal;
     }
 
+    @Override
+    public MutableVector getNormal(Point p, MutableVector normal) {
+        return normal.set(this.normal);
+    }
+
     /**
      * Getter function that return the normal of the plane
      * @return the normal of the current plane
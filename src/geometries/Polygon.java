@@ -5,6 +5,7 @@ import java.util.List;
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
+import primitives.MutableVector;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -130,5 +131,83 @@ public class Polygon extends Geometry {
       return List.of(new GeoPoint(this, point.point));
    }
 
+   @Override
+   protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+      double t = distance(ray, maxDistance);
+      return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t), t);
+   }
+
+   /**
+    * distance function calculates the distance along a ray to its intersection with the polygon -
+    * the same test as findGeoIntersectionsHelper, on the coordinates so nothing is created
+    * @param ray the ray to intersect with
+    * @param maxDistance the max distance between ray head and the intersection point
+    * @return the distance to the intersection point, or NaN if there is no intersection
+    */
+   double distance(Ray ray, double maxDistance) {
+      double t = plane.distance(ray, maxDistance);
+      if (Double.isNaN(t)) {
+         return t;
+      }
+
+      double hx = ray.head.getX(), hy = ray.head.getY(), hz = ray.head.getZ();
+      double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+
+      // v1 = head - first vertex, v2 = head - second vertex
+      Point vertex = vertices.get(0);
+      double v1x = hx - vertex.getX(), v1y = hy - vertex.getY(), v1z = hz - vertex.getZ();
+      vertex = vertices.get(1);
+      double v2x = hx - vertex.getX(), v2y = hy - vertex.getY(), v2z = hz - vertex.getZ();
+
+      double sign = alignZero(tripleProduct(dx, dy, dz, v2x, v2y, v2z, v1x, v1y, v1z));
+      if (isZero(sign)) {
+         return Double.NaN;
+      }
+
+      boolean positive = sign > 0;
+      for (int i = 2; i < vertices.size(); i++) {
+         v2x = v1x;
+         v2y = v1y;
+         v2z = v1z;
+         vertex = vertices.get(i);
+         v1x = hx - vertex.getX();
+         v1y = hy - vertex.getY();
+         v1z = hz - vertex.getZ();
+
+         sign = alignZero(tripleProduct(dx, dy, dz, v2x, v2y, v2z, v1x, v1y, v1z));
+         if (isZero(sign) || positive != (sign > 0)) {
+            return Double.NaN;
+         }
+      }
+
+      return t;
+   }
+
+   /**
+    * tripleProduct function calculates direction dot product (a cross product b) on the coordinates
+    * @param dx direction x coordinate
+    * @param dy direction y coordinate
+    * @param dz direction z coordinate
+    * @param ax a x coordinate
+    * @param ay a y coordinate
+    * @param az a z coordinate
+    * @param bx b x coordinate
+    * @param by b y coordinate
+    * @param bz b z coordinate
+    * @return the triple product
+    */
+   static double tripleProduct(double dx, double dy, double dz,
+                               double ax, double ay, double az, double bx, double by, double bz) {
+      return dx * ((ay * bz) - (az * by)) + dy * ((az * bx) - (ax * bz)) + dz * ((ax * by) - (ay * bx));
+   }
+
+   @Override
+   protected BoundingBox calcBoundingBox() {
+      return BoundingBox.of(vertices.toArray(new Point[0]));
+   }
+
    @Override public Vector getNormal(Point point) { return plane.getNormal(); }
+
+   @Override
+   public MutableVector getNormal(Point point, MutableVector normal) { return normal.set(plane.getNormal()); }
 }
\ No newline at end of file
@@ -0,0 +1,303 @@
+package geometries;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * PrimitiveBatch class that's represent the triangles and the spheres of a flat bounding volume hierarchy in
+ * structure of arrays form - every coordinate has its own array, in the order of the leaves of the tree.
+ * The intersection tests of a leaf run over continuous memory of doubles, without calls to the geometry objects
+ * and without creating anything, so the hierarchy creates only the closest intersection point at the end.
+ * The tests are exactly the calculations of {@link Triangle} and {@link Sphere} after the test of their bounding box,
+ * so they find the same distances.
+ * Other geometries (and subclasses of the triangle and the sphere, that may change the tests) are not batched.
+ * If the jdk.incubator.vector module is available, the triangles of a leaf can be tested all at once by
+ * {@link VectorTriangles}, and without it they are tested one by one
+ */
+final class PrimitiveBatch {
+
+    /** Kind of a position that isn't batched - its geometry is tested by itself */
+    static final byte OTHER = 0;
+
+    /** Kind of a position of a triangle */
+    static final byte TRIANGLE = 1;
+
+    /** Kind of a position of a sphere */
+    static final byte SPHERE = 2;
+
+    /** Whether the vector API is available - the jdk.incubator.vector module is added only by --add-modules */
+    static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    /**
+     * Most doubles in a vector register (512 bits) - the arrays of the triangles are longer by it, so the vector
+     * kernel always loads whole registers, also at the last leaf
+     */
+    static final int LANES = 8;
+
+    /** The kind of every position */
+    private final byte[] kinds;
+
+    /** Minimal coordinates of the bounding box of a geometry */
+    private final double[] minX, minY, minZ;
+
+    /** Maximal coordinates of the bounding box of a geometry */
+    private final double[] maxX, maxY, maxZ;
+
+    /** First vertex of a triangle, or the center of a sphere */
+    private final double[] ax, ay, az;
+
+    /** Edge from the first vertex to the second vertex of a triangle */
+    private final double[] e1x, e1y, e1z;
+
+    /** Edge from the first vertex to the third vertex of a triangle */
+    private final double[] e2x, e2y, e2z;
+
+    /** Normal of the plane of a triangle */
+    private final double[] nx, ny, nz;
+
+    /** Radius of a sphere */
+    private final double[] radius;
+
+    /** Vector kernel of the triangles (null if the triangles are tested one by one) */
+    private final VectorTriangles vector;
+
+
+    /**
+     * PrimitiveBatch Constructor - copies the coordinates of the batched geometries into the arrays
+     * @param geometries all the geometries of the hierarchy
+     * @param indices the indices of the geometries in the order of the leaves
+     * @param vectorized whether to test the triangles with the vector kernel (only if the vector API is available)
+     */
+    PrimitiveBatch(Intersectable[] geometries, int[] indices, boolean vectorized) {
+        int size = indices.length;
+        kinds = new byte[size];
+        minX = new double[size];
+        minY = new double[size];
+        minZ = new double[size];
+        maxX = new double[size];
+        maxY = new double[size];
+        maxZ = new double[size];
+        ax = new double[size + LANES];
+        ay = new double[size + LANES];
+        az = new double[size + LANES];
+        e1x = new double[size + LANES];
+        e1y = new double[size + LANES];
+        e1z = new double[size + LANES];
+        e2x = new double[size + LANES];
+        e2y = new double[size + LANES];
+        e2z = new double[size + LANES];
+        nx = new double[size + LANES];
+        ny = new double[size + LANES];
+        nz = new double[size + LANES];
+        radius = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            Intersectable geometry = geometries[indices[i]];
+            if (geometry.getClass() == Triangle.class) {
+                Triangle triangle = (Triangle) geometry;
+                kinds[i] = TRIANGLE;
+                ax[i] = triangle.vertices.get(0).getX();
+                ay[i] = triangle.vertices.get(0).getY();
+                az[i] = triangle.vertices.get(0).getZ();
+                e1x[i] = triangle.e1x;
+                e1y[i] = triangle.e1y;
+                e1z[i] = triangle.e1z;
+                e2x[i] = triangle.e2x;
+                e2y[i] = triangle.e2y;
+                e2z[i] = triangle.e2z;
+                nx[i] = triangle.plane.getNormal().getX();
+                ny[i] = triangle.plane.getNormal().getY();
+                nz[i] = triangle.plane.getNormal().getZ();
+            } else if (geometry.getClass() == Sphere.class) {
+                Sphere sphere = (Sphere) geometry;
+                kinds[i] = SPHERE;
+                ax[i] = sphere.center.getX();
+                ay[i] = sphere.center.getY();
+                az[i] = sphere.center.getZ();
+                radius[i] = sphere.radius;
+            } else {
+                continue;
+            }
+
+            BoundingBox box = geometry.getBoundingBox();
+            minX[i] = box.minX;
+            minY[i] = box.minY;
+            minZ[i] = box.minZ;
+            maxX[i] = box.maxX;
+            maxY[i] = box.maxY;
+            maxZ[i] = box.maxZ;
+        }
+
+        vector = vectorized && VECTOR_API
+                ? new VectorTriangles(ax, ay, az, e1x, e1y, e1z, e2x, e2y, e2z, nx, ny, nz) : null;
+    }
+
+    /**
+     * batched function checks if a position is tested on the arrays
+     * @param position the position in the order of the leaves
+     * @return true if the geometry of the position is batched
+     */
+    boolean batched(int position) {
+        return kinds[position] != OTHER;
+    }
+
+    /**
+     * triangle function checks if a position is a triangle
+     * @param position the position in the order of the leaves
+     * @return true if the geometry of the position is a batched triangle
+     */
+    boolean triangle(int position) {
+        return kinds[position] == TRIANGLE;
+    }
+
+    /**
+     * vectorized function checks if the triangles are tested with the vector kernel
+     * @return true if {@link #testTriangles} can be used
+     */
+    boolean vectorized() {
+        return vector != null;
+    }
+
+    /**
+     * testTriangles function tests all the triangles of a range of positions at once with the vector kernel,
+     * the distance it finds for every triangle is confirmed afterwards by the distance function of a tested triangle
+     * @param start the first position
+     * @param count amount of positions
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param traversal receives the distances and the barycentric coordinates of the positions from the start
+     */
+    void testTriangles(int start, int count, double ox, double oy, double oz, double dx, double dy, double dz,
+                       double maxDistance, Traversal traversal) {
+        vector.distances(start, count, ox, oy, oz, dx, dy, dz, maxDistance,
+                traversal.hits, traversal.hitsU, traversal.hitsV);
+    }
+
+    /**
+     * distance function - as the distance of a triangle that the vector kernel already tested: the distance it
+     * found is checked only against the bounding box and the max distance, that could become shorter since then
+     * @param position the position of the triangle in the order of the leaves
+     * @param t the distance that the vector kernel found (NaN if there is no intersection)
+     * @param u the barycentric coordinate u that the vector kernel found
+     * @param v the barycentric coordinate v that the vector kernel found
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param uv receives the barycentric coordinates of an intersection
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    double distance(int position, double t, double u, double v, double ox, double oy, double oz,
+                    double dx, double dy, double dz, double invX, double invY, double invZ,
+                    double maxDistance, double[] uv) {
+        if (Double.isNaN(t) || alignZero(t - maxDistance) > 0
+                || !BoundingBox.intersects(minX[position], minY[position], minZ[position], maxX[position],
+                maxY[position], maxZ[position], ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance)) {
+            return Double.NaN;
+        }
+
+        uv[0] = u;
+        uv[1] = v;
+        return t;
+    }
+
+    /**
+     * distance function calculates the distance along a ray to the closest intersection with a batched geometry
+     * @param position the position of the geometry in the order of the leaves
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param uv receives the barycentric coordinates of an intersection - u and v of a triangle, NaN for a sphere
+     *           (null if they aren't needed)
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    double distance(int position, double ox, double oy, double oz, double dx, double dy, double dz,
+                    double invX, double invY, double invZ, double maxDistance, double[] uv) {
+        // a ray that misses the bounding box can't intersect the geometry itself
+        if (!BoundingBox.intersects(minX[position], minY[position], minZ[position], maxX[position], maxY[position],
+                maxZ[position], ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance)) {
+            return Double.NaN;
+        }
+
+        if (kinds[position] == TRIANGLE) {
+            return triangleDistance(position, ox, oy, oz, dx, dy, dz, maxDistance, uv);
+        }
+
+        double t = sphereDistance(position, ox, oy, oz, dx, dy, dz, maxDistance);
+        if (uv != null && !Double.isNaN(t)) {
+            uv[0] = Double.NaN;
+            uv[1] = Double.NaN;
+        }
+        return t;
+    }
+
+    /**
+     * triangleDistance function - the calculation of {@link Triangle#distance}
+     * @param i the position of the triangle
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param uv receives the barycentric coordinates of an intersection (null if they aren't needed)
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    private double triangleDistance(int i, double ox, double oy, double oz, double dx, double dy, double dz,
+                                    double maxDistance, double[] uv) {
+        return Triangle.distance(ax[i], ay[i], az[i], e1x[i], e1y[i], e1z[i], e2x[i], e2y[i], e2z[i],
+                nx[i], ny[i], nz[i], ox, oy, oz, dx, dy, dz, maxDistance, uv);
+    }
+
+    /**
+     * sphereDistance function - the calculation of {@link Sphere#findClosestGeoIntersectionHelper}
+     * @param i the position of the sphere
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    private double sphereDistance(int i, double ox, double oy, double oz, double dx, double dy, double dz,
+                                  double maxDistance) {
+        double fx = ax[i] - ox, fy = ay[i] - oy, fz = az[i] - oz;
+        double r = radius[i];
+
+        // a ray from the center hits the surface at the radius
+        if (isZero(fx) && isZero(fy) && isZero(fz)) return r;
+
+        double t = alignZero(dx * fx + dy * fy + dz * fz);
+        double y = Math.sqrt(alignZero(fx * fx + fy * fy + fz * fz - t * t));
+        if (y >= r) return Double.NaN;
+
+        double x = alignZero(Math.sqrt(r * r - y * y));
+        double t1 = alignZero(t - x);
+        double t2 = alignZero(t + x);
+
+        if (t1 > 0 && alignZero(t1 - maxDistance) <= 0) return t1;
+        if (t2 > 0 && alignZero(t2 - maxDistance) <= 0) return t2;
+        return Double.NaN;
+    }
+}
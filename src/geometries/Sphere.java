@@ -1,4 +1,5 @@
 package geometries;
+import primitives.MutableVector;
 import primitives.Ray;
 import primitives.Vector;
 import primitives.Point;
@@ -15,7 +16,7 @@ public class Sphere extends RadialGeometry {
     /**
      * the center of the sphere
      */
-    private final Point center;
+    protected final Point center;
 
 
     /**
@@ -31,12 +32,9 @@ public class Sphere extends RadialGeometry {
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        Point rayHead = ray.head;
-        Vector direction = ray.direction;
-
         // if the start point (head) of the ray is equals to the sphere center
         // than the only intersection would be on the surface of the sphere only
-        if (rayHead.equals(center)) {
+        if (ray.head.equals(center)) {
             return List.of(new GeoPoint(this, ray.getPoint(radius)));
         }
 
@@ -44,11 +42,14 @@ public class Sphere extends RadialGeometry {
         // Achieved by connecting a new line from head to center,
         // and then find the Vector of the line by subtracting center with the center between the two intersection points.
         // After we calculated the vector we can simply do dot product between the direction vector and the one we find has explained above
-        Vector fromCenter = center.subtract(rayHead);
-        double t = alignZero(direction.dotProduct(fromCenter));
+        // (on the coordinates, so only the result is created)
+        double fx = center.getX() - ray.head.getX();
+        double fy = center.getY() - ray.head.getY();
+        double fz = center.getZ() - ray.head.getZ();
+        double t = alignZero(ray.direction.getX() * fx + ray.direction.getY() * fy + ray.direction.getZ() * fz);
 
         // Here we use the formula of a circle X^2 + Y^2 = R^2 to find the distance between the center point and t (Point p)
-        double y = Math.sqrt(alignZero(fromCenter.lengthSquared() - t * t));
+        double y = Math.sqrt(alignZero(fx * fx + fy * fy + fz * fz - t * t));
 
         // if the y is equal or greater than the radius that means there are no intersections because the ray is outside the sphere
         if (y >= radius) return null;
@@ -77,9 +78,52 @@ public class Sphere extends RadialGeometry {
     }
 
 
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        // same calculation as findGeoIntersectionsHelper, on the coordinates so nothing is created but the result
+        if (ray.head.equals(center)) {
+            return new GeoPoint(this, ray.getPoint(radius), radius);
+        }
+
+        double fx = center.getX() - ray.head.getX();
+        double fy = center.getY() - ray.head.getY();
+        double fz = center.getZ() - ray.head.getZ();
+        double t = alignZero(ray.direction.getX() * fx + ray.direction.getY() * fy + ray.direction.getZ() * fz);
+
+        double y = Math.sqrt(alignZero(fx * fx + fy * fy + fz * fz - t * t));
+        if (y >= radius) return null;
+
+        double x = alignZero(Math.sqrt(radius * radius - y * y));
+        double t1 = alignZero(t - x);
+        double t2 = alignZero(t + x);
+
+        // the first intersection is closer, the second one counts only if the first is behind the head or too far
+        if (t1 > 0 && alignZero(t1 - maxDistance) <= 0) {
+            return new GeoPoint(this, ray.getPoint(t1), t1);
+        }
+        if (t2 > 0 && alignZero(t2 - maxDistance) <= 0) {
+            return new GeoPoint(this, ray.getPoint(t2), t2);
+        }
+
+        return null;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return BoundingBox.of(
+                new Point(center.getX() - radius, center.getY() - radius, center.getZ() - radius),
+                new Point(center.getX() + radius, center.getY() + radius, center.getZ() + radius));
+    }
+
+
     @Override
     public Vector getNormal(Point outerPoint) {
         // To calculate the normal we need to subtract the outer point by the center point and then normalize
         return (outerPoint.subtract(center)).normalize();
     }
+
+    @Override
+    public MutableVector getNormal(Point outerPoint, MutableVector normal) {
+        return normal.subtract(outerPoint, center).normalize();
+    }
 }
\ No newline at end of file
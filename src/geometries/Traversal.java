@@ -0,0 +1,42 @@
+package geometries;
+
+/**
+ * Traversal class - the state that a thread keeps for searching a flat tree of boxes: the stacks of the nodes,
+ * the barycentric coordinates that the intersection test of a triangle gives back, and the results of the
+ * vector test of the triangles of a leaf.
+ * A structure keeps one for every thread, so a search gets all of it in a single lookup and creates nothing
+ */
+class Traversal {
+
+    /** Nodes that are waiting to be visited - the stack is never deeper than the tree */
+    final int[] stack;
+
+    /** Distances to the boxes of the nodes in the stack (for the closest hit search) */
+    final double[] distances;
+
+    /** The first ray of a packet that may pass through every node in the stack */
+    final int[] firsts;
+
+    /** Barycentric coordinates u and v of the last intersection that the triangle test found */
+    final double[] uv = new double[2];
+
+    /** Distances that the vector test found for the triangles of a leaf (NaN if there is no intersection) */
+    final double[] hits;
+
+    /** Barycentric coordinates u and v that the vector test found for the triangles of a leaf */
+    final double[] hitsU, hitsV;
+
+    /**
+     * Traversal Constructor
+     * @param depth the depth of the tree
+     * @param leafSize length of the results of the vector test of a leaf (0 if the leaves aren't tested with vectors)
+     */
+    Traversal(int depth, int leafSize) {
+        stack = new int[depth];
+        distances = new double[depth];
+        firsts = new int[depth];
+        hits = new double[leafSize];
+        hitsU = new double[leafSize];
+        hitsV = new double[leafSize];
+    }
+}
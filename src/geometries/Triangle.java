@@ -9,10 +9,19 @@ import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
 /**
- * Triangle class that's represent a two-dimensional triangle in a 3D Cartesian coordinate system
+ * Triangle class that's represent a two-dimensional triangle in a 3D Cartesian coordinate system.
+ * The intersection is the Möller–Trumbore test on the edges of the triangle, that are calculated once in the
+ * constructor - it finds the distance and the barycentric coordinates of the point together, into an array
+ * that the caller owns, and the intersections keep the barycentric coordinates for the shading
  */
 public class Triangle extends Polygon {
 
+    /** Edge from the first vertex to the second vertex (kept on the coordinates for the intersection test) */
+    protected final double e1x, e1y, e1z;
+
+    /** Edge from the first vertex to the third vertex (kept on the coordinates for the intersection test) */
+    protected final double e2x, e2y, e2z;
+
     /**
      * Triangle Constructor to initialize a new Triangle object with 3 points
      * @param p1 represent first point
@@ -21,38 +30,102 @@ public class Triangle extends Polygon {
      */
     public Triangle(Point p1, Point p2, Point p3) {
         super(p1, p2, p3);
+        e1x = p2.getX() - p1.getX();
+        e1y = p2.getY() - p1.getY();
+        e1z = p2.getZ() - p1.getZ();
+        e2x = p3.getX() - p1.getX();
+        e2y = p3.getY() - p1.getY();
+        e2z = p3.getZ() - p1.getZ();
     }
 
     @Override
     protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
-        // First we will check if there are any intersection with the plane
-        List<GeoPoint> planeIntersections = plane.findGeoIntersections(ray, maxDistance);
+        GeoPoint intersection = findClosestGeoIntersectionHelper(ray, maxDistance);
+        return intersection == null ? null : List.of(intersection);
+    }
 
-        // If there are no intersection with plane there are no with triangle
-        if (planeIntersections == null)
-            return null;
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        double[] uv = new double[2];
+        double t = distance(ray, maxDistance, uv);
+        return Double.isNaN(t) ? null : new GeoPoint(this, ray.getPoint(t), t).setBarycentrics(uv[0], uv[1]);
+    }
 
-        // Then we will check if the point of intersection is inside a triangle
-        Point head = ray.head;
-        Vector direction = ray.direction;
+    @Override
+    double distance(Ray ray, double maxDistance) {
+        return distance(ray, maxDistance, null);
+    }
 
-        Vector v1 = vertices.get(0).subtract(head);
-        Vector v2 = vertices.get(1).subtract(head);
-        Vector v3 = vertices.get(2).subtract(head);
+    /**
+     * distance function calculates the distance along a ray to its intersection with the triangle
+     * @param ray the ray to intersect with
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param uv receives the barycentric coordinates u and v of the intersection (null if they aren't needed)
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    private double distance(Ray ray, double maxDistance, double[] uv) {
+        Point p1 = vertices.get(0);
+        Vector n = plane.getNormal();
+        return distance(p1.getX(), p1.getY(), p1.getZ(), e1x, e1y, e1z, e2x, e2y, e2z,
+                n.getX(), n.getY(), n.getZ(), ray.head.getX(), ray.head.getY(), ray.head.getZ(),
+                ray.direction.getX(), ray.direction.getY(), ray.direction.getZ(), maxDistance, uv);
+    }
 
-        // cross products
-        double a1 = alignZero(direction.dotProduct(v1.crossProduct(v2)));
-        double a2 = alignZero(direction.dotProduct(v2.crossProduct(v3)));
-        double a3 = alignZero(direction.dotProduct(v3.crossProduct(v1)));
+    /**
+     * distance function - the Möller–Trumbore test on the coordinates of a triangle (also used by
+     * {@link PrimitiveBatch} and {@link TriangleMesh}, so all of them find the same distances).
+     * The point is head + t * direction = first vertex + u * edge1 + v * edge2, and it is inside the triangle
+     * if u and v are positive and u + v is less than 1 - a point on an edge or a vertex isn't an intersection,
+     * as for the polygon. The test finds u and v on the way, and gives them to the caller that needs them
+     * @param ax first vertex x coordinate
+     * @param ay first vertex y coordinate
+     * @param az first vertex z coordinate
+     * @param e1x edge to the second vertex x coordinate
+     * @param e1y edge to the second vertex y coordinate
+     * @param e1z edge to the second vertex z coordinate
+     * @param e2x edge to the third vertex x coordinate
+     * @param e2y edge to the third vertex y coordinate
+     * @param e2z edge to the third vertex z coordinate
+     * @param nx normal x coordinate
+     * @param ny normal y coordinate
+     * @param nz normal z coordinate
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param uv receives u and v of an intersection - it's written only if there is an intersection
+     *           (null if they aren't needed)
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    static double distance(double ax, double ay, double az, double e1x, double e1y, double e1z,
+                           double e2x, double e2y, double e2z, double nx, double ny, double nz,
+                           double ox, double oy, double oz, double dx, double dy, double dz, double maxDistance,
+                           double[] uv) {
+        // a ray that is parallel to the plane of the triangle has no intersection (as for the plane)
+        if (isZero(alignZero(dx * nx + dy * ny + dz * nz))) return Double.NaN;
 
-        if (isZero(a1) || isZero(a2) || isZero(a3)){
-            return null;
-        }
+        // p = direction x edge2, s = head - first vertex, q = s x edge1
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double invDet = 1 / (e1x * px + e1y * py + e1z * pz);
 
-        if ((a1 > 0 && a2 > 0 && a3 > 0) || (a1 < 0 && a2 < 0 && a3 < 0)){
-            return List.of(new GeoPoint(this, planeIntersections.getFirst().point));
-        }
+        double sx = ox - ax, sy = oy - ay, sz = oz - az;
+        double u = alignZero((sx * px + sy * py + sz * pz) * invDet);
+        if (u <= 0 || alignZero(u - 1) >= 0) return Double.NaN;
+
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * invDet);
+        if (v <= 0 || alignZero(u + v - 1) >= 0) return Double.NaN;
 
-        return null;
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * invDet);
+        if (t <= 0 || alignZero(t - maxDistance) > 0) return Double.NaN;
+
+        if (uv != null) {
+            uv[0] = u;
+            uv[1] = v;
+        }
+        return t;
     }
-}
\ No newline at end of file
+}
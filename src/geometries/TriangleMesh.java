@@ -0,0 +1,596 @@
+package geometries;
+
+import geometries.BvhBuilder.Node;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.MutableVector;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * TriangleMesh class that's represent a surface of many triangles with one material and emission.
+ * The mesh keeps only primitive arrays - the coordinates of the vertices, three vertex indices for every face
+ * (a vertex is shared by all of its faces), the normal of every face and optionally a normal of every vertex.
+ * The mesh has its own bounding volume hierarchy over the faces, compiled into arrays like
+ * {@link FlatBoundingVolumeHierarchy}, and the faces are kept in the order of its leaves.
+ * A face is a geometry only in the intersection that hits it - every intersection gets a small view of its face,
+ * so a mesh of a million faces has no objects per face.
+ * The intersections are calculated exactly as {@link Triangle} calculates them
+ */
+public class TriangleMesh extends Geometry {
+
+    /** Coordinates of the vertices - x, y and z of every vertex */
+    private final double[] positions;
+
+    /** Normals of the vertices - x, y and z of every vertex (null for flat faces) */
+    private final double[] normals;
+
+    /** Indices of the three vertices of every face, in the order of the leaves of the hierarchy */
+    private final int[] faces;
+
+    /** Normals of the planes of the faces - x, y and z of every face, in the order of the faces */
+    private final double[] faceNormals;
+
+    /** Bounds of the nodes - minimal x, y, z and then maximal x, y, z of every node */
+    private final double[] bounds;
+
+    /**
+     * Two numbers for every node - for a leaf the first face and the amount of its faces,
+     * for an inner node the position of its right child and zero
+     */
+    private final int[] nodes;
+
+    /** Traversal state of every thread - the stacks of the nodes and the barycentric coordinates of a hit */
+    private final ThreadLocal<Traversal> traversals;
+
+
+    /**
+     * TriangleMesh Constructor of a mesh with flat faces (the arrays are copied, the caller may reuse them)
+     * @param positions coordinates of the vertices - x, y and z of every vertex
+     * @param faces indices of the three vertices of every face
+     * @throws IllegalArgumentException if the arrays aren't made of triads, a face has a vertex that doesn't exist,
+     *                                  or the vertices of a face are in the same line
+     */
+    public TriangleMesh(double[] positions, int[] faces) {
+        this(positions, faces, null);
+    }
+
+    /**
+     * TriangleMesh Constructor of a mesh with a normal of every vertex - the normal of a point of a face is
+     * interpolated between the normals of its vertices, so the surface looks smooth
+     * (the arrays are copied, the caller may reuse them)
+     * @param positions coordinates of the vertices - x, y and z of every vertex
+     * @param faces indices of the three vertices of every face
+     * @param normals normals of the vertices - x, y and z of every vertex (null for flat faces)
+     * @throws IllegalArgumentException if the arrays aren't made of triads, a face has a vertex that doesn't exist,
+     *                                  the vertices of a face are in the same line, or there isn't a normal for
+     *                                  every vertex
+     */
+    public TriangleMesh(double[] positions, int[] faces, double[] normals) {
+        if (positions.length % 3 != 0 || faces.length % 3 != 0) {
+            throw new IllegalArgumentException("Positions and faces must be triads");
+        }
+        if (normals != null && normals.length != positions.length) {
+            throw new IllegalArgumentException("Every vertex must have a normal");
+        }
+        for (int vertex : faces) {
+            if (vertex < 0 || vertex * 3 >= positions.length) {
+                throw new IllegalArgumentException("Face has a vertex that doesn't exist");
+            }
+        }
+
+        // the hierarchy and the normals of the faces are built on the coordinates, so the caller's buffers are copied
+        this.positions = positions.clone();
+        this.normals = normals == null ? null : normals.clone();
+
+        // the hierarchy is built over the boxes of the faces, and then the faces are arranged in the order of the leaves
+        int count = faces.length / 3;
+        BoundingBox[] boxes = new BoundingBox[count];
+        int[] indices = new int[count];
+        for (int f = 0; f < count; f++) {
+            boxes[f] = faceBox(faces, f);
+            indices[f] = f;
+        }
+        Node root = new BvhBuilder(boxes, indices, Geometries.SplitStrategy.SAH, null).build();
+        BvhStatistics statistics = BvhBuilder.statistics(root, 0);
+
+        this.faces = new int[faces.length];
+        faceNormals = new double[faces.length];
+        for (int f = 0; f < count; f++) {
+            System.arraycopy(faces, indices[f] * 3, this.faces, f * 3, 3);
+            Vector normal = faceNormal(f);
+            faceNormals[f * 3] = normal.getX();
+            faceNormals[f * 3 + 1] = normal.getY();
+            faceNormals[f * 3 + 2] = normal.getZ();
+        }
+
+        bounds = new double[statistics.nodeCount() * 6];
+        nodes = new int[statistics.nodeCount() * 2];
+        if (root != null) {
+            flatten(root, 0);
+        }
+
+        int stackSize = statistics.maxDepth() + 1;
+        traversals = ThreadLocal.withInitial(() -> new Traversal(stackSize, 0));
+    }
+
+    /**
+     * of function creates a mesh of triangles - the vertices with exactly the same coordinates are shared by the
+     * faces, and vertices that are only close to each other stay separate (the material and the emission of the
+     * triangles aren't copied)
+     * @param triangles the triangles
+     * @return the mesh
+     */
+    public static TriangleMesh of(Triangle... triangles) {
+        Map<Key, Integer> vertices = new HashMap<>();
+        List<Point> points = new ArrayList<>();
+        int[] faces = new int[triangles.length * 3];
+        for (int t = 0; t < triangles.length; t++) {
+            for (int v = 0; v < 3; v++) {
+                Point point = triangles[t].vertices.get(v);
+                Integer index = vertices.computeIfAbsent(Key.of(point), key -> {
+                    points.add(point);
+                    return points.size() - 1;
+                });
+                faces[t * 3 + v] = index;
+            }
+        }
+
+        double[] positions = new double[points.size() * 3];
+        for (int p = 0; p < points.size(); p++) {
+            positions[p * 3] = points.get(p).getX();
+            positions[p * 3 + 1] = points.get(p).getY();
+            positions[p * 3 + 2] = points.get(p).getZ();
+        }
+        return new TriangleMesh(positions, faces);
+    }
+
+    /**
+     * Key record - the exact coordinates of a vertex, for sharing the vertices of a mesh
+     * (the equality of points allows a small difference, so they can't be the keys of a map)
+     * @param x coordinate x
+     * @param y coordinate y
+     * @param z coordinate z
+     */
+    private record Key(double x, double y, double z) {
+        /**
+         * of function creates the key of a point - a negative zero is the same coordinate as a zero
+         * @param point the point
+         * @return the key
+         */
+        static Key of(Point point) {
+            return new Key(point.getX() + 0.0, point.getY() + 0.0, point.getZ() + 0.0);
+        }
+    }
+
+    /**
+     * faceBox function calculates the (padded) box of a face, as {@link Triangle} calculates it
+     * @param faces indices of the vertices of the faces
+     * @param f the face
+     * @return the box of the three vertices
+     */
+    private BoundingBox faceBox(int[] faces, int f) {
+        return BoundingBox.of(vertex(faces[f * 3]), vertex(faces[f * 3 + 1]), vertex(faces[f * 3 + 2]));
+    }
+
+    /**
+     * faceNormal function calculates the normal of the plane of a face, as {@link Plane} calculates it
+     * @param f the face
+     * @return the normal
+     * @throws IllegalArgumentException if the vertices of the face are in the same line
+     */
+    private Vector faceNormal(int f) {
+        Point a = vertex(faces[f * 3]), b = vertex(faces[f * 3 + 1]), c = vertex(faces[f * 3 + 2]);
+        return b.subtract(a).crossProduct(c.subtract(a)).normalize();
+    }
+
+    /**
+     * vertex function creates the point of a vertex
+     * @param vertex index of the vertex
+     * @return the point
+     */
+    private Point vertex(int vertex) {
+        return new Point(positions[vertex * 3], positions[vertex * 3 + 1], positions[vertex * 3 + 2]);
+    }
+
+    /**
+     * flatten function writes a subtree into the arrays in depth first order
+     * @param node the root of the subtree
+     * @param position the position of the node in the arrays
+     * @return the position after the last node of the subtree
+     */
+    private int flatten(Node node, int position) {
+        bounds[position * 6] = node.box.minX;
+        bounds[position * 6 + 1] = node.box.minY;
+        bounds[position * 6 + 2] = node.box.minZ;
+        bounds[position * 6 + 3] = node.box.maxX;
+        bounds[position * 6 + 4] = node.box.maxY;
+        bounds[position * 6 + 5] = node.box.maxZ;
+
+        if (node.isLeaf()) {
+            nodes[position * 2] = node.start;
+            nodes[position * 2 + 1] = node.count;
+            return position + 1;
+        }
+
+        int right = flatten(node.left, position + 1);
+        nodes[position * 2] = right;
+        nodes[position * 2 + 1] = 0;
+        return flatten(node.right, right);
+    }
+
+    /**
+     * getFaceCount function returns the amount of faces of the mesh
+     * @return the amount of faces
+     */
+    public int getFaceCount() { return faces.length / 3; }
+
+    /**
+     * getVertexCount function returns the amount of vertices of the mesh
+     * @return the amount of vertices
+     */
+    public int getVertexCount() { return positions.length / 3; }
+
+
+    /**
+     * distance function calculates the distance along a ray to a face
+     * @param f the face
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param uv receives the barycentric coordinates u and v of the intersection (null if they aren't needed)
+     * @return the distance to the intersection point, or NaN if there is no intersection
+     */
+    private double distance(int f, double ox, double oy, double oz, double dx, double dy, double dz,
+                            double maxDistance, double[] uv) {
+        // the edges are calculated from the shared vertices, so a face takes no memory for them
+        int a = faces[f * 3] * 3, b = faces[f * 3 + 1] * 3, c = faces[f * 3 + 2] * 3, n = f * 3;
+        return Triangle.distance(positions[a], positions[a + 1], positions[a + 2],
+                positions[b] - positions[a], positions[b + 1] - positions[a + 1], positions[b + 2] - positions[a + 2],
+                positions[c] - positions[a], positions[c + 1] - positions[a + 1], positions[c + 2] - positions[a + 2],
+                faceNormals[n], faceNormals[n + 1], faceNormals[n + 2], ox, oy, oz, dx, dy, dz, maxDistance, uv);
+    }
+
+    /**
+     * intersection function creates the intersection of a ray with a face, with its barycentric coordinates
+     * @param face the face
+     * @param ray the ray
+     * @param distance the distance to the intersection point
+     * @param u the barycentric coordinate of the second vertex
+     * @param v the barycentric coordinate of the third vertex
+     * @return the intersection
+     */
+    private GeoPoint intersection(Face face, Ray ray, double distance, double u, double v) {
+        return new GeoPoint(face, ray.getPoint(distance), distance).setBarycentrics(u, v);
+    }
+
+    /**
+     * nodeDistance function calculates the distance along a ray to the box of a node
+     * @param node the node
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param invX 1 / dx
+     * @param invY 1 / dy
+     * @param invZ 1 / dz
+     * @param maxDistance the max distance between ray head and the box
+     * @return the distance to the box, or infinity if the ray misses it before the max distance
+     */
+    private double nodeDistance(int node, double ox, double oy, double oz, double dx, double dy, double dz,
+                                double invX, double invY, double invZ, double maxDistance) {
+        int b = node * 6;
+        return BoundingBox.entryDistance(bounds[b], bounds[b + 1], bounds[b + 2], bounds[b + 3], bounds[b + 4],
+                bounds[b + 5], ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<GeoPoint> intersections = null;
+        if (nodes.length == 0) {
+            return null;
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        double[] uv = traversal.uv;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeDistance(node, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int f = start; f < start + count; f++) {
+                    double t = distance(f, ox, oy, oz, dx, dy, dz, maxDistance, uv);
+                    if (!Double.isNaN(t)) {
+                        if (intersections == null) intersections = new ArrayList<>();
+                        intersections.add(intersection(new Face(f), ray, t, uv[0], uv[1]));
+                    }
+                }
+            } else {
+                // push the right child first so the left child is visited first
+                stack[top++] = nodes[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+
+        return intersections;
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        if (nodes.length == 0) {
+            return null;
+        }
+
+        // the closest face is kept as its index, distance and barycentric coordinates,
+        // and its point is created only at the end
+        int closest = -1;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        double closestU = Double.NaN, closestV = Double.NaN;
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        double[] uv = traversal.uv;
+        double[] distances = traversal.distances;
+        int top = 0;
+        stack[top] = 0;
+        distances[top++] = nodeDistance(0, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+
+        while (top > 0) {
+            int node = stack[--top];
+
+            // a closer intersection that was found since the node was pushed skips it
+            if (distances[top] == Double.POSITIVE_INFINITY || distances[top] > maxDistance) {
+                continue;
+            }
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int f = start; f < start + count; f++) {
+                    double t = distance(f, ox, oy, oz, dx, dy, dz, maxDistance, uv);
+                    if (!Double.isNaN(t) && (t < closestDistance || t == closestDistance && f < closest)) {
+                        closest = f;
+                        closestDistance = t;
+                        closestU = uv[0];
+                        closestV = uv[1];
+                        maxDistance = Math.min(maxDistance, t);
+                    }
+                }
+                continue;
+            }
+
+            // push the farther child first so the nearer child is visited first
+            int near = node + 1, far = nodes[node * 2];
+            double nearDistance = nodeDistance(near, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+            double farDistance = nodeDistance(far, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance);
+            if (farDistance < nearDistance) {
+                int temp = near;
+                near = far;
+                far = temp;
+                double tempDistance = nearDistance;
+                nearDistance = farDistance;
+                farDistance = tempDistance;
+            }
+
+            stack[top] = far;
+            distances[top++] = farDistance;
+            stack[top] = near;
+            distances[top++] = nearDistance;
+        }
+
+        return closest < 0 ? null : intersection(new Face(closest), ray, closestDistance, closestU, closestV);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        if (nodes.length == 0) {
+            return ktr;
+        }
+
+        // all the faces have the same transparency, so the order of the intersections doesn't matter
+        Double3 kT = getMaterial().kT;
+        boolean opaque = kT.lowerThan(threshold);
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+
+        Traversal traversal = traversals.get();
+        int[] stack = traversal.stack;
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeDistance(node, ox, oy, oz, dx, dy, dz, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY) {
+                continue;
+            }
+
+            int count = nodes[node * 2 + 1];
+            if (count > 0) {
+                int start = nodes[node * 2];
+                for (int f = start; f < start + count; f++) {
+                    if (Double.isNaN(distance(f, ox, oy, oz, dx, dy, dz, maxDistance, null))) continue;
+
+                    // an opaque mesh blocks the light at any intersection
+                    if (opaque) return Double3.ZERO;
+                    ktr = ktr.product(kT);
+                    if (ktr.lowerThan(threshold)) return Double3.ZERO;
+                }
+            } else {
+                stack[top++] = nodes[node * 2];
+                stack[top++] = node + 1;
+            }
+        }
+
+        return ktr;
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return nodes.length == 0 ? null : new BoundingBox(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * getNormal function finds the face that a point of the mesh is on and calculates its normal.<br/>
+     * The search is a linear scan over all the faces (O(faces) for every call), so it must not be used for
+     * shading a large mesh - the ray tracer takes the normal from the geometry of the intersection, which is
+     * the face that was hit, and finds it directly
+     * @param p a point on the mesh
+     * @return the normal of the mesh at the point
+     * @throws IllegalArgumentException if the point isn't on the mesh
+     */
+    @Override
+    public Vector getNormal(Point p) {
+        for (int f = 0; f < faces.length / 3; f++) {
+            if (contains(f, p)) {
+                return new Face(f).getNormal(p);
+            }
+        }
+        throw new IllegalArgumentException("The point is not on the mesh");
+    }
+
+    /**
+     * contains function checks if a point is on a face (the edges included)
+     * @param f the face
+     * @param p the point
+     * @return true if the point is on the face
+     */
+    private boolean contains(int f, Point p) {
+        int a = faces[f * 3] * 3, b = faces[f * 3 + 1] * 3, c = faces[f * 3 + 2] * 3;
+        double px = p.getX(), py = p.getY(), pz = p.getZ();
+        if (!isZero((px - positions[a]) * faceNormals[f * 3] + (py - positions[a + 1]) * faceNormals[f * 3 + 1]
+                + (pz - positions[a + 2]) * faceNormals[f * 3 + 2])) {
+            return false;
+        }
+        return alignZero(weight(f, b, c, px, py, pz)) >= 0 && alignZero(weight(f, c, a, px, py, pz)) >= 0
+                && alignZero(weight(f, a, b, px, py, pz)) >= 0;
+    }
+
+    /**
+     * weight function calculates the barycentric weight of the vertex in front of an edge of a face at a point,
+     * times twice the area of the face - the area of the triangle of the edge and the point, with the sign of
+     * the side of the edge that the point is on
+     * @param f the face
+     * @param from position of the first vertex of the edge in the positions array
+     * @param to position of the second vertex of the edge in the positions array
+     * @param px point x coordinate
+     * @param py point y coordinate
+     * @param pz point z coordinate
+     * @return the weight times twice the area of the face
+     */
+    private double weight(int f, int from, int to, double px, double py, double pz) {
+        double ex = positions[to] - positions[from], ey = positions[to + 1] - positions[from + 1],
+                ez = positions[to + 2] - positions[from + 2];
+        double qx = px - positions[from], qy = py - positions[from + 1], qz = pz - positions[from + 2];
+        return Polygon.tripleProduct(faceNormals[f * 3], faceNormals[f * 3 + 1], faceNormals[f * 3 + 2],
+                ex, ey, ez, qx, qy, qz);
+    }
+
+
+    /**
+     * Face class - a face of the mesh as the geometry of an intersection.
+     * It shares the material and the emission of the mesh, and two views of the same face are equal
+     */
+    private class Face extends Geometry {
+
+        /** Index of the face */
+        private final int face;
+
+        /**
+         * Face Constructor
+         * @param face index of the face
+         */
+        Face(int face) {
+            this.face = face;
+        }
+
+        @Override
+        public Material getMaterial() { return TriangleMesh.this.getMaterial(); }
+
+        @Override
+        public Color getEmission() { return TriangleMesh.this.getEmission(); }
+
+        @Override
+        public Vector getNormal(Point p) {
+            return getNormal(p, new MutableVector()).toVector();
+        }
+
+        @Override
+        public MutableVector getNormal(Point p, MutableVector normal) {
+            int n = face * 3;
+            if (normals == null) {
+                return normal.set(faceNormals[n], faceNormals[n + 1], faceNormals[n + 2]);
+            }
+
+            // the normals of the vertices weighted by the barycentric coordinates of the point
+            int a = faces[n] * 3, b = faces[n + 1] * 3, c = faces[n + 2] * 3;
+            double px = p.getX(), py = p.getY(), pz = p.getZ();
+            double wa = weight(face, b, c, px, py, pz);
+            double wb = weight(face, c, a, px, py, pz);
+            double wc = weight(face, a, b, px, py, pz);
+            return normal.set(wa * normals[a] + wb * normals[b] + wc * normals[c],
+                    wa * normals[a + 1] + wb * normals[b + 1] + wc * normals[c + 1],
+                    wa * normals[a + 2] + wb * normals[b + 2] + wc * normals[c + 2]).normalize();
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double[] uv = new double[2];
+            double t = distance(face, ray.head.getX(), ray.head.getY(), ray.head.getZ(),
+                    ray.direction.getX(), ray.direction.getY(), ray.direction.getZ(), maxDistance, uv);
+            return Double.isNaN(t) ? null : List.of(intersection(this, ray, t, uv[0], uv[1]));
+        }
+
+        @Override
+        protected BoundingBox calcBoundingBox() {
+            return faceBox(faces, face);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || obj instanceof Face other && face == other.face && mesh() == other.mesh();
+        }
+
+        @Override
+        public int hashCode() { return face; }
+
+        /**
+         * mesh function returns the mesh of the face
+         * @return the mesh
+         */
+        private TriangleMesh mesh() { return TriangleMesh.this; }
+    }
+}
@@ -40,6 +40,13 @@ public class Tube extends RadialGeometry {
     }
 
 
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        // an infinite tube can't be bounded by a box
+        return null;
+    }
+
+
     @Override
     public Vector getNormal(Point p) {
         // dot product between the direction vector and the given point subtracted by the head point (start point)
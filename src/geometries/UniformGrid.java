@@ -0,0 +1,419 @@
+package geometries;
+
+import geometries.BoundingVolumeHierarchy.IndexedIntersections;
+import primitives.Double3;
+import primitives.Ray;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static geometries.BoundingVolumeHierarchy.closer;
+import static geometries.BoundingVolumeHierarchy.intersect;
+import static geometries.BoundingVolumeHierarchy.merge;
+
+/**
+ * UniformGrid class that's represent an acceleration structure for the Geometries class.
+ * The box of the bounded geometries is divided into equal cells (voxels), every cell keeps the geometries that
+ * overlap it, and a ray walks only through the cells along its path (3D-DDA).
+ * Unbounded geometries (like planes) are kept outside the grid and are tested with every ray.
+ * The intersections are returned in the same order as the linear search over the geometries would return them
+ */
+class UniformGrid extends Intersectable {
+
+    /** Desired average amount of cells per geometry */
+    private static final double CELLS_PER_GEOMETRY = 3;
+
+    /** Maximal amount of cells along an axis */
+    private static final int MAX_RESOLUTION = 128;
+
+    /** An axis that's shorter than this part of the longest axis is considered flat (gets a single cell) */
+    private static final double FLAT_AXIS = 1e-3;
+
+    /** All the geometries, in the order they were added to the Geometries object */
+    private final Intersectable[] geometries;
+
+    /** Indices of the unbounded geometries */
+    private final int[] unbounded;
+
+    /** Box of the whole grid (null if there are no bounded geometries) */
+    private final BoundingBox box;
+
+    /** Amount of cells along every axis */
+    private final int nX, nY, nZ;
+
+    /** Size of a cell along every axis */
+    private final double cellX, cellY, cellZ;
+
+    /**
+     * Position of the first geometry of every cell in the cellGeometries array,
+     * the geometries of cell c are in positions cellStart[c] to cellStart[c + 1] (excluded)
+     */
+    private final int[] cellStart;
+
+    /** Indices of the geometries of all the cells, cell after cell */
+    private final int[] cellGeometries;
+
+    /**
+     * Mailbox of every thread - the ray number that last tested every geometry, so a geometry that overlaps
+     * several cells is tested only once per ray. The last position keeps the number of the current ray
+     */
+    private final ThreadLocal<int[]> mailboxes;
+
+
+    /**
+     * UniformGrid Constructor - builds the grid over the given geometries
+     * @param geometries the geometries to build the grid for
+     */
+    UniformGrid(List<Intersectable> geometries) {
+        this.geometries = geometries.toArray(new Intersectable[0]);
+        int count = this.geometries.length;
+        mailboxes = ThreadLocal.withInitial(() -> new int[count + 1]);
+
+        BoundingBox[] boxes = new BoundingBox[count];
+        BoundingBox bounds = null;
+        int boundedCount = 0;
+        for (int i = 0; i < count; i++) {
+            boxes[i] = this.geometries[i].getBoundingBox();
+            if (boxes[i] != null) {
+                boundedCount++;
+                bounds = bounds == null ? boxes[i] : bounds.union(boxes[i]);
+            }
+        }
+
+        unbounded = new int[count - boundedCount];
+        for (int i = 0, u = 0; i < count; i++) {
+            if (boxes[i] == null) unbounded[u++] = i;
+        }
+
+        box = bounds;
+        if (bounds == null) {
+            nX = nY = nZ = 0;
+            cellX = cellY = cellZ = 0;
+            cellStart = new int[1];
+            cellGeometries = new int[0];
+            return;
+        }
+
+        // choose the cell size so there are about CELLS_PER_GEOMETRY cells per geometry,
+        // flat axes (like the height of a tiled floor) don't take part in the calculation
+        double[] extent = { bounds.maxX - bounds.minX, bounds.maxY - bounds.minY, bounds.maxZ - bounds.minZ };
+        double maxExtent = Math.max(extent[0], Math.max(extent[1], extent[2]));
+        double volume = 1;
+        int dimensions = 0;
+        for (double e : extent) {
+            if (e > maxExtent * FLAT_AXIS) {
+                volume *= e;
+                dimensions++;
+            }
+        }
+        double cellSize = Math.pow(volume / (CELLS_PER_GEOMETRY * boundedCount), 1d / dimensions);
+
+        nX = resolution(extent[0], cellSize);
+        nY = resolution(extent[1], cellSize);
+        nZ = resolution(extent[2], cellSize);
+        cellX = extent[0] / nX;
+        cellY = extent[1] / nY;
+        cellZ = extent[2] / nZ;
+
+        // the range of cells that every geometry overlaps - first and last cell along x, y and z
+        int[] ranges = new int[count * 6];
+        for (int i = 0; i < count; i++) {
+            if (boxes[i] == null) continue;
+            ranges[i * 6] = cell(boxes[i].minX, bounds.minX, cellX, nX);
+            ranges[i * 6 + 1] = cell(boxes[i].maxX, bounds.minX, cellX, nX);
+            ranges[i * 6 + 2] = cell(boxes[i].minY, bounds.minY, cellY, nY);
+            ranges[i * 6 + 3] = cell(boxes[i].maxY, bounds.minY, cellY, nY);
+            ranges[i * 6 + 4] = cell(boxes[i].minZ, bounds.minZ, cellZ, nZ);
+            ranges[i * 6 + 5] = cell(boxes[i].maxZ, bounds.minZ, cellZ, nZ);
+        }
+
+        // count the geometries of every cell, then fill the cells one after the other (compressed rows)
+        cellStart = new int[nX * nY * nZ + 1];
+        for (int i = 0; i < count; i++) {
+            if (boxes[i] == null) continue;
+            for (int z = ranges[i * 6 + 4]; z <= ranges[i * 6 + 5]; z++)
+                for (int y = ranges[i * 6 + 2]; y <= ranges[i * 6 + 3]; y++)
+                    for (int x = ranges[i * 6]; x <= ranges[i * 6 + 1]; x++)
+                        cellStart[(z * nY + y) * nX + x + 1]++;
+        }
+
+        for (int c = 1; c < cellStart.length; c++) {
+            cellStart[c] += cellStart[c - 1];
+        }
+
+        cellGeometries = new int[cellStart[cellStart.length - 1]];
+        int[] next = Arrays.copyOf(cellStart, cellStart.length - 1);
+        for (int i = 0; i < count; i++) {
+            if (boxes[i] == null) continue;
+            for (int z = ranges[i * 6 + 4]; z <= ranges[i * 6 + 5]; z++)
+                for (int y = ranges[i * 6 + 2]; y <= ranges[i * 6 + 3]; y++)
+                    for (int x = ranges[i * 6]; x <= ranges[i * 6 + 1]; x++)
+                        cellGeometries[next[(z * nY + y) * nX + x]++] = i;
+        }
+    }
+
+    /**
+     * resolution function calculates the amount of cells along an axis
+     * @param extent length of the grid along the axis
+     * @param cellSize the desired size of a cell
+     * @return amount of cells along the axis
+     */
+    private static int resolution(double extent, double cellSize) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(extent / cellSize)));
+    }
+
+    /**
+     * cell function finds the cell of a coordinate along an axis
+     * @param coordinate the coordinate
+     * @param min minimal coordinate of the grid along the axis
+     * @param size size of a cell along the axis
+     * @param n amount of cells along the axis
+     * @return the cell of the coordinate, clamped into the grid
+     */
+    private static int cell(double coordinate, double min, double size, int n) {
+        return Math.max(0, Math.min(n - 1, (int) ((coordinate - min) / size)));
+    }
+
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        List<IndexedIntersections> found = null;
+
+        for (int index : unbounded) {
+            found = intersect(geometries[index], index, ray, maxDistance, found);
+        }
+
+        if (box == null) {
+            return merge(found);
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+
+        // clip the ray to the grid box
+        double tEnter = 0, tExit = maxDistance;
+        double[] origin = { ox, oy, oz }, direction = { dx, dy, dz };
+        double[] min = { box.minX, box.minY, box.minZ }, max = { box.maxX, box.maxY, box.maxZ };
+        for (int axis = 0; axis < 3; axis++) {
+            if (direction[axis] == 0) {
+                if (origin[axis] < min[axis] || origin[axis] > max[axis]) return merge(found);
+                continue;
+            }
+            double t1 = (min[axis] - origin[axis]) / direction[axis];
+            double t2 = (max[axis] - origin[axis]) / direction[axis];
+            tEnter = Math.max(tEnter, Math.min(t1, t2));
+            tExit = Math.min(tExit, Math.max(t1, t2));
+        }
+
+        if (tEnter > tExit) {
+            return merge(found);
+        }
+
+        // the cell where the ray enters the grid
+        int x = cell(ox + dx * tEnter, box.minX, cellX, nX);
+        int y = cell(oy + dy * tEnter, box.minY, cellY, nY);
+        int z = cell(oz + dz * tEnter, box.minZ, cellZ, nZ);
+
+        // the step direction, the distance to the next cell border and the distance between borders per axis
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        double tMaxX = border(ox, dx, box.minX, cellX, x), tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellX / Math.abs(dx);
+        double tMaxY = border(oy, dy, box.minY, cellY, y), tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellY / Math.abs(dy);
+        double tMaxZ = border(oz, dz, box.minZ, cellZ, z), tDeltaZ = dz == 0 ? Double.POSITIVE_INFINITY : cellZ / Math.abs(dz);
+
+        int[] mailbox = mailboxes.get();
+        int rayNumber = nextRayNumber(mailbox);
+
+        while (true) {
+            int c = (z * nY + y) * nX + x;
+            for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                int index = cellGeometries[i];
+                if (mailbox[index] != rayNumber) {
+                    mailbox[index] = rayNumber;
+                    found = intersect(geometries[index], index, ray, maxDistance, found);
+                }
+            }
+
+            // step to the neighbour cell through the nearest border
+            if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                if (tMaxX > tExit || (x += stepX) < 0 || x >= nX) break;
+                tMaxX += tDeltaX;
+            } else if (tMaxY <= tMaxZ) {
+                if (tMaxY > tExit || (y += stepY) < 0 || y >= nY) break;
+                tMaxY += tDeltaY;
+            } else {
+                if (tMaxZ > tExit || (z += stepZ) < 0 || z >= nZ) break;
+                tMaxZ += tDeltaZ;
+            }
+        }
+
+        return merge(found);
+    }
+
+    @Override
+    protected GeoPoint findClosestGeoIntersectionHelper(Ray ray, double maxDistance) {
+        GeoPoint closest = null;
+        int closestIndex = -1;
+
+        for (int index : unbounded) {
+            GeoPoint current = geometries[index].findClosestGeoIntersection(ray, maxDistance);
+            if (current != null && closer(current, index, closest, closestIndex)) {
+                closest = current;
+                closestIndex = index;
+                maxDistance = Math.min(maxDistance, current.distance);
+            }
+        }
+
+        if (box == null) {
+            return closest;
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double tEnter = BoundingBox.entryDistance(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ,
+                ox, oy, oz, dx, dy, dz, 1 / dx, 1 / dy, 1 / dz, maxDistance);
+        if (tEnter == Double.POSITIVE_INFINITY) {
+            return closest;
+        }
+
+        int x = cell(ox + dx * tEnter, box.minX, cellX, nX);
+        int y = cell(oy + dy * tEnter, box.minY, cellY, nY);
+        int z = cell(oz + dz * tEnter, box.minZ, cellZ, nZ);
+
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        double tMaxX = border(ox, dx, box.minX, cellX, x), tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellX / Math.abs(dx);
+        double tMaxY = border(oy, dy, box.minY, cellY, y), tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellY / Math.abs(dy);
+        double tMaxZ = border(oz, dz, box.minZ, cellZ, z), tDeltaZ = dz == 0 ? Double.POSITIVE_INFINITY : cellZ / Math.abs(dz);
+
+        int[] mailbox = mailboxes.get();
+        int rayNumber = nextRayNumber(mailbox);
+
+        while (true) {
+            int c = (z * nY + y) * nX + x;
+            for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                int index = cellGeometries[i];
+                if (mailbox[index] == rayNumber) continue;
+
+                mailbox[index] = rayNumber;
+                GeoPoint current = geometries[index].findClosestGeoIntersection(ray, maxDistance);
+                if (current != null && closer(current, index, closest, closestIndex)) {
+                    closest = current;
+                    closestIndex = index;
+                    maxDistance = Math.min(maxDistance, current.distance);
+                }
+            }
+
+            // the cells are visited by their distance - an intersection before the next cell is the closest one
+            double next = Math.min(tMaxX, Math.min(tMaxY, tMaxZ));
+            if (next > maxDistance || (closest != null && closest.distance < next)) break;
+
+            if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                if ((x += stepX) < 0 || x >= nX) break;
+                tMaxX += tDeltaX;
+            } else if (tMaxY <= tMaxZ) {
+                if ((y += stepY) < 0 || y >= nY) break;
+                tMaxY += tDeltaY;
+            } else {
+                if ((z += stepZ) < 0 || z >= nZ) break;
+                tMaxZ += tDeltaZ;
+            }
+        }
+
+        return closest;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double threshold) {
+        for (int index : unbounded) {
+            ktr = geometries[index].findTransparency(ray, maxDistance, ktr, threshold);
+            if (ktr == Double3.ZERO) return ktr;
+        }
+
+        if (box == null) {
+            return ktr;
+        }
+
+        double ox = ray.head.getX(), oy = ray.head.getY(), oz = ray.head.getZ();
+        double dx = ray.direction.getX(), dy = ray.direction.getY(), dz = ray.direction.getZ();
+        double tEnter = BoundingBox.entryDistance(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ,
+                ox, oy, oz, dx, dy, dz, 1 / dx, 1 / dy, 1 / dz, maxDistance);
+        if (tEnter == Double.POSITIVE_INFINITY) {
+            return ktr;
+        }
+
+        int x = cell(ox + dx * tEnter, box.minX, cellX, nX);
+        int y = cell(oy + dy * tEnter, box.minY, cellY, nY);
+        int z = cell(oz + dz * tEnter, box.minZ, cellZ, nZ);
+
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1, stepZ = dz > 0 ? 1 : -1;
+        double tMaxX = border(ox, dx, box.minX, cellX, x), tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellX / Math.abs(dx);
+        double tMaxY = border(oy, dy, box.minY, cellY, y), tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellY / Math.abs(dy);
+        double tMaxZ = border(oz, dz, box.minZ, cellZ, z), tDeltaZ = dz == 0 ? Double.POSITIVE_INFINITY : cellZ / Math.abs(dz);
+
+        int[] mailbox = mailboxes.get();
+        int rayNumber = nextRayNumber(mailbox);
+
+        while (true) {
+            int c = (z * nY + y) * nX + x;
+            for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                int index = cellGeometries[i];
+                if (mailbox[index] == rayNumber) continue;
+
+                mailbox[index] = rayNumber;
+                ktr = geometries[index].findTransparency(ray, maxDistance, ktr, threshold);
+
+                // the light is blocked - the rest of the cells don't matter
+                if (ktr == Double3.ZERO) return ktr;
+            }
+
+            if (tMaxX <= tMaxY && tMaxX <= tMaxZ) {
+                if (tMaxX > maxDistance || (x += stepX) < 0 || x >= nX) break;
+                tMaxX += tDeltaX;
+            } else if (tMaxY <= tMaxZ) {
+                if (tMaxY > maxDistance || (y += stepY) < 0 || y >= nY) break;
+                tMaxY += tDeltaY;
+            } else {
+                if (tMaxZ > maxDistance || (z += stepZ) < 0 || z >= nZ) break;
+                tMaxZ += tDeltaZ;
+            }
+        }
+
+        return ktr;
+    }
+
+    /**
+     * border function calculates the distance along the ray to the next cell border on an axis
+     * @param origin ray head coordinate on the axis
+     * @param direction ray direction coordinate on the axis
+     * @param min minimal coordinate of the grid on the axis
+     * @param size size of a cell on the axis
+     * @param cell the current cell on the axis
+     * @return the distance to the next border, infinity if the ray is parallel to the axis borders
+     */
+    private static double border(double origin, double direction, double min, double size, int cell) {
+        if (direction == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double next = min + (direction > 0 ? cell + 1 : cell) * size;
+        return (next - origin) / direction;
+    }
+
+    /**
+     * nextRayNumber function gives the next ray number of a thread mailbox,
+     * the mailbox is cleared when the numbers run out
+     * @param mailbox the mailbox of the thread
+     * @return the number of the new ray
+     */
+    private static int nextRayNumber(int[] mailbox) {
+        int last = mailbox.length - 1;
+        if (mailbox[last] == Integer.MAX_VALUE) {
+            Arrays.fill(mailbox, 0);
+        }
+        return ++mailbox[last];
+    }
+
+    @Override
+    protected BoundingBox calcBoundingBox() {
+        return unbounded.length > 0 ? null : box;
+    }
+}
@@ -0,0 +1,152 @@
+package geometries;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorTriangles class that's represent the intersection test of the triangles of a {@link PrimitiveBatch} with
+ * the vector API - every lane tests another triangle, so a leaf is tested 4 triangles at once with 256 bit
+ * registers and 8 at once with 512 bit registers.
+ * The lanes do the calculation of {@link Triangle#distance} with the same operations in the same order,
+ * so every lane finds exactly the distance and the barycentric coordinates that the scalar test finds.
+ * The class needs the jdk.incubator.vector module (--add-modules jdk.incubator.vector), so the batch creates it
+ * only if the module is available - otherwise the class is never loaded and the triangles are tested one by one
+ */
+final class VectorTriangles {
+
+    /** The preferred amount of lanes of the platform, up to the padding of the arrays of the batch */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED.length() <= PrimitiveBatch.LANES
+            ? DoubleVector.SPECIES_PREFERRED : DoubleVector.SPECIES_512;
+
+    /** Numbers that are smaller than it in absolute value are zero, as in {@link primitives.Util#isZero} */
+    private static final double ZERO = 0x1p-40;
+
+    /** First vertex of a triangle */
+    private final double[] ax, ay, az;
+
+    /** Edge from the first vertex to the second vertex of a triangle */
+    private final double[] e1x, e1y, e1z;
+
+    /** Edge from the first vertex to the third vertex of a triangle */
+    private final double[] e2x, e2y, e2z;
+
+    /** Normal of the plane of a triangle */
+    private final double[] nx, ny, nz;
+
+
+    /**
+     * VectorTriangles Constructor - the kernel reads the arrays of the batch, it doesn't copy them
+     * @param ax first vertex x coordinates
+     * @param ay first vertex y coordinates
+     * @param az first vertex z coordinates
+     * @param e1x first edge x coordinates
+     * @param e1y first edge y coordinates
+     * @param e1z first edge z coordinates
+     * @param e2x second edge x coordinates
+     * @param e2y second edge y coordinates
+     * @param e2z second edge z coordinates
+     * @param nx normal x coordinates
+     * @param ny normal y coordinates
+     * @param nz normal z coordinates
+     */
+    VectorTriangles(double[] ax, double[] ay, double[] az, double[] e1x, double[] e1y, double[] e1z,
+                    double[] e2x, double[] e2y, double[] e2z, double[] nx, double[] ny, double[] nz) {
+        this.ax = ax;
+        this.ay = ay;
+        this.az = az;
+        this.e1x = e1x;
+        this.e1y = e1y;
+        this.e1z = e1z;
+        this.e2x = e2x;
+        this.e2y = e2y;
+        this.e2z = e2z;
+        this.nx = nx;
+        this.ny = ny;
+        this.nz = nz;
+    }
+
+    /**
+     * distances function tests a range of positions as triangles, a lane for every position - in whole registers,
+     * so the arrays of the results must be longer than the range by {@link PrimitiveBatch#LANES}.
+     * The results of positions that aren't triangles (or after the range) have no meaning
+     * @param start the first position
+     * @param count amount of positions
+     * @param ox ray head x coordinate
+     * @param oy ray head y coordinate
+     * @param oz ray head z coordinate
+     * @param dx ray direction x coordinate
+     * @param dy ray direction y coordinate
+     * @param dz ray direction z coordinate
+     * @param maxDistance the max distance between ray head and the intersection point
+     * @param t receives the distance of every position from the start, NaN if there is no intersection
+     * @param u receives the barycentric coordinate u of every intersection
+     * @param v receives the barycentric coordinate v of every intersection
+     */
+    void distances(int start, int count, double ox, double oy, double oz, double dx, double dy, double dz,
+                   double maxDistance, double[] t, double[] u, double[] v) {
+        int end = start + count;
+        for (int i = start; i < end; i += SPECIES.length()) {
+            DoubleVector e1X = DoubleVector.fromArray(SPECIES, e1x, i);
+            DoubleVector e1Y = DoubleVector.fromArray(SPECIES, e1y, i);
+            DoubleVector e1Z = DoubleVector.fromArray(SPECIES, e1z, i);
+            DoubleVector e2X = DoubleVector.fromArray(SPECIES, e2x, i);
+            DoubleVector e2Y = DoubleVector.fromArray(SPECIES, e2y, i);
+            DoubleVector e2Z = DoubleVector.fromArray(SPECIES, e2z, i);
+
+            // a ray that is parallel to the plane of the triangle has no intersection (as for the plane)
+            DoubleVector dot = DoubleVector.fromArray(SPECIES, nx, i).mul(dx)
+                    .add(DoubleVector.fromArray(SPECIES, ny, i).mul(dy))
+                    .add(DoubleVector.fromArray(SPECIES, nz, i).mul(dz));
+            VectorMask<Double> miss = isZero(dot);
+
+            // p = direction x edge2, s = head - first vertex, q = s x edge1
+            DoubleVector px = e2Z.mul(dy).sub(e2Y.mul(dz));
+            DoubleVector py = e2X.mul(dz).sub(e2Z.mul(dx));
+            DoubleVector pz = e2Y.mul(dx).sub(e2X.mul(dy));
+            DoubleVector invDet = DoubleVector.broadcast(SPECIES, 1)
+                    .div(e1X.mul(px).add(e1Y.mul(py)).add(e1Z.mul(pz)));
+
+            DoubleVector sx = DoubleVector.broadcast(SPECIES, ox).sub(DoubleVector.fromArray(SPECIES, ax, i));
+            DoubleVector sy = DoubleVector.broadcast(SPECIES, oy).sub(DoubleVector.fromArray(SPECIES, ay, i));
+            DoubleVector sz = DoubleVector.broadcast(SPECIES, oz).sub(DoubleVector.fromArray(SPECIES, az, i));
+            DoubleVector uLanes = alignZero(sx.mul(px).add(sy.mul(py)).add(sz.mul(pz)).mul(invDet));
+            miss = miss.or(uLanes.compare(VectorOperators.LE, 0))
+                    .or(alignZero(uLanes.sub(1)).compare(VectorOperators.GE, 0));
+
+            DoubleVector qx = sy.mul(e1Z).sub(sz.mul(e1Y));
+            DoubleVector qy = sz.mul(e1X).sub(sx.mul(e1Z));
+            DoubleVector qz = sx.mul(e1Y).sub(sy.mul(e1X));
+            DoubleVector vLanes = alignZero(qx.mul(dx).add(qy.mul(dy)).add(qz.mul(dz)).mul(invDet));
+            miss = miss.or(vLanes.compare(VectorOperators.LE, 0))
+                    .or(alignZero(uLanes.add(vLanes).sub(1)).compare(VectorOperators.GE, 0));
+
+            DoubleVector tLanes = alignZero(e2X.mul(qx).add(e2Y.mul(qy)).add(e2Z.mul(qz)).mul(invDet));
+            miss = miss.or(tLanes.compare(VectorOperators.LE, 0))
+                    .or(alignZero(tLanes.sub(maxDistance)).compare(VectorOperators.GT, 0));
+
+            tLanes.blend(Double.NaN, miss).intoArray(t, i - start);
+            uLanes.intoArray(u, i - start);
+            vLanes.intoArray(v, i - start);
+        }
+    }
+
+    /**
+     * isZero function - {@link primitives.Util#isZero} of every lane
+     * @param lanes the numbers
+     * @return the lanes that are almost zero
+     */
+    private static VectorMask<Double> isZero(DoubleVector lanes) {
+        return lanes.abs().compare(VectorOperators.LT, ZERO);
+    }
+
+    /**
+     * alignZero function - {@link primitives.Util#alignZero} of every lane
+     * @param lanes the numbers
+     * @return the numbers, with zero in the lanes that are almost zero
+     */
+    private static DoubleVector alignZero(DoubleVector lanes) {
+        return lanes.blend(0, isZero(lanes));
+    }
+}
@@ -120,6 +120,12 @@ public class Color {
       return (color.rgb.subtract(rgb).lowerThan(1) && color.rgb.subtract(rgb).scale(-1).lowerThan(1));
    }
 
+   /**
+    * Luminance of the color - the brightness that the human eye sees (Rec. 709 weights)
+    * @return the luminance
+    */
+   public double luminance() { return 0.2126 * rgb.d1 + 0.7152 * rgb.d2 + 0.0722 * rgb.d3; }
+
    @Override
    public String toString() { return "rgb:" + rgb; }
 }
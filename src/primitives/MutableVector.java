@@ -0,0 +1,121 @@
+package primitives;
+
+/**
+ * MutableVector class - a reusable scratch vector for the hot paths of the ray tracer.<br/>
+ * Every operation changes the vector itself instead of creating a new object, so a calculation that
+ * reuses the same scratch vectors allocates nothing. The calculations are the same as in {@link Vector},
+ * so a result that is converted back by {@link #toVector()} is exactly the one of the immutable API.<br/>
+ * A scratch vector must not be shared between threads, and may be zero in the middle of a calculation.
+ */
+public final class MutableVector {
+
+    /** x coordinate */
+    public double x;
+
+    /** y coordinate */
+    public double y;
+
+    /** z coordinate */
+    public double z;
+
+    /**
+     * set function copies the coordinates of a point or a vector
+     * @param p the point or the vector
+     * @return this vector
+     */
+    public MutableVector set(Point p) {
+        return set(p.xyz.d1, p.xyz.d2, p.xyz.d3);
+    }
+
+    /**
+     * set function sets the coordinates of the vector
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param z z coordinate
+     * @return this vector
+     */
+    public MutableVector set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    /**
+     * subtract function sets the vector from one point to another (like {@link Point#subtract(Point)})
+     * @param to the end of the vector
+     * @param from the start of the vector
+     * @return this vector
+     */
+    public MutableVector subtract(Point to, Point from) {
+        return set(to.xyz.d1 - from.xyz.d1, to.xyz.d2 - from.xyz.d2, to.xyz.d3 - from.xyz.d3);
+    }
+
+    /**
+     * scale function multiplies the coordinates by a scalar
+     * @param scalar the scalar
+     * @return this vector
+     */
+    public MutableVector scale(double scalar) {
+        return set(x * scalar, y * scalar, z * scalar);
+    }
+
+    /**
+     * add function adds a scaled vector to the vector (this + vec * scalar)
+     * @param vec the vector to add
+     * @param scalar the scale of the added vector
+     * @return this vector
+     */
+    public MutableVector addScaled(MutableVector vec, double scalar) {
+        return set(x + vec.x * scalar, y + vec.y * scalar, z + vec.z * scalar);
+    }
+
+    /**
+     * dotProduct function preforms a dot product with another scratch vector
+     * @param vec the other vector
+     * @return the dot product
+     */
+    public double dotProduct(MutableVector vec) {
+        return x * vec.x + y * vec.y + z * vec.z;
+    }
+
+    /**
+     * dotProduct function preforms a dot product with an immutable vector
+     * @param vec the other vector
+     * @return the dot product
+     */
+    public double dotProduct(Vector vec) {
+        return x * vec.xyz.d1 + y * vec.xyz.d2 + z * vec.xyz.d3;
+    }
+
+    /**
+     * lengthSquared function calculates the length squared of the vector
+     * @return the length squared
+     */
+    public double lengthSquared() {
+        return dotProduct(this);
+    }
+
+    /**
+     * normalize function makes the length of the vector 1 (like {@link Vector#normalize()})
+     * @return this vector
+     * @throws IllegalArgumentException if the vector is zero
+     */
+    public MutableVector normalize() {
+        double length = Math.sqrt(lengthSquared());
+        if (length == 0) throw new IllegalArgumentException("Cannot normalize a zero vector");
+        return set(x / length, y / length, z / length);
+    }
+
+    /**
+     * toVector function creates an immutable vector of the current coordinates
+     * @return the new vector
+     * @throws IllegalArgumentException if the vector is zero
+     */
+    public Vector toVector() {
+        return new Vector(x, y, z);
+    }
+
+    @Override
+    public String toString() { return "(" + x + "," + y + "," + z + ")"; }
+}
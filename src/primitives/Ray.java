@@ -44,16 +44,37 @@ public class Ray {
      */
     public Ray(Point head, Vector n, Vector direction) {
         this.direction = direction.normalize();
-        double nv = alignZero(n.dotProduct(this.direction));
+        this.head = deflect(head, n.xyz.d1, n.xyz.d2, n.xyz.d3, this.direction);
+    }
+
+    /**
+     * Constructor for ray deflected by DELTA from scratch vectors - the same ray as
+     * {@link #Ray(Point, Vector, Vector)} without creating the intermediate vectors
+     * @param head origin
+     * @param n normal vector
+     * @param direction direction (it is not changed)
+     */
+    public Ray(Point head, MutableVector n, MutableVector direction) {
+        double length = Math.sqrt(direction.lengthSquared());
+        this.direction = new Vector(direction.x / length, direction.y / length, direction.z / length);
+        this.head = deflect(head, n.x, n.y, n.z, this.direction);
+    }
 
-        Vector delta = n.scale(DELTA);
-        if (nv < 0)
-            delta = delta.scale(-1);
+    /**
+     * deflect function moves the head by DELTA along the normal, to the side of the direction
+     * @param head origin
+     * @param nx x of the normal
+     * @param ny y of the normal
+     * @param nz z of the normal
+     * @param direction normalized direction
+     * @return the moved head, or the head itself if the direction is parallel to the surface
+     */
+    private static Point deflect(Point head, double nx, double ny, double nz, Vector direction) {
+        double nv = alignZero(nx * direction.xyz.d1 + ny * direction.xyz.d2 + nz * direction.xyz.d3);
+        if (isZero(nv)) return head;
 
-        if(isZero(nv)) {
-            this.head = head;
-        } else
-            this.head = head.add(delta);
+        double delta = nv < 0 ? -DELTA : DELTA;
+        return new Point(head.xyz.d1 + nx * delta, head.xyz.d2 + ny * delta, head.xyz.d3 + nz * delta);
     }
 
     /**
@@ -66,7 +87,9 @@ public class Ray {
             return head;
         }
 
-        return head.add(direction.scale(t));
+        // on the coordinates, so only the point is created
+        return new Point(head.xyz.d1 + direction.xyz.d1 * t, head.xyz.d2 + direction.xyz.d2 * t,
+                head.xyz.d3 + direction.xyz.d3 * t);
     }
 
     /**
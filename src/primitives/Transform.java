@@ -0,0 +1,231 @@
+package primitives;
+
+import static primitives.Util.isZero;
+
+/**
+ * Transform class that's represent an affine transformation of the 3D space (rotation, scaling and translation).
+ * The transformation is kept as a 3x4 matrix together with its inverse, so points and vectors can be moved
+ * between the space of an object and the world space in both directions
+ */
+public class Transform {
+
+    /** The transformation that doesn't change anything */
+    public static final Transform IDENTITY = new Transform(new double[] {
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0 });
+
+    /** The matrix rows - the linear part in columns 0-2 and the translation in column 3 */
+    private final double[] matrix;
+
+    /** The matrix of the inverse transformation, same layout */
+    private final double[] inverse;
+
+
+    /**
+     * Transform Constructor - calculates the inverse of the given matrix
+     * @param matrix the 3x4 matrix rows
+     * @throws IllegalArgumentException if the transformation can't be inverted
+     */
+    private Transform(double[] matrix) {
+        this.matrix = matrix;
+        this.inverse = invert(matrix);
+    }
+
+    /**
+     * translation function creates a transformation that moves the space
+     * @param offset the offset to move by
+     * @return the translation
+     */
+    public static Transform translation(Vector offset) {
+        return translation(offset.getX(), offset.getY(), offset.getZ());
+    }
+
+    /**
+     * translation function creates a transformation that moves the space
+     * @param x offset along the x axis
+     * @param y offset along the y axis
+     * @param z offset along the z axis
+     * @return the translation
+     */
+    public static Transform translation(double x, double y, double z) {
+        return new Transform(new double[] {
+                1, 0, 0, x,
+                0, 1, 0, y,
+                0, 0, 1, z });
+    }
+
+    /**
+     * scaling function creates a transformation that scales the space by the same factor along all the axes
+     * @param factor the scale factor
+     * @return the scaling
+     * @throws IllegalArgumentException if the factor is zero
+     */
+    public static Transform scaling(double factor) {
+        return scaling(factor, factor, factor);
+    }
+
+    /**
+     * scaling function creates a transformation that scales the space along every axis
+     * @param x scale factor along the x axis
+     * @param y scale factor along the y axis
+     * @param z scale factor along the z axis
+     * @return the scaling
+     * @throws IllegalArgumentException if a factor is zero
+     */
+    public static Transform scaling(double x, double y, double z) {
+        return new Transform(new double[] {
+                x, 0, 0, 0,
+                0, y, 0, 0,
+                0, 0, z, 0 });
+    }
+
+    /**
+     * rotation function creates a transformation that rotates the space around an axis through the origin
+     * (Rodrigues' rotation formula, same direction as {@link Vector#vectorRotate(Vector, double)})
+     * @param axis the axis of rotation
+     * @param thetaRad the angle of rotation in radians
+     * @return the rotation
+     */
+    public static Transform rotation(Vector axis, double thetaRad) {
+        Vector n = axis.normalize();
+        double u = n.getX(), v = n.getY(), w = n.getZ();
+        double cos = Math.cos(thetaRad), sin = Math.sin(thetaRad), c = 1 - cos;
+
+        return new Transform(new double[] {
+                u * u * c + cos,     u * v * c - w * sin, u * w * c + v * sin, 0,
+                v * u * c + w * sin, v * v * c + cos,     v * w * c - u * sin, 0,
+                w * u * c - v * sin, w * v * c + u * sin, w * w * c + cos,     0 });
+    }
+
+    /**
+     * then function combines this transformation with another one that's applied after it
+     * @param next the transformation to apply after this one
+     * @return the combined transformation
+     */
+    public Transform then(Transform next) {
+        double[] a = next.matrix, b = matrix;
+        double[] result = new double[12];
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                double sum = column == 3 ? a[row * 4 + 3] : 0;
+                for (int k = 0; k < 3; k++) {
+                    sum += a[row * 4 + k] * b[k * 4 + column];
+                }
+                result[row * 4 + column] = sum;
+            }
+        }
+        return new Transform(result);
+    }
+
+    /**
+     * invert function calculates the inverse of an affine matrix
+     * @param m the 3x4 matrix rows
+     * @return the rows of the inverse matrix
+     * @throws IllegalArgumentException if the matrix can't be inverted
+     */
+    private static double[] invert(double[] m) {
+        // cofactors of the linear part
+        double c00 = m[5] * m[10] - m[6] * m[9], c01 = m[6] * m[8] - m[4] * m[10], c02 = m[4] * m[9] - m[5] * m[8];
+        double determinant = m[0] * c00 + m[1] * c01 + m[2] * c02;
+        if (isZero(determinant)) {
+            throw new IllegalArgumentException("Transformation can't be inverted");
+        }
+
+        double[] r = new double[12];
+        r[0] = c00 / determinant;
+        r[1] = (m[2] * m[9] - m[1] * m[10]) / determinant;
+        r[2] = (m[1] * m[6] - m[2] * m[5]) / determinant;
+        r[4] = c01 / determinant;
+        r[5] = (m[0] * m[10] - m[2] * m[8]) / determinant;
+        r[6] = (m[2] * m[4] - m[0] * m[6]) / determinant;
+        r[8] = c02 / determinant;
+        r[9] = (m[1] * m[8] - m[0] * m[9]) / determinant;
+        r[10] = (m[0] * m[5] - m[1] * m[4]) / determinant;
+
+        // the inverse translation is the inverse linear part applied to the negated translation
+        for (int row = 0; row < 3; row++) {
+            r[row * 4 + 3] = -(r[row * 4] * m[3] + r[row * 4 + 1] * m[7] + r[row * 4 + 2] * m[11]);
+        }
+        return r;
+    }
+
+
+    /**
+     * apply function moves a point from the object space to the world space
+     * @param p the point in the object space
+     * @return the point in the world space
+     */
+    public Point apply(Point p) {
+        return transformPoint(matrix, p);
+    }
+
+    /**
+     * applyInverse function moves a point from the world space to the object space
+     * @param p the point in the world space
+     * @return the point in the object space
+     */
+    public Point applyInverse(Point p) {
+        return transformPoint(inverse, p);
+    }
+
+    /**
+     * applyVector function moves a direction from the object space to the world space (without translation)
+     * @param v the direction in the object space
+     * @return the direction in the world space (not normalized)
+     */
+    public Vector applyVector(Vector v) {
+        return transformVector(matrix, v);
+    }
+
+    /**
+     * applyInverseVector function moves a direction from the world space to the object space (without translation)
+     * @param v the direction in the world space
+     * @return the direction in the object space (not normalized)
+     */
+    public Vector applyInverseVector(Vector v) {
+        return transformVector(inverse, v);
+    }
+
+    /**
+     * applyNormal function moves a normal from the object space to the world space,
+     * normals are multiplied by the transposed inverse matrix so they stay orthogonal to the surface
+     * @param n the normal in the object space
+     * @return the normalized normal in the world space
+     */
+    public Vector applyNormal(Vector n) {
+        double x = n.getX(), y = n.getY(), z = n.getZ();
+        return new Vector(
+                inverse[0] * x + inverse[4] * y + inverse[8] * z,
+                inverse[1] * x + inverse[5] * y + inverse[9] * z,
+                inverse[2] * x + inverse[6] * y + inverse[10] * z).normalize();
+    }
+
+    /**
+     * transformPoint function multiplies a point by a matrix
+     * @param m the matrix rows
+     * @param p the point
+     * @return the transformed point
+     */
+    private static Point transformPoint(double[] m, Point p) {
+        double x = p.getX(), y = p.getY(), z = p.getZ();
+        return new Point(
+                m[0] * x + m[1] * y + m[2] * z + m[3],
+                m[4] * x + m[5] * y + m[6] * z + m[7],
+                m[8] * x + m[9] * y + m[10] * z + m[11]);
+    }
+
+    /**
+     * transformVector function multiplies a vector by the linear part of a matrix
+     * @param m the matrix rows
+     * @param v the vector
+     * @return the transformed vector
+     */
+    private static Vector transformVector(double[] m, Vector v) {
+        double x = v.getX(), y = v.getY(), z = v.getZ();
+        return new Vector(
+                m[0] * x + m[1] * y + m[2] * z,
+                m[4] * x + m[5] * y + m[6] * z,
+                m[8] * x + m[9] * y + m[10] * z);
+    }
+}
@@ -1,5 +1,7 @@
 package primitives;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 /** Util class is used for some internal utilities, e.g. controlling accuracy
  * @author Dan */
 public final class Util {
@@ -50,7 +52,8 @@ public final class Util {
     * @param  max value (excluded)
     * @return     the random value */
    public static double random(double min, double max) {
-      return Math.random() * (max - min) + min;
+      // every thread has its own generator, so rendering threads don't contend on a shared seed
+      return ThreadLocalRandom.current().nextDouble() * (max - min) + min;
    }
 
 }
@@ -3,6 +3,7 @@ package renderer;
 import primitives.Point;
 import primitives.Vector;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -10,7 +11,8 @@ import static primitives.Util.isZero;
 import static primitives.Util.random;
 
 /**
- * blackboard to represent target area for each pixel
+ * blackboard to represent target area for each pixel.
+ * A blackboard is moved from pixel to pixel, so it's not thread-safe - every rendering thread uses its own
  */
 public class Blackboard {
 
@@ -38,6 +40,9 @@ public class Blackboard {
     /** distance between each node on graph on Y axis */
     private double dY;
 
+    /** scratch list of points that's filled again for every pixel, so the points of a pixel aren't allocated */
+    private final List<Point> points = new ArrayList<>();
+
     /**
      * constructor inits blackboard
      * @param vecUp toward vector of camera
@@ -95,7 +100,15 @@ public class Blackboard {
      * @return list of points on the grid
      */
     public List<Point> generateJitterGrid(){
-        List<Point> points = new LinkedList<>();
+        return new LinkedList<>(jitterGrid());
+    }
+
+    /**
+     * generate a grid density X density with random jitter into the scratch list of the blackboard
+     * @return the scratch list of points on the grid - valid until the next grid is generated
+     */
+    public List<Point> jitterGrid(){
+        points.clear();
         //bring our point up to the corner
         Point p, topleft = pixelCenter.add(vecRight.scale(-0.5 * width)).add(vecUp.scale(0.5 * height));
         for (int j = 0; j <= density; j++){
@@ -124,7 +137,15 @@ public class Blackboard {
      * @return a list of all points in grid
      */
     public List<Point> generateGrid(){
-        List<Point> points = new LinkedList<>();
+        return new LinkedList<>(grid());
+    }
+
+    /**
+     * generate grid without jitter into the scratch list of the blackboard
+     * @return the scratch list of all points in grid - valid until the next grid is generated
+     */
+    public List<Point> grid(){
+        points.clear();
         //bring our point up to the corner
         Point p, topleft = pixelCenter.add(vecRight.scale(-0.5 * width)).add(vecUp.scale(0.5 * height));
         for (int j = 0; j <= density; j++){
@@ -5,9 +5,20 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.*;
 
 import static primitives.Util.alignZero;
@@ -18,6 +29,48 @@ import static primitives.Util.isZero;
  */
 public class Camera implements Cloneable {
 
+    /**
+     * TileOrder enum - the orders in which the tiles of the image are rendered
+     */
+    public enum TileOrder {
+        /** Row after row, from the top left corner */
+        SCANLINE,
+        /** Along a Hilbert curve, so tiles that are rendered one after another are close to each other */
+        HILBERT,
+        /** Rings around the center of the image, so the center is rendered first */
+        SPIRAL
+    }
+
+    /**
+     * PassListener interface - notified after every pass of progressive rendering,
+     * when the image writer holds the full image of the samples so far
+     */
+    @FunctionalInterface
+    public interface PassListener {
+        /**
+         * passDone function is called by the rendering thread after a pass, before the next pass starts
+         * @param samples amount of samples in every pixel so far
+         */
+        void passDone(int samples);
+    }
+
+    /**
+     * RenderMode enum - the ways the threads share the image between them
+     */
+    public enum RenderMode {
+        /** Every thread takes the next tile of the image until there are no more tiles */
+        THREADS,
+        /** The image is divided recursively on a fork/join pool, and idle threads steal the pending regions */
+        FORK_JOIN,
+        /** The tiles of the image are rendered by a parallel stream over their indices */
+        STREAM,
+        /**
+         * Every tile is a virtual thread task - only the amount of threads trace rays at the same time,
+         * and writing the tile and reporting the progress don't hold any of them
+         */
+        VIRTUAL_THREADS
+    }
+
     /** Camera location */
     private Point location;
 
@@ -38,8 +91,59 @@ public class Camera implements Cloneable {
     /** density of rays, represented by square root of actual density */
     private int density = 1;
 
-    /** blackboard to use for each pixel */
-    private Blackboard blackboard;
+    /** blackboard to use for each pixel - every thread has its own, since a blackboard is moved between pixels */
+    private ThreadLocal<Blackboard> blackboard;
+
+    /** cache of the super sampling colors of a tile - every thread has its own, created for every render */
+    private ThreadLocal<SampleCache> sampleCache;
+
+    /** Amount of super sampling rays that the sample caches saved in the last render */
+    private LongAdder savedRays = new LongAdder();
+
+    /** pattern of the anti aliasing samples, null for the jittered grid of the blackboard */
+    private SamplePattern samplePattern = null;
+
+    /** offsets of the anti aliasing samples from the center of a pixel (x and y in pixels), calculated once */
+    private double[] sampleOffsets;
+
+    /** Standard error of the luminance of a pixel that adaptive sampling stops at, 0 if it's not used */
+    private double targetError = 0;
+
+    /** Amount of samples every pixel takes before adaptive sampling checks its error */
+    private static final int MIN_ADAPTIVE_SAMPLES = 4;
+
+    /** Amount of rays that adaptive sampling may trace in a frame, 0 for no limit */
+    private long rayBudget = 0;
+
+    /**
+     * rays of the frame budget that are left above the minimal samples of all the pixels - shared by all the
+     * threads, created for every render (null if there is no budget)
+     */
+    private AtomicLong spareRays;
+
+    /** Time limit of progressive rendering in seconds, 0 if the image is rendered in a single pass */
+    private double progressiveSeconds = 0;
+
+    /** Maximum amount of samples in every pixel of progressive rendering */
+    private int progressiveSamples = 0;
+
+    /** Listener that's notified after every pass of progressive rendering */
+    private PassListener passListener = null;
+
+    /** Sum of the colors of the samples of every pixel so far in progressive rendering, by rows */
+    private Color[] accumulation;
+
+    /** Offsets of the samples of progressive rendering - the first sample is the center of a pixel */
+    private double[] passOffsets;
+
+    /** The current pass of progressive rendering */
+    private int pass;
+
+    /** System.nanoTime of the time limit of progressive rendering */
+    private long deadline;
+
+    /** Flag of cancellation of the current render */
+    private volatile boolean cancelled = false;
 
     /** Plane center point */
     private Point viewPlaneCenter;
@@ -50,17 +154,26 @@ public class Camera implements Cloneable {
     /** RayTracer object for tracing the rays */
     private RayTracerBase rayTracer;
 
-    /** Pixel manager object to manage what pixel should each thread render */
-    private PixelManager pixelManager;
+    /** Tile scheduler object to manage what tile should each thread render */
+    private TileScheduler tileScheduler;
+
+    /** Width and height of a tile in pixels */
+    private int tileSize = 16;
+
+    /** The order of the tiles */
+    private TileOrder tileOrder = TileOrder.SCANLINE;
+
+    /** The way the threads share the image */
+    private RenderMode renderMode = RenderMode.THREADS;
 
     /** How many threads to create */
-    private int threadsCount = 0; // -2 auto, -1 range/stream, 0 no threads, 1+ number of threads
+    private int threadsCount = 0; // -2 auto, -1 stream on the common pool, 0 no threads, 1+ number of threads
 
     /** Spare threads in case of all cores */
     private final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
 
     /** Print interval for percentage */
-    private double printInterval = 0;    // printing progress percentage interval
+    private double printInterval = 0;    // printing progress percentage interval (0 - no printing)
 
     /**
      * Boolean value for whether to use superSampling or not.
@@ -72,6 +185,9 @@ public class Camera implements Cloneable {
     /** Represents recursion depth for superSampling */
     private int superSampling = 0;
 
+    /** Whether the rays of a pixel are traced together as a packet */
+    private boolean rayPackets = false;
+
 
     private Camera() {
 
@@ -123,7 +239,8 @@ public class Camera implements Cloneable {
      * @return list of rays
      */
     public List<Ray> constructRays(int nX, int nY, int j, int i){
-        List<Ray> rays = new LinkedList<>();
+        Blackboard blackboard = this.blackboard.get();
+        List<Ray> rays = new ArrayList<>((blackboard.getDensity() + 1) * (blackboard.getDensity() + 1));
 
         //Ratio width and height
         double Ry = height / nY;
@@ -138,11 +255,21 @@ public class Camera implements Cloneable {
         if (!isZero(xJ)) { Pij = Pij.add(vecRight.scale(xJ)); }
         if (!isZero(yI)) { Pij = Pij.add(vecUp.scale(yI)); }
 
-        if (blackboard.getDensity() != 1) {
+        if (sampleOffsets != null) {
+            // rays through the offsets of the pattern, without creating the points on the view plane
+            double x = Pij.getX() - location.getX(), y = Pij.getY() - location.getY(), z = Pij.getZ() - location.getZ();
+            double rX = vecRight.getX() * Rx, rY = vecRight.getY() * Rx, rZ = vecRight.getZ() * Rx;
+            double uX = vecUp.getX() * Ry, uY = vecUp.getY() * Ry, uZ = vecUp.getZ() * Ry;
+            for (int k = 0; k < sampleOffsets.length; k += 2) {
+                double u = sampleOffsets[k], v = -sampleOffsets[k + 1];
+                rays.add(new Ray(location, new Vector(x + rX * u + uX * v, y + rY * u + uY * v, z + rZ * u + uZ * v)));
+            }
+        }
+        else if (blackboard.getDensity() != 1) {
             // set center point to center of pixel and set width and height
-            blackboard = blackboard.setCenterPoint(Pij).setWidth(Rx).setHeight(Ry);
+            blackboard.setCenterPoint(Pij).setWidth(Rx).setHeight(Ry);
             // generate list of points on grid
-            List<Point> points = blackboard.generateJitterGrid();
+            List<Point> points = blackboard.jitterGrid();
             for (Point point : points){
                 // rays to point on grid
                 rays.add(new Ray(location, point.subtract(location)));
@@ -157,50 +284,43 @@ public class Camera implements Cloneable {
     }
 
     /**
-     * calculates Color of pixel using adaptive superSampling
+     * calculates Color of pixel using adaptive superSampling.
+     * The samples are points of a lattice of 2^(depth+1) X 2^(depth+1) cells in every pixel, and every traced point
+     * is kept in the sample cache of the thread - the corners that are shared between the levels of the recursion,
+     * between sibling areas and between neighboring pixels are traced only once
      * @param Nx number of columns
      * @param Ny number of rows
      * @param i pixel index we are on
      * @param j pixel index we are on
      */
     private Color constructRayAccelerator(int Nx, int Ny, int j, int i) {
-        //Ratio width and height
-        double Ry = height / Ny;
-        double Rx = width / Nx;
-
-        //Pixel[i,j] center
-        double yI = -(i - (Ny-1) / 2.0) * Ry;
-        double xJ =  (j - (Nx-1) / 2.0) * Rx;
-        Point Pij = viewPlaneCenter;
-        //make sure to account for Vector ZERO
-        if(!isZero(xJ)) { Pij = Pij.add(vecRight.scale(xJ)); }
-        if(!isZero(yI)) { Pij = Pij.add(vecUp.scale(yI)); }
-
-        Blackboard blackboard1 = new Blackboard(vecUp, vecRight, 2);
-        return constructRayAcceleratorHelper(Pij, Rx, Ry, superSampling, blackboard1, Color.BLACK);
+        int size = 2 << superSampling;
+        return constructRayAcceleratorHelper(Nx, Ny, j * size, i * size, size, superSampling, Color.BLACK);
     }
 
     /**
      * assisting function for superSampling, calculates color
-     * @param Pij center point of target area
-     * @param Rx width of target area
-     * @param Ry height of target area
+     * @param Nx number of columns
+     * @param Ny number of rows
+     * @param x lattice column of the left side of the target area
+     * @param y lattice row of the top side of the target area
+     * @param size lattice size of the target area
      * @param depth recursive max depth
-     * @param blackboard1 blackboard item, used to optimize creation of objects
      * @param color color to average with
      * @return final pixel color
      */
-    private Color constructRayAcceleratorHelper(Point Pij, double Rx, double Ry, int depth, Blackboard blackboard1, Color color){
-        blackboard1 = blackboard1.setCenterPoint(Pij).setWidth(Rx).setHeight(Ry);
-        List<Point> points = blackboard1.generateGrid();
-        List<Ray> rays = new LinkedList<>();
-        for (Point point : points){
-            // Creating new rays to the points on  the generated grid
-            rays.add(new Ray(location, point.subtract(location)));
+    private Color constructRayAcceleratorHelper(int Nx, int Ny, int x, int y, int size, int depth, Color color){
+        // average of the 3X3 grid of the corners, the middles of the sides and the center of the area
+        int half = size / 2;
+        Color avgColor = Color.BLACK;
+        for (int a = 0; a <= 2; a++) {
+            for (int b = 0; b <= 2; b++) {
+                avgColor = avgColor.add(sample(Nx, Ny, x + a * half, y + b * half));
+            }
         }
-
-        Color avgColor = calcAvgColor(rays);
-        Color color0 = rayTracer.traceRay(rays.getFirst());
+        avgColor = avgColor.reduce(9);
+        // the top left corner was traced with the grid, so it's taken from the cache (and counted as saved there)
+        Color color0 = sample(Nx, Ny, x, y);
 
         // Check if the average color is almost equal to the color of tracing tha ray
         if (color0.equalsMarg(avgColor)|| depth < 1){
@@ -213,13 +333,56 @@ public class Camera implements Cloneable {
         }
 
         // Recursion - Split the area to 4 grids and calculate the color for each grid if the color is almost the same we don't need to trace the other rays
-        color = constructRayAcceleratorHelper(Pij.add(vecRight.scale(-0.25 * Rx)).add(vecUp.scale(0.25 * Ry)), Rx / 2d, Ry / 2d, (depth - 1), blackboard1, color);
-        color = constructRayAcceleratorHelper(Pij.add(vecRight.scale(0.25 * Rx)).add(vecUp.scale(0.25 * Ry)), Rx / 2d, Ry / 2d, (depth - 1), blackboard1, color);
-        color = constructRayAcceleratorHelper(Pij.add(vecRight.scale(0.25 * Rx)).add(vecUp.scale(-0.25 * Ry)), Rx / 2d, Ry / 2d, (depth - 1), blackboard1, color);
-        color = constructRayAcceleratorHelper(Pij.add(vecRight.scale(-0.25 * Rx)).add(vecUp.scale(-0.25 * Ry)), Rx / 2d, Ry / 2d, (depth - 1), blackboard1, color);
+        color = constructRayAcceleratorHelper(Nx, Ny, x, y, half, depth - 1, color);
+        color = constructRayAcceleratorHelper(Nx, Ny, x + half, y, half, depth - 1, color);
+        color = constructRayAcceleratorHelper(Nx, Ny, x + half, y + half, half, depth - 1, color);
+        color = constructRayAcceleratorHelper(Nx, Ny, x, y + half, half, depth - 1, color);
+        return color;
+    }
+
+    /**
+     * sample function finds the color of a point of the super sampling lattice - traces it only if it's not cached
+     * @param Nx number of columns
+     * @param Ny number of rows
+     * @param x lattice column of the point
+     * @param y lattice row of the point
+     * @return the color of the point
+     */
+    private Color sample(int Nx, int Ny, int x, int y) {
+        SampleCache cache = sampleCache.get();
+        long key = (long) x << 32 | (y & 0xFFFFFFFFL);
+        Color color = cache.colors.get(key);
+        if (color != null) {
+            cache.saved++;
+            return color;
+        }
+
+        int size = 2 << superSampling;
+        double xJ = ((double) x / size - Nx / 2d) * (width / Nx);
+        double yI = -((double) y / size - Ny / 2d) * (height / Ny);
+        Point point = viewPlaneCenter;
+        //make sure to account for Vector ZERO
+        if(!isZero(xJ)) { point = point.add(vecRight.scale(xJ)); }
+        if(!isZero(yI)) { point = point.add(vecUp.scale(yI)); }
+
+        color = rayTracer.traceRay(new Ray(location, point.subtract(location)));
+        cache.colors.put(key, color);
         return color;
     }
 
+    /**
+     * SampleCache class - the colors of the traced points of the super sampling lattice of a thread, by their
+     * lattice position, and the amount of rays it saved. It's cleared for every tile
+     */
+    private static class SampleCache {
+
+        /** The colors of the traced points */
+        private final Map<Long, Color> colors = new HashMap<>();
+
+        /** Amount of samples that were found in the cache instead of being traced */
+        private long saved = 0;
+    }
+
     /**
      * calculates the average color of a list of points
      * @param rays list of rays to calculate color for
@@ -227,6 +390,13 @@ public class Camera implements Cloneable {
      */
     private Color calcAvgColor(List<Ray> rays){
         Color color = Color.BLACK;
+        if (rayPackets) {
+            for (Color rayColor : rayTracer.traceRays(rays.toArray(new Ray[0]))) {
+                color = color.add(rayColor);
+            }
+            return color.reduce(rays.size());
+        }
+
         for (Ray ray : rays) {
             color = color.add(rayTracer.traceRay(ray));
         }
@@ -242,28 +412,97 @@ public class Camera implements Cloneable {
         final int nX = imageWriter.getNx();
         final int nY = imageWriter.getNy();
 
-        pixelManager = new PixelManager(nX, nY, printInterval);
+        sampleCache = ThreadLocal.withInitial(SampleCache::new);
+        spareRays = targetError == 0 || rayBudget == 0 ? null
+                : new AtomicLong(rayBudget - (long) Math.min(MIN_ADAPTIVE_SAMPLES, sampleOffsets.length / 2) * nX * nY);
+        savedRays = new LongAdder();
+
+        // the cancellation is cleared when the render finishes, so a cancel just before the render isn't lost
+        try {
+            if (progressiveSeconds == 0) {
+                renderPass(nX, nY);
+                return this;
+            }
+
+            // every pass adds a sample to every pixel, until the time limit, the maximum samples or a cancellation
+            deadline = System.nanoTime() + (long) (progressiveSeconds * 1e9);
+            accumulation = new Color[nX * nY];
+            passOffsets = passOffsets();
+            for (pass = 0; pass < progressiveSamples && !stopped(); pass++) {
+                renderPass(nX, nY);
+                // a pass that was stopped in the middle is not reported
+                if (!stopped() && passListener != null) passListener.passDone(pass + 1);
+            }
+        } finally {
+            accumulation = null;
+            cancelled = false;
+        }
+
+        return this;
+    }
+
+    /**
+     * passOffsets function calculates the offsets of the samples of progressive rendering - the first sample is the
+     * center of the pixel whatever the pattern is, and the samples of the pattern follow it
+     * @return the offsets from the center of the pixel, x and y of every pass one after another
+     */
+    private double[] passOffsets() {
+        double[] pattern = (samplePattern == null ? SamplePattern.SOBOL : samplePattern)
+                .offsets((int) Math.ceil(Math.sqrt(progressiveSamples)));
+        double[] offsets = new double[2 * progressiveSamples];
+        System.arraycopy(pattern, 0, offsets, 2, offsets.length - 2);
+        return offsets;
+    }
+
+    /**
+     * cancel function stops the current render - the tiles that were started are finished,
+     * and progressive rendering doesn't start more passes. The image writer keeps the last samples of every pixel.
+     * A cancel before a render starts stops that render before it traces anything
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * stopped function checks whether the render should stop - it was cancelled, or a progressive render passed its
+     * time limit after the first pass (so there is always a full image)
+     * @return true if no more tiles should be rendered
+     */
+    private boolean stopped() {
+        return cancelled || (accumulation != null && pass > 0 && System.nanoTime() - deadline > 0);
+    }
+
+    /**
+     * renderPass function renders all the tiles of the image once, by the threads of the render mode
+     * @param nX width
+     * @param nY height
+     */
+    private void renderPass(int nX, int nY) {
+        tileScheduler = new TileScheduler(nX, nY, tileSize, tileOrder, printInterval);
 
         // No threads
         if (threadsCount == 0) {
-            for (int i = 0; i < nX; ++i) {
-                for (int j = 0; j < nY; ++j) {
-                    castRays(nX, nY, i, j);
-                }
+            renderTiles(nX, nY);
+        }
+        else if (threadsCount == -1 || renderMode == RenderMode.STREAM) {
+            renderStream(nX, nY);
+        }
+        else if (renderMode == RenderMode.VIRTUAL_THREADS) {
+            renderVirtualThreads(nX, nY);
+        }
+        else if (renderMode == RenderMode.FORK_JOIN) {
+            ForkJoinPool pool = new ForkJoinPool(threadsCount);
+            try {
+                pool.invoke(new RenderRegion(nX, nY, new TileScheduler.Tile(0, 0, nX, nY)));
+            } finally {
+                pool.shutdown();
             }
         }
         else {
             var threads = new LinkedList<Thread>();
-            while (threadsCount-- > 0) {
+            for (int k = 0; k < threadsCount; ++k) {
                 // Creation of the threads
-                threads.add(new Thread(() -> {
-                    PixelManager.Pixel pixel;
-                    // nextPixel function ensure that we don't get to a critical section
-                    // By giving the next pixel to the current thread
-                    while ((pixel = pixelManager.nextPixel()) != null) {
-                        castRays(nX, nY, pixel.col(), pixel.row());
-                    }
-                }));
+                threads.add(new Thread(() -> renderTiles(nX, nY)));
             }
 
             // Starting the threads after initializing
@@ -276,8 +515,199 @@ public class Camera implements Cloneable {
                 for (var thread : threads) thread.join();
             } catch (InterruptedException ignore) {}
         }
+    }
+
+    /**
+     * renderTiles function renders tiles until there are no more tiles,
+     * nextTile function ensure that we don't get to a critical section by giving the next tile to the current thread
+     * @param nX width
+     * @param nY height
+     */
+    private void renderTiles(int nX, int nY) {
+        TileScheduler.Tile tile;
+        while ((tile = tileScheduler.nextTile()) != null) {
+            renderTile(nX, nY, tile);
+        }
+    }
 
-        return this;
+    /**
+     * renderStream function renders the tiles by a parallel stream over their indices - on the common pool,
+     * whose parallelism is set by the java.util.concurrent.ForkJoinPool.common.parallelism property,
+     * or on a pool of its own when the amount of threads is given
+     * @param nX width
+     * @param nY height
+     */
+    private void renderStream(int nX, int nY) {
+        IntStream tiles = IntStream.range(0, tileScheduler.tilesCount()).parallel();
+        if (threadsCount == -1) {
+            tiles.forEach(k -> renderTile(nX, nY, tileScheduler.tile(k)));
+            return;
+        }
+
+        // a parallel stream that starts inside a pool runs on the threads of that pool
+        ForkJoinPool pool = new ForkJoinPool(threadsCount);
+        try {
+            pool.submit(() -> tiles.forEach(k -> renderTile(nX, nY, tileScheduler.tile(k)))).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * renderVirtualThreads function renders every tile in a virtual thread task. The amount of threads bounds the
+     * tiles that trace rays at the same time, and so the carrier threads that trace (the carriers themselves are
+     * shared by all the virtual threads of the JVM, and sized by the jdk.virtualThreadScheduler.parallelism
+     * property). A tile traces only while it holds a permit of a fair queue (in the order of the tiles), and every
+     * permit keeps a blackboard and a sample cache, so they are created once for every permit and not for every
+     * tile. The tile is written to the image and reported after its permit is returned, so slow output never holds
+     * back the tracing of other tiles
+     * @param nX width
+     * @param nY height
+     */
+    private void renderVirtualThreads(int nX, int nY) {
+        BlockingQueue<TracerState> permits = new ArrayBlockingQueue<>(threadsCount, true);
+        for (int k = 0; k < threadsCount; ++k) {
+            permits.add(new TracerState(new Blackboard(vecUp, vecRight, density), new SampleCache()));
+        }
+
+        // closing the executor waits for all the tiles
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int k = 0; k < tileScheduler.tilesCount(); ++k) {
+                TileScheduler.Tile tile = tileScheduler.tile(k);
+                executor.execute(() -> {
+                    if (stopped()) return;
+
+                    Color[] colors = new Color[tile.pixels()];
+                    TracerState state = takePermit(permits);
+                    try {
+                        blackboard.set(state.blackboard());
+                        sampleCache.set(state.cache());
+                        int index = 0;
+                        for (int j = tile.y0(); j < tile.y1(); ++j) {
+                            for (int i = tile.x0(); i < tile.x1(); ++i) {
+                                colors[index++] = pixelColor(nX, nY, i, j);
+                            }
+                        }
+                        clearSampleCache();
+                    } finally {
+                        permits.add(state);
+                    }
+
+                    writeTile(tile, colors);
+                });
+            }
+        }
+    }
+
+    /**
+     * takePermit function waits for a permit to trace a tile in a virtual thread
+     * @param permits the free permits
+     * @return the permit, with the state that its tiles trace with
+     */
+    private static TracerState takePermit(BlockingQueue<TracerState> permits) {
+        while (true) {
+            try {
+                return permits.take();
+            } catch (InterruptedException ignore) {}
+        }
+    }
+
+    /**
+     * TracerState record - the state that a permit of the virtual threads mode lends to the tiles that trace with it
+     * @param blackboard the blackboard of the anti aliasing rays
+     * @param cache the cache of the super sampling colors
+     */
+    private record TracerState(Blackboard blackboard, SampleCache cache) {
+    }
+
+    /**
+     * writeTile function writes the colors of a traced tile to the image and reports the progress
+     * @param tile the tile
+     * @param colors the colors of the pixels of the tile, row after row
+     */
+    private void writeTile(TileScheduler.Tile tile, Color[] colors) {
+        int index = 0;
+        for (int j = tile.y0(); j < tile.y1(); ++j) {
+            for (int i = tile.x0(); i < tile.x1(); ++i) {
+                imageWriter.writePixel(i, j, colors[index++]);
+            }
+        }
+        tileScheduler.tileDone(tile);
+    }
+
+    /**
+     * renderTile function renders all the pixels of a tile and reports the progress
+     * @param nX width
+     * @param nY height
+     * @param tile the tile to render
+     */
+    private void renderTile(int nX, int nY, TileScheduler.Tile tile) {
+        if (stopped()) return;
+
+        for (int j = tile.y0(); j < tile.y1(); ++j) {
+            for (int i = tile.x0(); i < tile.x1(); ++i) {
+                castRays(nX, nY, i, j);
+            }
+        }
+        clearSampleCache();
+        tileScheduler.tileDone(tile);
+    }
+
+    /**
+     * clearSampleCache function counts the rays that the super sampling cache of the thread saved and clears it,
+     * the samples of a tile are shared only with the pixels of the same tile
+     */
+    private void clearSampleCache() {
+        if (superSampling == 0) return;
+
+        SampleCache cache = sampleCache.get();
+        savedRays.add(cache.saved);
+        cache.saved = 0;
+        cache.colors.clear();
+    }
+
+    /**
+     * RenderRegion class - a region of the image that's rendered on a fork/join pool.
+     * A region larger than a tile is split in the middle of its longer side into two regions, so a thread that
+     * finished its regions steals pending regions of busy threads (the cost of pixels that hit reflective and
+     * refractive geometries is much higher than the cost of the background)
+     */
+    @SuppressWarnings("serial") // the tasks are never serialized
+    private class RenderRegion extends RecursiveAction {
+
+        /** width and height of the image */
+        private final int nX, nY;
+
+        /** The region to render */
+        private final TileScheduler.Tile region;
+
+        /**
+         * RenderRegion Constructor
+         * @param nX width
+         * @param nY height
+         * @param region the region to render
+         */
+        RenderRegion(int nX, int nY, TileScheduler.Tile region) {
+            this.nX = nX;
+            this.nY = nY;
+            this.region = region;
+        }
+
+        @Override
+        protected void compute() {
+            int width = region.x1() - region.x0(), height = region.y1() - region.y0();
+            if (region.pixels() <= tileSize * tileSize) {
+                renderTile(nX, nY, region);
+            } else if (width >= height) {
+                int middle = region.x0() + width / 2;
+                invokeAll(new RenderRegion(nX, nY, new TileScheduler.Tile(region.x0(), region.y0(), middle, region.y1())),
+                        new RenderRegion(nX, nY, new TileScheduler.Tile(middle, region.y0(), region.x1(), region.y1())));
+            } else {
+                int middle = region.y0() + height / 2;
+                invokeAll(new RenderRegion(nX, nY, new TileScheduler.Tile(region.x0(), region.y0(), region.x1(), middle)),
+                        new RenderRegion(nX, nY, new TileScheduler.Tile(region.x0(), middle, region.x1(), region.y1())));
+            }
+        }
     }
 
     /**
@@ -290,14 +720,105 @@ public class Camera implements Cloneable {
      * @param j column of the pixel
      */
     private void castRays(int nX, int nY, int i, int j) {
-        if (superSampling > 0) {
-            imageWriter.writePixel(i, j, constructRayAccelerator(nX, nY, i, j));
+        imageWriter.writePixel(i, j, pixelColor(nX, nY, i, j));
+    }
+
+    /**
+     * pixelColor function finds the color of a pixel - by super sampling or by the average color of its rays
+     * @param nX width
+     * @param nY height
+     * @param i row of the pixel
+     * @param j column of the pixel
+     * @return the color of the pixel
+     */
+    private Color pixelColor(int nX, int nY, int i, int j) {
+        if (accumulation != null) return progressiveColor(nX, nY, i, j);
+        if (superSampling > 0) return constructRayAccelerator(nX, nY, i, j);
+        if (targetError > 0) return adaptiveColor(nX, nY, i, j);
+        return calcAvgColor(constructRays(nX, nY, i, j));
+    }
+
+    /**
+     * progressiveColor function adds the sample of the current pass to a pixel
+     * (only a single thread renders a pixel in a pass, and the passes are separated by the end of the render)
+     * @param nX width
+     * @param nY height
+     * @param j column of the pixel
+     * @param i row of the pixel
+     * @return the average color of the samples of the pixel so far
+     */
+    private Color progressiveColor(int nX, int nY, int j, int i) {
+        //Ratio width and height
+        double Ry = height / nY;
+        double Rx = width / nX;
+
+        // the sample in the view plane relative to the camera
+        double xJ = (j - (nX - 1) / 2.0 + passOffsets[2 * pass]) * Rx;
+        double yI = -(i - (nY - 1) / 2.0 + passOffsets[2 * pass + 1]) * Ry;
+        Vector direction = new Vector(
+                viewPlaneCenter.getX() - location.getX() + vecRight.getX() * xJ + vecUp.getX() * yI,
+                viewPlaneCenter.getY() - location.getY() + vecRight.getY() * xJ + vecUp.getY() * yI,
+                viewPlaneCenter.getZ() - location.getZ() + vecRight.getZ() * xJ + vecUp.getZ() * yI);
+
+        int index = i * nX + j;
+        Color color = rayTracer.traceRay(new Ray(location, direction));
+        accumulation[index] = pass == 0 ? color : accumulation[index].add(color);
+        return accumulation[index].reduce(pass + 1);
+    }
+
+    /**
+     * adaptiveColor function finds the color of a pixel by adaptive sampling - it traces the samples of the pattern
+     * one after another until the standard error of the mean luminance (by Welford's variance) falls below the
+     * target, until all the samples of the pattern are traced, or until the frame ran out of its ray budget
+     * @param nX width
+     * @param nY height
+     * @param j column of the pixel
+     * @param i row of the pixel
+     * @return the color of the pixel
+     */
+    private Color adaptiveColor(int nX, int nY, int j, int i) {
+        int cap = sampleOffsets.length / 2, min = Math.min(MIN_ADAPTIVE_SAMPLES, cap), max = cap;
+        if (spareRays != null) {
+            // every pixel has its minimal samples, and takes the samples above them from the rays left in the frame
+            long left = spareRays.getAndUpdate(rays -> rays - Math.min(cap - min, Math.max(0, rays)));
+            max = min + (int) Math.min(cap - min, Math.max(0, left));
         }
-        else {
-            imageWriter.writePixel(i, j, calcAvgColor(constructRays(nX, nY, i, j)));
+
+        //Ratio width and height
+        double Ry = height / nY;
+        double Rx = width / nX;
+
+        // Pixel[i,j] center relative to the camera
+        double xJ = (j - (nX - 1) / 2.0) * Rx;
+        double yI = -(i - (nY - 1) / 2.0) * Ry;
+        double x = viewPlaneCenter.getX() - location.getX() + vecRight.getX() * xJ + vecUp.getX() * yI;
+        double y = viewPlaneCenter.getY() - location.getY() + vecRight.getY() * xJ + vecUp.getY() * yI;
+        double z = viewPlaneCenter.getZ() - location.getZ() + vecRight.getZ() * xJ + vecUp.getZ() * yI;
+        double rX = vecRight.getX() * Rx, rY = vecRight.getY() * Rx, rZ = vecRight.getZ() * Rx;
+        double uX = vecUp.getX() * Ry, uY = vecUp.getY() * Ry, uZ = vecUp.getZ() * Ry;
+
+        Color sum = Color.BLACK;
+        double mean = 0, m2 = 0, target = targetError * targetError;
+        int n = 0;
+        while (n < max) {
+            double u = sampleOffsets[2 * n], v = -sampleOffsets[2 * n + 1];
+            Color color = rayTracer.traceRay(
+                    new Ray(location, new Vector(x + rX * u + uX * v, y + rY * u + uY * v, z + rZ * u + uZ * v)));
+            sum = sum.add(color);
+
+            double luminance = color.luminance(), delta = luminance - mean;
+            mean += delta / ++n;
+            m2 += delta * (luminance - mean);
+
+            // the variance of the mean is the variance of the samples divided by their amount
+            if (n >= min && n > 1 && m2 / (n - 1) / n <= target) break;
         }
 
-        pixelManager.pixelDone();
+        if (spareRays != null && n < max) {
+            // the rays that the pixel didn't need go back to the frame
+            spareRays.addAndGet(max - n);
+        }
+        return sum.reduce(n);
     }
 
     /**
@@ -311,7 +832,6 @@ public class Camera implements Cloneable {
     private void castRay(int nX, int nY, int i, int j) {
         Ray ray = constructRay(nX, nY, i, j);
         imageWriter.writePixel(i, j, rayTracer.traceRay(ray));
-        pixelManager.pixelDone();
     }
 
 
@@ -345,6 +865,10 @@ public class Camera implements Cloneable {
         this.imageWriter.writeToImage();
     }
 
+    /** @return amount of super sampling rays that were found in the sample caches instead of being traced
+     * in the last render */
+    public long getSavedRays() { return savedRays.sum(); }
+
     /** @return current camera location*/
     public Point getLocation() { return location; }
 
@@ -474,6 +998,76 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the pattern of the anti aliasing samples - density X density samples in a pixel, calculated once.
+         * Without a pattern the samples are a jittered grid of (density + 1) X (density + 1) points
+         * @param samplePattern the pattern, or null for the jittered grid
+         * @return the updated this object
+         */
+        public Builder setSamplePattern(SamplePattern samplePattern) {
+            camera.samplePattern = samplePattern;
+            return this;
+        }
+
+        /**
+         * Sets adaptive sampling - every pixel traces the samples of the sample pattern (Sobol if it's not set)
+         * until the standard error of its mean luminance falls below the target, up to density X density samples.
+         * It's the single knob between render time and quality - a smaller target traces more rays where the
+         * pixels are noisy, and flat areas stop after a few samples. Super sampling takes precedence over it
+         * @param targetError the standard error of the luminance to stop at (colors are 0 - 255),
+         *                    0 to turn adaptive sampling off
+         * @return the updated this object
+         */
+        public Builder setAdaptiveSampling(double targetError) {
+            if (targetError < 0)
+                throw new IllegalArgumentException("Target error must not be negative");
+
+            camera.targetError = targetError;
+            return this;
+        }
+
+        /**
+         * Sets the amount of rays that adaptive sampling may trace in a frame - all the pixels draw their samples
+         * from it while they are rendered, and every pixel gets at least its minimal samples
+         * @param rayBudget amount of rays, 0 for no limit
+         * @return the updated this object
+         */
+        public Builder setRayBudget(long rayBudget) {
+            if (rayBudget < 0)
+                throw new IllegalArgumentException("Ray budget must not be negative");
+
+            camera.rayBudget = rayBudget;
+            return this;
+        }
+
+        /**
+         * Sets progressive rendering - renderImage renders the image in passes, every pass adds a single sample
+         * to every pixel (the first one in the center of the pixel) and writes the full image of the samples so far.
+         * The passes stop at the time limit, at the maximum samples, or when the camera is cancelled.
+         * Progressive rendering takes precedence over the other sampling modes
+         * @param seconds the time limit, 0 to render in a single pass
+         * @param maxSamples maximum amount of samples in every pixel
+         * @return the updated this object
+         */
+        public Builder setProgressive(double seconds, int maxSamples) {
+            if (seconds < 0 || maxSamples < 1)
+                throw new IllegalArgumentException("Progressive rendering needs a time limit and at least one sample");
+
+            camera.progressiveSeconds = seconds;
+            camera.progressiveSamples = maxSamples;
+            return this;
+        }
+
+        /**
+         * Sets the listener that's notified after every pass of progressive rendering
+         * @param passListener the listener, a UI or a service can snapshot the image writer in it
+         * @return the updated this object
+         */
+        public Builder setPassListener(PassListener passListener) {
+            camera.passListener = passListener;
+            return this;
+        }
+
         /**
          * Sets useSuperSampling - true -> use superSampling else don't.
          * We need both boolean and recursion depth superSampling variables,
@@ -486,6 +1080,18 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets whether to trace the rays of every pixel together as a packet - the rays of a pixel are coherent, so
+         * they visit the same nodes of the acceleration structure of the scene (see
+         * {@link geometries.Intersectable#findClosestGeoIntersections(Ray[])})
+         * @param rayPackets boolean value for rayPackets
+         * @return the updated this object
+         */
+        public Builder setRayPackets(boolean rayPackets) {
+            camera.rayPackets = rayPackets;
+            return this;
+        }
+
         /**
          * Sets whether to use soft shadows or not
          * @param useSoftShadows boolean value for useSoftShadows
@@ -498,7 +1104,9 @@ public class Camera implements Cloneable {
 
         /**
          * sets multithreading amount
-         * @param threads amount of threads
+         * @param threads amount of threads - 0 for no threads, -1 for a parallel stream on the common fork/join pool,
+         *                -2 for all the cores except spare ones. With virtual threads it's the amount of tiles that
+         *                trace at the same time, so it bounds the carrier threads that the render occupies
          * @return the updated this object
          */
         public Builder setMultithreading(int threads) {
@@ -516,8 +1124,9 @@ public class Camera implements Cloneable {
         }
 
         /**
-         * progress bar, only works in Eclipse
-         * @param interval how often should it update
+         * progress bar, only works in Eclipse - the progress isn't printed unless it's set
+         * @param interval the progress printing step in percents (0.1 prints every tenth of a percent),
+         *                 0 to turn the printing off
          * @return the updated this object
          */
         public Builder setDebugPrint(double interval) {
@@ -525,6 +1134,39 @@ public class Camera implements Cloneable {
             return this;
         }
 
+        /**
+         * Sets the size of the tiles that the threads render
+         * @param tileSize width and height of a tile in pixels
+         * @return the updated this object
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize < 1)
+                throw new IllegalArgumentException("Tile size must be positive");
+
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Sets the order in which the tiles are rendered
+         * @param tileOrder the order of the tiles
+         * @return the updated this object
+         */
+        public Builder setTileOrder(TileOrder tileOrder) {
+            camera.tileOrder = tileOrder;
+            return this;
+        }
+
+        /**
+         * Sets the way the threads share the image, used when multithreading is set
+         * @param renderMode the render mode
+         * @return the updated this object
+         */
+        public Builder setRenderMode(RenderMode renderMode) {
+            camera.renderMode = renderMode;
+            return this;
+        }
+
         /**
          * Sets the ImageWriter for the camera
          * @param imageWriter ImageWriter object
@@ -567,7 +1209,15 @@ public class Camera implements Cloneable {
             if (camera.useSuperSampling)
                 camera.superSampling = (int)(Math.log(camera.density) / Math.log(2));
 
-            camera.blackboard = new Blackboard(camera.vecUp, camera.vecRight, camera.density);
+            final Vector vecUp = camera.vecUp, vecRight = camera.vecRight;
+            final int density = camera.density;
+            camera.blackboard = ThreadLocal.withInitial(() -> new Blackboard(vecUp, vecRight, density));
+            if (camera.targetError > 0)
+                camera.sampleOffsets = (camera.samplePattern == null ? SamplePattern.SOBOL : camera.samplePattern)
+                        .offsets(camera.density);
+            else
+                camera.sampleOffsets = camera.samplePattern == null || camera.density == 1 ? null
+                        : camera.samplePattern.offsets(camera.density);
 
             return (Camera) camera.clone();
         }
@@ -29,4 +29,17 @@ public abstract class RayTracerBase {
      * @return the color that the ray hits
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Traces a packet of rays and get the colors the rays hit
+     * @param rays rays to trace - usually coherent rays of the same pixel
+     * @return the color that every ray hits
+     */
+    public Color[] traceRays(Ray[] rays) {
+        Color[] colors = new Color[rays.length];
+        for (int k = 0; k < rays.length; k++) {
+            colors[k] = traceRay(rays[k]);
+        }
+        return colors;
+    }
 }
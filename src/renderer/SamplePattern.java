@@ -0,0 +1,129 @@
+package renderer;
+
+import java.util.Random;
+
+/**
+ * SamplePattern enum - the patterns of sample positions inside a pixel for anti-aliasing.
+ * A pattern is calculated once into a table of offsets, and the rays of every pixel are created directly from
+ * the table and the directions of the camera, without creating points on the view plane
+ */
+public enum SamplePattern {
+    /** The centers of density X density equal cells */
+    STRATIFIED,
+    /** A random position inside every one of density X density equal cells */
+    JITTERED,
+    /** The Halton low discrepancy sequence in the bases 2 and 3 */
+    HALTON,
+    /** The first two dimensions of the Sobol low discrepancy sequence */
+    SOBOL,
+    /** Positions that are far from each other without a regular structure (Mitchell's best candidate) */
+    BLUE_NOISE;
+
+    /** Seed of the random patterns, so the same pattern gives the same image */
+    private static final long SEED = 17;
+
+    /** Amount of candidates for every blue noise position (relative to the amount of positions so far) */
+    private static final int CANDIDATES = 8;
+
+    /**
+     * offsets function calculates the table of the pattern
+     * @param density square root of the amount of samples
+     * @return the offsets from the center of the pixel, in pixels - x and y of every sample one after another,
+     * all of them inside [-0.5, 0.5)
+     */
+    public double[] offsets(int density) {
+        if (density < 1) {
+            throw new IllegalArgumentException("Density must be positive");
+        }
+
+        int count = density * density;
+        double[] offsets = new double[2 * count];
+        Random random = new Random(SEED);
+        for (int k = 0; k < count; k++) {
+            double x, y;
+            switch (this) {
+                case STRATIFIED -> {
+                    x = (k % density + 0.5) / density;
+                    y = (k / density + 0.5) / density;
+                }
+                case JITTERED -> {
+                    x = (k % density + random.nextDouble()) / density;
+                    y = (k / density + random.nextDouble()) / density;
+                }
+                case HALTON -> {
+                    x = radicalInverse(k, 2);
+                    y = radicalInverse(k, 3);
+                }
+                case SOBOL -> {
+                    x = radicalInverse(k, 2);
+                    y = sobol(k);
+                }
+                default -> {
+                    double[] best = bestCandidate(offsets, k, random);
+                    x = best[0];
+                    y = best[1];
+                }
+            }
+            offsets[2 * k] = x - 0.5;
+            offsets[2 * k + 1] = y - 0.5;
+        }
+        return offsets;
+    }
+
+    /**
+     * radicalInverse function mirrors the digits of a number around the decimal point (van der Corput sequence)
+     * @param index the index of the sample
+     * @param base the base of the digits
+     * @return the sample in [0, 1)
+     */
+    static double radicalInverse(int index, int base) {
+        double result = 0, fraction = 1d / base;
+        for (; index > 0; index /= base, fraction /= base) {
+            result += (index % base) * fraction;
+        }
+        return result;
+    }
+
+    /**
+     * sobol function calculates the second dimension of the Sobol sequence
+     * (the direction numbers of the primitive polynomial x + 1)
+     * @param index the index of the sample
+     * @return the sample in [0, 1)
+     */
+    static double sobol(int index) {
+        int result = 0;
+        for (int v = 1 << 31; index != 0; index >>>= 1, v ^= v >>> 1) {
+            if ((index & 1) != 0) result ^= v;
+        }
+        return (result & 0xFFFFFFFFL) / 4294967296d;
+    }
+
+    /**
+     * bestCandidate function finds the random candidate that's the farthest from all the previous samples
+     * (the distances wrap around the pixel, so neighboring pixels fit each other)
+     * @param offsets the previous samples, in [-0.5, 0.5)
+     * @param count the amount of previous samples
+     * @param random the random generator
+     * @return x and y of the new sample in [0, 1)
+     */
+    private static double[] bestCandidate(double[] offsets, int count, Random random) {
+        double[] best = { random.nextDouble(), random.nextDouble() };
+        double bestDistance = -1;
+        for (int c = 0; count > 0 && c < CANDIDATES * count; c++) {
+            double x = random.nextDouble(), y = random.nextDouble();
+            double distance = Double.POSITIVE_INFINITY;
+            for (int k = 0; k < count; k++) {
+                double dx = Math.abs(x - offsets[2 * k] - 0.5), dy = Math.abs(y - offsets[2 * k + 1] - 0.5);
+                dx = Math.min(dx, 1 - dx);
+                dy = Math.min(dy, 1 - dy);
+                distance = Math.min(distance, dx * dx + dy * dy);
+            }
+            if (distance > bestDistance) {
+                bestDistance = distance;
+                best[0] = x;
+                best[1] = y;
+            }
+        }
+        return best;
+    }
+}
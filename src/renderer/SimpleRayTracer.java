@@ -17,17 +17,34 @@ import static primitives.Util.isZero;
 public class SimpleRayTracer extends RayTracerBase {
 
     /** recursion stop constant */
-    private static final int MAX_CALC_COLOR_LEVEL = 10;
+    protected static final int MAX_CALC_COLOR_LEVEL = 10;
 
     /** recursion stop constant */
-    private static final double MIN_CALC_COLOR_K = 0.001;
+    protected static final double MIN_CALC_COLOR_K = 0.001;
 
     /** initial recursion k */
-    private static final Double3 INITIAL_K = Double3.ONE;
+    protected static final Double3 INITIAL_K = Double3.ONE;
 
     /** soft-shadows switch (true - use soft-shadows else don't use soft-shadows)*/
     private boolean useSoftShadows = false;
 
+    /**
+     * Scratch vectors of a thread - the shading calculations reuse them instead of creating vectors for every ray
+     */
+    private static final class Scratch {
+        /** direction from the camera to the point */
+        final MutableVector v = new MutableVector();
+        /** normal at the point */
+        final MutableVector n = new MutableVector();
+        /** direction of a secondary ray */
+        final MutableVector r = new MutableVector();
+        /** direction from the point to the light source */
+        final MutableVector l = new MutableVector();
+    }
+
+    /** scratch vectors of every thread (a tracer is shared by all the render threads) */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
     /**
      * SimpleRayTracer constructor to set the scene
      * @param scene scene to set
@@ -44,6 +61,18 @@ public class SimpleRayTracer extends RayTracerBase {
         return calcColor(closestIntersection, ray);
     }
 
+    @Override
+    public Color[] traceRays(Ray[] rays) {
+        GeoPoint[] closestIntersections = scene.geometries.findClosestGeoIntersections(rays);
+        Color[] colors = new Color[rays.length];
+        for (int k = 0; k < rays.length; k++) {
+            colors[k] = closestIntersections[k] == null
+                    ? scene.background
+                    : calcColor(closestIntersections[k], rays[k]);
+        }
+        return colors;
+    }
+
     /**
      * Match to soft shadows - doing average ktr for all the rays (vectors) of the light
      * @param geoPoint    point of geometry
@@ -51,12 +80,23 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param n           normal to the geo point
      * @return the level of the transparency
      */
-    private Double3 transparencyWithSoftShadows(GeoPoint geoPoint, LightSource lightSource, Vector n) {
+    private Double3 transparencyWithSoftShadows(GeoPoint geoPoint, LightSource lightSource, MutableVector n) {
         Double3 ktr;
         List<Vector> beamL = lightSource.getListL(geoPoint.point);
-        Double3 tempKtr = Double3.ZERO;
+        Point point = geoPoint.point;
+
+        // the shadow rays of the beam start at the same point and go to the same light, so they're traced as a packet
+        Ray[] lightRays = new Ray[beamL.size()];
+        MutableVector lightDirection = SCRATCH.get().l;
+        int k = 0;
         for (Vector vl : beamL) {
-            tempKtr = tempKtr.add(transparency(lightSource, vl, n, geoPoint));
+            lightRays[k++] = new Ray(point, n, lightDirection.set(vl).scale(-1));
+        }
+
+        Double3 tempKtr = Double3.ZERO;
+        for (Double3 rayKtr : scene.geometries.findTransparencies(lightRays, lightSource.getDistance(point),
+                MIN_CALC_COLOR_K)) {
+            tempKtr = tempKtr.add(rayKtr);
         }
 
         ktr = tempKtr.reduce(beamL.size());
@@ -71,31 +111,16 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param gp point to calculate for
      * @return double3 representing transparency
      */
-    private Double3 transparency(LightSource lightSource, Vector l, Vector n, GeoPoint gp) {
-        Vector lightDirection = l.scale(-1); // from point to light source
+    private Double3 transparency(LightSource lightSource, Vector l, MutableVector n, GeoPoint gp) {
+        MutableVector lightDirection = SCRATCH.get().l.set(l).scale(-1); // from point to light source
         Point point = gp.point;
         Ray lightRay = new Ray(point, n, lightDirection);
 
         double maxdistance = lightSource.getDistance(point);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay, maxdistance);
-
-        if (intersections == null)
-            return Double3.ONE;
-
-        Double3 ktr = Double3.ONE;
-
-        // loop over intersections and for each intersection which is closer to the
-        // point than the light source multiply ktr by 𝒌𝑻 of its geometry.
-        // Performance:
-        // if you get close to 0 –it’s time to get out( return 0)
-        for (var geo : intersections) {
-            ktr = ktr.product(geo.geometry.getMaterial().kT);
-            if (ktr.lowerThan(MIN_CALC_COLOR_K)) {
-                return Double3.ZERO;
-            }
-        }
 
-        return ktr;
+        // multiply ktr by 𝒌𝑻 of the geometry of every intersection which is closer to the point than the light source.
+        // Performance: the search stops at the first opaque geometry, or as soon as ktr gets close to 0
+        return scene.geometries.findTransparency(lightRay, maxdistance, MIN_CALC_COLOR_K);
     }
 
     /**
@@ -115,19 +140,10 @@ public class SimpleRayTracer extends RayTracerBase {
 
 
         Ray ray = new Ray(gp.point, n, lightDirection);
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray, lightSource.getDistance(ray.head));
-        if (intersections == null){
-            return true;
-        }
-
-        // check if the transparant level is too small to matter
-        for (var item : intersections) {
-            if (item.geometry.getMaterial().kT.lowerThan(MIN_CALC_COLOR_K)) {
-                return false;
-            }
-        }
 
-        return true;
+        // check if the transparant level is too small to matter - the search stops at the first opaque geometry
+        return !scene.geometries.findTransparency(ray, lightSource.getDistance(ray.head), MIN_CALC_COLOR_K)
+                .lowerThan(MIN_CALC_COLOR_K);
     }
 
     /**
@@ -162,8 +178,22 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
         Material material = gp.geometry.getMaterial();
-        return calcGlobalEffect(constructRefractedRay(gp.point, ray.direction, gp.geometry.getNormal(gp.point)), material.kT, level, k)
-                .add(calcGlobalEffect(constructReflectedRay(gp.point, ray.direction, gp.geometry.getNormal(gp.point)), material.kR, level, k));
+        Double3 kkt = material.kT.product(k);
+        Double3 kkr = material.kR.product(k);
+        boolean refraction = !kkt.lowerThan(MIN_CALC_COLOR_K);
+        boolean reflection = !kkr.lowerThan(MIN_CALC_COLOR_K);
+        if (!refraction && !reflection) {
+            return Color.BLACK;
+        }
+
+        // a secondary ray is created only if it has an effect, and both of them are created before the recursion
+        // that reuses the scratch vectors of the thread
+        Scratch scratch = SCRATCH.get();
+        MutableVector n = gp.geometry.getNormal(gp.point, scratch.n);
+        Ray refractedRay = refraction ? constructRefractedRay(gp.point, ray.direction, n, scratch.r) : null;
+        Ray reflectedRay = reflection ? constructReflectedRay(gp.point, ray.direction, n, scratch.r) : null;
+        return calcGlobalEffect(refractedRay, material.kT, kkt, level)
+                .add(calcGlobalEffect(reflectedRay, material.kR, kkr, level));
     }
 
 
@@ -171,12 +201,11 @@ public class SimpleRayTracer extends RayTracerBase {
      * Calculate the global effect of an object
      * @param ray ray
      * @param kx kx test
+     * @param kkx kx multiplied by the k of the recursion
      * @param level recursion level
-     * @param k our k val
      * @return color effect
      */
-    private Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
-        Double3 kkx = kx.product(k);
+    private Color calcGlobalEffect(Ray ray, Double3 kx, Double3 kkx, int level) {
         if (kkx.lowerThan(MIN_CALC_COLOR_K)) {
             return Color.BLACK;
         }
@@ -191,11 +220,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return closest point
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        if (intersections == null) {
-            return null;
-        }
-        return ray.findClosestGeoPoint(intersections);
+        return scene.geometries.findClosestGeoIntersection(ray);
     }
 
     /**
@@ -203,16 +228,17 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param point point to caclulate for
      * @param direction direction vector of ray
      * @param normal normal vector
+     * @param scratch scratch vector for the direction of the secondary ray
      * @return secondary ray
      */
-    private Ray constructRefractedRay(Point point, Vector direction, Vector normal) {
-        double vn = direction.dotProduct(normal);
+    protected Ray constructRefractedRay(Point point, Vector direction, MutableVector normal, MutableVector scratch) {
+        double vn = normal.dotProduct(direction);
 
         if (isZero(alignZero(vn))) {
             return null;
         }
 
-        return new Ray(point, normal, direction);
+        return new Ray(point, normal, scratch.set(direction));
     }
 
     /**
@@ -220,15 +246,16 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param point point to calculate for
      * @param direction direction vector
      * @param normal normal vector
+     * @param scratch scratch vector for the direction of the secondary ray
      * @return secondary ray
      */
-    private Ray constructReflectedRay(Point point, Vector direction, Vector normal) {
-        double vn = direction.dotProduct(normal);
+    protected Ray constructReflectedRay(Point point, Vector direction, MutableVector normal, MutableVector scratch) {
+        double vn = normal.dotProduct(direction);
         if (isZero(alignZero(vn))) {
             return null;
         }
 
-        Vector r = direction.subtract(normal.scale(2 * vn));
+        MutableVector r = scratch.set(direction).addScaled(normal, -2 * vn);
         return new Ray(point, normal, r);
     }
 
@@ -238,9 +265,10 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param ray ray from camera
      * @return Local Effect
      */
-    private Color calcLocalEffects(GeoPoint geoPoint, Ray ray, Double3 k) {
-        Vector v = ray.direction.normalize();
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
+    protected Color calcLocalEffects(GeoPoint geoPoint, Ray ray, Double3 k) {
+        Scratch scratch = SCRATCH.get();
+        MutableVector v = scratch.v.set(ray.direction).normalize();
+        MutableVector n = geoPoint.geometry.getNormal(geoPoint.point, scratch.n);
 
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0) return Color.BLACK;
@@ -257,7 +285,7 @@ public class SimpleRayTracer extends RayTracerBase {
                 if ((nl * nv > 0)) {
                     Double3 ktr;
                     if (useSoftShadows) {
-                        ktr = transparencyWithSoftShadows(geoPoint, lightSource, l);
+                        ktr = transparencyWithSoftShadows(geoPoint, lightSource, scratch.r.set(l));
                     } else {
                         ktr = transparency(lightSource, l, n, geoPoint);
                     }
@@ -265,7 +293,7 @@ public class SimpleRayTracer extends RayTracerBase {
                         Color iL = lightSource.getIntensity(geoPoint.point).scale(ktr);
                         color = color.add(
                                 calcDiffusive(kd, nl, iL),
-                                calcSpecular(ks, l, n, nl, v, nShininess, iL)
+                                calcSpecular(ks, scratch.r.set(l), n, nl, v, nShininess, iL)
                         );
                     }
                 }
@@ -292,7 +320,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * Calculate the Specular component of the light at this point
      *
      * @param ks             specular component
-     * @param l              direction from light to point
+     * @param l              direction from light to point (a scratch vector that is changed)
      * @param n              normal from the object at the point
      * @param nl             dot-product n*l
      * @param v              direction from the camera to the point
@@ -300,8 +328,9 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param lightIntensity light intensity
      * @return the Specular component at the point
      */
-    private Color calcSpecular(Double3 ks, Vector l, Vector n, double nl, Vector v, int nShininess, Color lightIntensity) {
-        double vr = alignZero(v.dotProduct(l.add(n.scale(-2 * nl))));
+    private Color calcSpecular(Double3 ks, MutableVector l, MutableVector n, double nl, MutableVector v, int nShininess,
+                               Color lightIntensity) {
+        double vr = alignZero(v.dotProduct(l.addScaled(n, -2 * nl)));
         return lightIntensity.scale(ks.scale(Math.pow(Math.max(0, -1 * vr), nShininess)));
     }
 
@@ -0,0 +1,157 @@
+package renderer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** TileScheduler is a helper class. It is used for multi-threading in the
+ * renderer and for follow up its progress.<br/>
+ * The image is divided into square tiles that are prepared once in the
+ * requested order, and every thread takes the next tile with a single atomic
+ * increment - there are no locks and no allocations while rendering. The
+ * progress is counted per tile in striped counters that are merged only when
+ * it's printed. */
+class TileScheduler {
+    /** Immutable class for object containing a tile of pixels - columns
+     * [x0, x1) and rows [y0, y1) */
+    record Tile(int x0, int y0, int x1, int y1) {
+        /** Amount of pixels in the tile
+         * @return the amount of pixels */
+        int pixels() { return (x1 - x0) * (y1 - y0); }
+    }
+
+    /** All the tiles of the image in the rendering order */
+    private final Tile[]        tiles;
+    /** Index of the next tile to render */
+    private final AtomicInteger next          = new AtomicInteger();
+
+    /** Total amount of pixels in the generated image */
+    private final long          totalPixels;
+    /** Amount of pixels that have been processed - striped per thread and
+     * merged on demand */
+    private final LongAdder     pixels        = new LongAdder();
+    /** Last printed progress update percentage (in tenths of a percent) */
+    private final AtomicInteger lastPrinted   = new AtomicInteger();
+
+    /** Flag of debug printing of progress percentage */
+    private final boolean       print;
+    /** Progress percentage printing interval (in tenths of a percent) */
+    private final int           printInterval;
+    /** Printing format */
+    private static final String PRINT_FORMAT  = "%5.1f%%\r";
+
+    /** Initialize tile scheduler data for multi-threading
+     * @param nX       the amount of pixel columns
+     * @param nY       the amount of pixel rows
+     * @param tileSize the width and height of a tile in pixels
+     * @param order    the order of the tiles
+     * @param interval progress printing step in percents (0.1 prints every
+     *                 tenth of a percent), 0 (the default of the camera) if
+     *                 printing is not required */
+    TileScheduler(int nX, int nY, int tileSize, Camera.TileOrder order, double interval) {
+        tiles         = tiles(nX, nY, tileSize, order);
+        totalPixels   = (long) nX * nY;
+        // a positive step smaller than a tenth of a percent prints every tenth
+        printInterval = interval > 0 ? Math.max(1, (int) Math.round(interval * 10)) : 0;
+        if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
+    }
+
+    /** Function for thread-safe allocation of tiles - the only shared data is
+     * the atomic index of the next tile.
+     * @return the next tile, or null if there are no more tiles */
+    Tile nextTile() {
+        int index = next.getAndIncrement();
+        return index < tiles.length ? tiles[index] : null;
+    }
+
+    /** Amount of tiles in the image
+     * @return the amount of tiles */
+    int tilesCount() { return tiles.length; }
+
+    /** Tile by its index in the rendering order, for renderers that share the
+     * indices between the threads by themselves
+     * @param  index the index of the tile
+     * @return       the tile */
+    Tile tile(int index) { return tiles[index]; }
+
+    /** Finish tile processing by updating and printing of progress percentage
+     * @param tile the finished tile */
+    void tileDone(Tile tile) {
+        pixels.add(tile.pixels());
+        if (!print) return;
+
+        int percentage = (int) (1000l * pixels.sum() / totalPixels);
+        int last       = lastPrinted.get();
+        // only the thread that moves the last printed percentage prints it
+        if (percentage - last >= printInterval && lastPrinted.compareAndSet(last, percentage))
+            System.out.printf(PRINT_FORMAT, percentage / 10d);
+    }
+
+    /** Amount of pixels that have been processed
+     * @return the sum of the counters of all the threads */
+    long pixelsDone() { return pixels.sum(); }
+
+    /** tiles function divides the image into tiles and sorts them
+     * @param  nX       the amount of pixel columns
+     * @param  nY       the amount of pixel rows
+     * @param  tileSize the width and height of a tile in pixels
+     * @param  order    the order of the tiles
+     * @return          the tiles in the order */
+    static Tile[] tiles(int nX, int nY, int tileSize, Camera.TileOrder order) {
+        int    columns = (nX + tileSize - 1) / tileSize;
+        int    rows    = (nY + tileSize - 1) / tileSize;
+        Tile[] tiles   = new Tile[columns * rows];
+        for (int row = 0; row < rows; ++row)
+            for (int column = 0; column < columns; ++column)
+                tiles[row * columns + column] = new Tile(column * tileSize, row * tileSize,
+                    Math.min((column + 1) * tileSize, nX), Math.min((row + 1) * tileSize, nY));
+
+        switch (order) {
+            case SCANLINE -> { }
+            case HILBERT -> {
+                int side = Integer.highestOneBit(Math.max(Math.max(columns, rows) - 1, 1)) << 1;
+                Arrays.sort(tiles, Comparator.comparingLong(
+                    tile -> hilbert(side, tile.x0() / tileSize, tile.y0() / tileSize)));
+            }
+            case SPIRAL -> {
+                // rings around the center of the image, every ring goes around clockwise
+                double cx = nX / 2d, cy = nY / 2d;
+                Arrays.sort(tiles, Comparator
+                    .comparingLong((Tile tile) -> Math.round(Math.max(
+                        Math.abs((tile.x0() + tile.x1()) / 2d - cx), Math.abs((tile.y0() + tile.y1()) / 2d - cy))
+                        / tileSize))
+                    .thenComparingDouble(tile -> Math.atan2((tile.y0() + tile.y1()) / 2d - cy,
+                        (tile.x0() + tile.x1()) / 2d - cx)));
+            }
+        }
+        return tiles;
+    }
+
+    /** hilbert function calculates the index of a cell along the Hilbert curve
+     * that fills a square grid
+     * @param  side the side of the grid - a power of two
+     * @param  x    the column of the cell
+     * @param  y    the row of the cell
+     * @return      the index along the curve */
+    static long hilbert(int side, int x, int y) {
+        long index = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+
+            // rotate the quadrant so the curve continues from the previous one
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return index;
+    }
+}
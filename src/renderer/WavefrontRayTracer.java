@@ -0,0 +1,211 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.*;
+import scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * WavefrontRayTracer class - a ray tracer that finds the same colors as {@link SimpleRayTracer}, but traces the
+ * reflected and refracted rays breadth first instead of by recursion.
+ * All the rays of a bounce are collected into a queue, sorted by direction, intersected together in packets
+ * (see {@link geometries.Intersectable#findClosestGeoIntersections(Ray[])}) and shaded together. Every ray carries
+ * its own k, and after the last bounce the colors are combined from the deepest rays back up to the camera rays
+ * in the order of the recursion, so the result is exactly the color of the recursive tracer.<br/>
+ * The queues belong to a single call, so the render threads share nothing but the scene
+ */
+public class WavefrontRayTracer extends SimpleRayTracer {
+
+    /** Amount of rays of a bounce that are intersected together as a packet */
+    private static final int PACKET_SIZE = 16;
+
+    /**
+     * PathRay class - a ray of the wavefront, with what's needed to combine its color into the color of its parent
+     */
+    private static final class PathRay {
+        /** The ray */
+        final Ray ray;
+        /** Recursion level of the ray (the camera rays are in the maximal level) */
+        final int level;
+        /** k of the ray - the product of the k of all the rays before it */
+        final Double3 k;
+        /** Scale of the color of the ray in the color of its parent (kT or kR of the parent's material) */
+        final Double3 kx;
+        /** Index of the parent ray, or -1 for a camera ray */
+        final int parent;
+        /** Whether the ray is the reflected ray of its parent (or the refracted ray) */
+        final boolean isReflected;
+
+        /** The intersection of the ray, null if it misses the scene */
+        GeoPoint gp;
+        /** The local effects at the intersection */
+        Color local;
+        /** The scaled color of the refracted ray */
+        Color refracted = Color.BLACK;
+        /** The scaled color of the reflected ray */
+        Color reflected = Color.BLACK;
+
+        /**
+         * PathRay Constructor
+         * @param ray the ray
+         * @param level recursion level of the ray
+         * @param k k of the ray
+         * @param kx scale of the color of the ray in the color of its parent
+         * @param parent index of the parent ray
+         * @param isReflected whether the ray is the reflected ray of its parent
+         */
+        PathRay(Ray ray, int level, Double3 k, Double3 kx, int parent, boolean isReflected) {
+            this.ray = ray;
+            this.level = level;
+            this.k = k;
+            this.kx = kx;
+            this.parent = parent;
+            this.isReflected = isReflected;
+        }
+    }
+
+    /**
+     * WavefrontRayTracer constructor to set the scene
+     * @param scene scene to set
+     */
+    public WavefrontRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    @Override
+    public Color traceRay(Ray ray) {
+        return traceRays(new Ray[] { ray })[0];
+    }
+
+    @Override
+    public Color[] traceRays(Ray[] rays) {
+        // every ray of every bounce, a parent always before its children
+        List<PathRay> paths = new ArrayList<>(rays.length * 2);
+        for (Ray ray : rays) {
+            paths.add(new PathRay(ray, MAX_CALC_COLOR_LEVEL, INITIAL_K, null, -1, false));
+        }
+
+        MutableVector n = new MutableVector();
+        MutableVector r = new MutableVector();
+        int start = 0;
+        while (start < paths.size()) {
+            int end = paths.size();
+            intersect(paths, start, end);
+
+            // shading of the bounce - and the rays of the next bounce, only the ones that have an effect
+            for (int index = start; index < end; index++) {
+                PathRay path = paths.get(index);
+                if (path.gp == null) continue;
+
+                path.local = calcLocalEffects(path.gp, path.ray, path.k);
+                if (path.level == 1) continue;
+
+                Material material = path.gp.geometry.getMaterial();
+                Double3 kkt = material.kT.product(path.k);
+                Double3 kkr = material.kR.product(path.k);
+                boolean refraction = !kkt.lowerThan(MIN_CALC_COLOR_K);
+                boolean reflection = !kkr.lowerThan(MIN_CALC_COLOR_K);
+                if (!refraction && !reflection) continue;
+
+                path.gp.geometry.getNormal(path.gp.point, n);
+                Ray refractedRay = refraction ? constructRefractedRay(path.gp.point, path.ray.direction, n, r) : null;
+                Ray reflectedRay = reflection ? constructReflectedRay(path.gp.point, path.ray.direction, n, r) : null;
+                if (refractedRay != null) {
+                    paths.add(new PathRay(refractedRay, path.level - 1, kkt, material.kT, index, false));
+                }
+                if (reflectedRay != null) {
+                    paths.add(new PathRay(reflectedRay, path.level - 1, kkr, material.kR, index, true));
+                }
+            }
+            start = end;
+        }
+
+        // the colors of the children are ready before their parents, as in the recursion
+        Color[] colors = new Color[rays.length];
+        for (int index = paths.size() - 1; index >= 0; index--) {
+            PathRay path = paths.get(index);
+            Color color = path.gp == null ? scene.background
+                    : path.level == 1 ? path.local
+                    : path.local.add(path.refracted.add(path.reflected));
+
+            if (path.parent < 0) {
+                colors[index] = path.gp == null ? color : color.add(scene.ambientLight.getIntensity());
+            } else if (path.isReflected) {
+                paths.get(path.parent).reflected = color.scale(path.kx);
+            } else {
+                paths.get(path.parent).refracted = color.scale(path.kx);
+            }
+        }
+        return colors;
+    }
+
+    /**
+     * intersect function finds the closest intersections of the rays of a bounce - the rays are sorted by
+     * direction and head, so the rays of a packet start near each other, go the same way and visit the same parts
+     * of the scene
+     * @param paths the rays of all the bounces
+     * @param start index of the first ray of the bounce
+     * @param end index after the last ray of the bounce
+     */
+    private void intersect(List<PathRay> paths, int start, int end) {
+        int size = end - start;
+
+        // the box of the heads of the bounce, that the heads are quantized in
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (int index = start; index < end; index++) {
+            Point head = paths.get(index).ray.head;
+            minX = Math.min(minX, head.getX());
+            minY = Math.min(minY, head.getY());
+            minZ = Math.min(minZ, head.getZ());
+            maxX = Math.max(maxX, head.getX());
+            maxY = Math.max(maxY, head.getY());
+            maxZ = Math.max(maxZ, head.getZ());
+        }
+        double scale = 255 / Math.max(Math.max(maxX - minX, maxY - minY), Math.max(maxZ - minZ, 1e-9));
+
+        // rays from a single point (like the camera rays of a pixel) stay in their order
+        boolean single = minX == maxX && minY == maxY && minZ == maxZ;
+        long[] order = new long[size];
+        for (int index = 0; index < size; index++) {
+            Ray ray = paths.get(start + index).ray;
+            order[index] = single ? index : sortKey(ray.direction, (int) ((ray.head.getX() - minX) * scale),
+                    (int) ((ray.head.getY() - minY) * scale), (int) ((ray.head.getZ() - minZ) * scale)) << 31 | index;
+        }
+        if (!single) Arrays.sort(order);
+
+        for (int first = 0; first < size; first += PACKET_SIZE) {
+            Ray[] packet = new Ray[Math.min(PACKET_SIZE, size - first)];
+            for (int k = 0; k < packet.length; k++) {
+                packet[k] = paths.get(start + (int) (order[first + k] & Integer.MAX_VALUE)).ray;
+            }
+
+            GeoPoint[] closest = scene.geometries.findClosestGeoIntersections(packet);
+            for (int k = 0; k < packet.length; k++) {
+                paths.get(start + (int) (order[first + k] & Integer.MAX_VALUE)).gp = closest[k];
+            }
+        }
+    }
+
+    /**
+     * sortKey function calculates the place of a ray in the order of the rays - by the octant of the direction,
+     * and inside an octant by the quantized head along a Z-order curve, so neighbors in the order start near each
+     * other and go the same way
+     * @param direction the direction of the ray
+     * @param x quantized x of the head (8 bits)
+     * @param y quantized y of the head (8 bits)
+     * @param z quantized z of the head (8 bits)
+     * @return the key (27 bits)
+     */
+    private static long sortKey(Vector direction, int x, int y, int z) {
+        long octant = (direction.getX() < 0 ? 4 : 0) | (direction.getY() < 0 ? 2 : 0) | (direction.getZ() < 0 ? 1 : 0);
+        long key = 0;
+        for (int bit = 7; bit >= 0; bit--) {
+            key = key << 3 | (x >> bit & 1) << 2 | (y >> bit & 1) << 1 | (z >> bit & 1);
+        }
+        return octant << 24 | key;
+    }
+}
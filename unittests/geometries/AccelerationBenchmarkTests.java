@@ -0,0 +1,323 @@
+package geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.Random;
+
+/**
+ * Benchmarks of the acceleration structures of Geometries - every benchmark checks that the
+ * structures find the same intersections and prints how many rays per second each one traces.
+ * They are heavy, so they run only when they are asked for (-Dbenchmarks=true)
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class AccelerationBenchmarkTests {
+
+    /** Amount of triangles in the benchmark scene */
+    private static final int TRIANGLES = 20000;
+
+    /** Amount of rays to trace in every measurement */
+    private static final int RAYS = 200000;
+
+    /**
+     * creates a scene of small triangles that are spread randomly in a cube, together with a floor plane
+     * @return the scene geometries
+     */
+    private static Intersectable[] triangleSoup() {
+        Random random = new Random(7);
+        Intersectable[] geometries = new Intersectable[TRIANGLES + 1];
+        geometries[0] = new Plane(new Point(0, -150, 0), new Vector(0, 1, 0));
+        for (int i = 1; i <= TRIANGLES; i++) {
+            Point p = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            geometries[i] = new Triangle(p,
+                    new Point(p.getX() + random.nextDouble(0.5, 3), p.getY(), p.getZ() + random.nextDouble(-1, 1)),
+                    new Point(p.getX(), p.getY() + random.nextDouble(0.5, 3), p.getZ() + random.nextDouble(-1, 1)));
+        }
+        return geometries;
+    }
+
+    /**
+     * creates a scene that's spread evenly - a floor of square tiles with a ball above every other tile,
+     * together with a back wall plane
+     * @return the scene geometries
+     */
+    private static Intersectable[] tiledFloor() {
+        int tiles = 60;
+        double size = 200d / tiles;
+        Intersectable[] geometries = new Intersectable[tiles * tiles * 3 / 2 + 1];
+        geometries[0] = new Plane(new Point(0, 0, -150), new Vector(0, 0, 1));
+        int i = 1;
+        for (int row = 0; row < tiles; row++) {
+            for (int column = 0; column < tiles; column++) {
+                double x = -100 + column * size, z = -100 + row * size;
+                geometries[i++] = new Polygon(new Point(x, -100, z), new Point(x, -100, z + size),
+                        new Point(x + size, -100, z + size), new Point(x + size, -100, z));
+                if ((row + column) % 2 == 0) {
+                    geometries[i++] = new Sphere(new Point(x + size / 2, -100 + size, z + size / 2), size / 3);
+                }
+            }
+        }
+        return geometries;
+    }
+
+    /**
+     * creates rays from random points around the scene towards random points inside the scene
+     * @param count amount of rays
+     * @return the rays
+     */
+    private static Ray[] rays(int count) {
+        Random random = new Random(11);
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; i++) {
+            Point head = new Point(random.nextDouble(-300, 300), random.nextDouble(-300, 300), 300);
+            Point target = new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100));
+            rays[i] = new Ray(head, target.subtract(head));
+        }
+        return rays;
+    }
+
+    /**
+     * measures how many rays per second a geometries object traces
+     * @param name name of the measurement to print
+     * @param geometries the geometries to trace the rays against
+     * @param rays the rays to trace
+     * @return amount of rays that intersected the geometries (so the work can't be optimized away)
+     */
+    private static int measure(String name, Geometries geometries, Ray[] rays) {
+        // warm up so the measurement doesn't include the build and the compilation
+        int hits = 0;
+        for (int i = 0; i < rays.length / 10; i++) {
+            if (geometries.findGeoIntersections(rays[i]) != null) hits++;
+        }
+
+        hits = 0;
+        long start = System.nanoTime();
+        for (Ray ray : rays) {
+            if (geometries.findGeoIntersections(ray) != null) hits++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-10s %,12.0f rays/sec%n", name, rays.length / seconds);
+        return hits;
+    }
+
+    /**
+     * measures how many closest hit queries per second a geometries object answers
+     * @param name name of the measurement to print
+     * @param geometries the geometries to trace the rays against
+     * @param rays the rays to trace
+     * @param lists true to find all the intersections and pick the closest, false for the closest hit search
+     * @return sum of the distances to the closest intersections (so the work can't be optimized away)
+     */
+    private static double measureClosest(String name, Geometries geometries, Ray[] rays, boolean lists) {
+        double sum = 0;
+        long start = 0;
+        // the first round warms up
+        for (int round = 0; round < 2; round++) {
+            sum = 0;
+            start = System.nanoTime();
+            for (Ray ray : rays) {
+                Intersectable.GeoPoint closest = lists
+                        ? ray.findClosestGeoPoint(geometries.findGeoIntersections(ray))
+                        : geometries.findClosestGeoIntersection(ray);
+                if (closest != null) sum += closest.point.distance(ray.head);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-10s %,12.0f rays/sec%n", name, rays.length / seconds);
+        return sum;
+    }
+
+    /**
+     * measures how many shadow rays per second a geometries object answers
+     * @param name name of the measurement to print
+     * @param geometries the geometries to trace the rays against
+     * @param rays the rays to trace
+     * @param lists true to multiply the transparencies of all the intersections, false for the search that stops early
+     * @return amount of blocked rays (so the work can't be optimized away)
+     */
+    private static int measureTransparency(String name, Geometries geometries, Ray[] rays, boolean lists) {
+        int blocked = 0;
+        long start = 0;
+        // the first round warms up
+        for (int round = 0; round < 2; round++) {
+            blocked = 0;
+            start = System.nanoTime();
+            for (Ray ray : rays) {
+                Double3 ktr;
+                if (lists) {
+                    ktr = Double3.ONE;
+                    var intersections = geometries.findGeoIntersections(ray);
+                    if (intersections != null) {
+                        for (var gp : intersections) ktr = ktr.product(gp.geometry.getMaterial().kT);
+                    }
+                    if (ktr.lowerThan(0.001)) ktr = Double3.ZERO;
+                } else {
+                    ktr = geometries.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001);
+                }
+                if (ktr == Double3.ZERO) blocked++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-10s %,12.0f rays/sec%n", name, rays.length / seconds);
+        return blocked;
+    }
+
+    /** Benchmark of the object graph hierarchy against the flat array hierarchy */
+    @Test
+    public void benchmarkFlatHierarchy() {
+        Intersectable[] soup = triangleSoup();
+        Geometries linear = new Geometries(soup);
+        Geometries bvh = new Geometries(soup).setAcceleration(Geometries.Acceleration.BVH);
+        Geometries flat = new Geometries(soup).setAcceleration(Geometries.Acceleration.FLAT_BVH);
+
+        // both hierarchies find exactly what the linear search finds
+        for (Ray ray : rays(500)) {
+            var expected = linear.findGeoIntersections(ray);
+            assertEquals(expected, bvh.findGeoIntersections(ray), "ERROR: wrong points in the hierarchy");
+            assertEquals(expected, flat.findGeoIntersections(ray), "ERROR: wrong points in the flat hierarchy");
+        }
+
+        Ray[] rays = rays(RAYS);
+        assertEquals(measure("BVH", bvh, rays), measure("FLAT_BVH", flat, rays), "ERROR: wrong amount of hits");
+    }
+
+    /** Benchmark of the uniform grid against the linear search over an evenly spread scene */
+    @Test
+    public void benchmarkUniformGrid() {
+        Intersectable[] floor = tiledFloor();
+        Geometries linear = new Geometries(floor);
+        Geometries grid = new Geometries(floor).setAcceleration(Geometries.Acceleration.GRID);
+
+        // the grid finds exactly what the linear search finds
+        Ray[] rays = rays(RAYS / 100);
+        for (Ray ray : rays) {
+            assertEquals(linear.findGeoIntersections(ray), grid.findGeoIntersections(ray), "ERROR: wrong points in the grid");
+        }
+
+        assertEquals(measure("NONE", linear, rays), measure("GRID", grid, rays), "ERROR: wrong amount of hits");
+        measure("GRID", grid, rays(RAYS));
+    }
+
+    /** Benchmark of refitting the hierarchy of an animated scene against building it again every frame */
+    @Test
+    public void benchmarkRefit() {
+        Random random = new Random(5);
+        Geometries ball = new Geometries(new Sphere(Point.ZERO, 1));
+        Instance[] instances = new Instance[TRIANGLES];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new Instance(ball, Transform.translation(
+                    random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100)));
+        }
+        Geometries refitted = new Geometries(instances).setAcceleration(Geometries.Acceleration.BVH).build();
+        Geometries rebuilt = new Geometries(instances).setAcceleration(Geometries.Acceleration.BVH).build();
+
+        // every frame a few of the balls fall a little
+        int frames = 20;
+        long refitTime = 0, buildTime = 0;
+        Ray[] rays = rays(500);
+        for (int frame = 0; frame < frames; frame++) {
+            for (int i = frame; i < instances.length; i += 50) {
+                instances[i].setTransform(instances[i].getTransform().then(Transform.translation(0, -0.5, 0)));
+            }
+
+            long start = System.nanoTime();
+            refitted.refit();
+            refitTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            rebuilt.build();
+            buildTime += System.nanoTime() - start;
+
+            for (Ray ray : rays) {
+                assertEquals(rebuilt.findGeoIntersections(ray), refitted.findGeoIntersections(ray),
+                        "ERROR: wrong points after a refit");
+            }
+        }
+
+        System.out.printf("%-10s %,12.2f ms/frame%n", "REFIT", refitTime / 1e6 / frames);
+        System.out.printf("%-10s %,12.2f ms/frame%n", "REBUILD", buildTime / 1e6 / frames);
+        System.out.printf("SAH cost   refitted %.2f, rebuilt %.2f%n",
+                refitted.getBvhStatistics().sahCost(), rebuilt.getBvhStatistics().sahCost());
+    }
+
+    /** Benchmark of building a big hierarchy with different amounts of threads */
+    @Test
+    public void benchmarkParallelBuild() {
+        Random random = new Random(13);
+        Intersectable[] spheres = new Intersectable[300000];
+        for (int i = 0; i < spheres.length; i++) {
+            spheres[i] = new Sphere(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100),
+                    random.nextDouble(-100, 100)), random.nextDouble(0.05, 0.5));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        BvhStatistics expected = null;
+        for (int threads : new int[] { 1, 2, 4, cores }) {
+            Geometries geometries = new Geometries(spheres).setAcceleration(Geometries.Acceleration.BVH)
+                    .setBuildThreads(threads);
+
+            // the first build warms up
+            geometries.build();
+            long start = System.nanoTime();
+            geometries.build();
+            System.out.printf("%-10s %,12.2f ms%n", threads + " threads", (System.nanoTime() - start) / 1e6);
+
+            if (expected == null) expected = geometries.getBvhStatistics();
+            assertEquals(expected, geometries.getBvhStatistics(), "ERROR: different tree with " + threads + " threads");
+        }
+    }
+
+    /** Benchmark of the closest hit search against picking the closest of all the intersections */
+    @Test
+    public void benchmarkClosestHit() {
+        Geometries flat = new Geometries(triangleSoup()).setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        Ray[] rays = rays(RAYS);
+
+        assertEquals(measureClosest("LISTS", flat, rays, true), measureClosest("CLOSEST", flat, rays, false), 1e-6,
+                "ERROR: different closest points");
+    }
+
+    /**
+     * Benchmark of the triangles of the leaves tested one by one against the vector test of all of them at once -
+     * the vector test is measured only with --add-modules jdk.incubator.vector, otherwise both are scalar
+     */
+    @Test
+    public void benchmarkVectorTriangles() {
+        Intersectable[] soup = triangleSoup();
+        Geometries scalar = new Geometries(soup).setAcceleration(Geometries.Acceleration.FLAT_BVH).setVectorized(false);
+        Geometries vectorized = new Geometries(soup).setAcceleration(Geometries.Acceleration.FLAT_BVH)
+                .setVectorized(true);
+        Ray[] rays = rays(RAYS);
+
+        System.out.println("vector API " + (PrimitiveBatch.VECTOR_API ? "available" : "not available"));
+        assertEquals(measureClosest("SCALAR", scalar, rays, false), measureClosest("VECTOR", vectorized, rays, false),
+                "ERROR: different closest points");
+    }
+
+    /** Benchmark of shadow rays - the product over all the intersections against the search that stops early */
+    @Test
+    public void benchmarkTransparency() {
+        Intersectable[] soup = triangleSoup();
+        for (int i = 0; i < soup.length; i++) {
+            ((Geometry) soup[i]).setMaterial(new Material().setKt(i % 4 == 0 ? 0 : 0.6));
+        }
+        Geometries flat = new Geometries(soup).setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        Ray[] rays = rays(RAYS);
+
+        assertEquals(measureTransparency("LISTS", flat, rays, true), measureTransparency("ANY HIT", flat, rays, false),
+                "ERROR: different blocked rays");
+    }
+}
@@ -0,0 +1,94 @@
+package geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/** Unit tests for BoundingBox and the bounding boxes of the geometries */
+public class BoundingBoxTests {
+
+    /** Test method for {@link geometries.BoundingBox#intersects(Ray, double)} */
+    @Test
+    void testIntersects() {
+        BoundingBox box = new BoundingBox(-1, -1, -1, 1, 1, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 ray goes through the box
+        assertTrue(box.intersects(new Ray(new Point(-5, 0.5, 0), new Vector(1, 0.1, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: ray should pass through the box");
+
+        //TC02 ray misses the box
+        assertFalse(box.intersects(new Ray(new Point(-5, 3, 0), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: ray should miss the box");
+
+        //TC03 box is behind the ray
+        assertFalse(box.intersects(new Ray(new Point(5, 0, 0), new Vector(1, 0, 0)), Double.POSITIVE_INFINITY),
+                "ERROR: box is behind the ray");
+
+        //TC04 ray starts inside the box
+        assertTrue(box.intersects(new Ray(Point.ZERO, new Vector(1, 1, 1)), Double.POSITIVE_INFINITY),
+                "ERROR: ray starts inside the box");
+
+        //TC05 box is after the max distance
+        assertFalse(box.intersects(new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0)), 3),
+                "ERROR: box is after the max distance");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 ray is parallel to a slab and outside of it
+        assertFalse(box.intersects(new Ray(new Point(0, 2, -5), new Vector(0, 0, 1)), Double.POSITIVE_INFINITY),
+                "ERROR: parallel ray should miss the box");
+
+        //TC12 ray is parallel to a slab and inside of it
+        assertTrue(box.intersects(new Ray(new Point(0, 0.5, -5), new Vector(0, 0, 1)), Double.POSITIVE_INFINITY),
+                "ERROR: parallel ray should pass through the box");
+    }
+
+    /** Test method for {@link geometries.Intersectable#getBoundingBox()} */
+    @Test
+    void testGetBoundingBox() {
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 sphere box is the center +- the radius
+        BoundingBox box = new Sphere(new Point(1, 2, 3), 2).getBoundingBox();
+        assertEquals(-1, box.minX, 1e-5, "ERROR: wrong sphere box");
+        assertEquals(5, box.maxZ, 1e-5, "ERROR: wrong sphere box");
+
+        //TC02 triangle box contains its vertices
+        box = new Triangle(new Point(0, 0, 0), new Point(2, 0, 0), new Point(0, 3, 1)).getBoundingBox();
+        assertEquals(2, box.maxX, 1e-5, "ERROR: wrong triangle box");
+        assertEquals(3, box.maxY, 1e-5, "ERROR: wrong triangle box");
+
+        //TC03 cylinder along the y axis
+        box = new Cylinder(new Ray(new Point(0, 1, 0), new Vector(0, 1, 0)), 1, 10).getBoundingBox();
+        assertEquals(1, box.minY, 1e-5, "ERROR: wrong cylinder box");
+        assertEquals(11, box.maxY, 1e-5, "ERROR: wrong cylinder box");
+        assertEquals(-1, box.minX, 1e-5, "ERROR: wrong cylinder box");
+
+        //TC04 geometries box contains all the geometries
+        box = new Geometries(new Sphere(new Point(0, 0, 0), 1), new Sphere(new Point(10, 0, 0), 1)).getBoundingBox();
+        assertEquals(-1, box.minX, 1e-5, "ERROR: wrong geometries box");
+        assertEquals(11, box.maxX, 1e-5, "ERROR: wrong geometries box");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 plane and tube are unbounded
+        assertNull(new Plane(Point.ZERO, new Vector(0, 0, 1)).getBoundingBox(), "ERROR: plane should be unbounded");
+        assertNull(new Tube(new Ray(Point.ZERO, new Vector(0, 0, 1)), 1).getBoundingBox(),
+                "ERROR: tube should be unbounded");
+
+        //TC12 geometries with an unbounded geometry is unbounded
+        assertNull(new Geometries(new Sphere(Point.ZERO, 1), new Plane(Point.ZERO, new Vector(0, 0, 1))).getBoundingBox(),
+                "ERROR: geometries with a plane should be unbounded");
+
+        //TC13 adding a geometry grows the box
+        Geometries geometries = new Geometries(new Sphere(Point.ZERO, 1));
+        assertEquals(1, geometries.getBoundingBox().maxX, 1e-5, "ERROR: wrong geometries box");
+        geometries.add(new Sphere(new Point(5, 0, 0), 1));
+        assertEquals(6, geometries.getBoundingBox().maxX, 1e-5, "ERROR: box should grow after adding");
+    }
+}
@@ -3,10 +3,17 @@ package geometries;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
 public class GeometriesTests {
 
     /** Test method for {@link geometries.Geometries#add(Intersectable...)} */
@@ -50,4 +57,627 @@ public class GeometriesTests {
         ray = new Ray(new Point(0,-1,0.5), new Vector(0,1,0));
         assertEquals(4, geometries.findIntersections(ray).size(), "ERROR: wrong amount of points");
     }
-}
\ No newline at end of file
+
+    /** Test method for {@link geometries.Geometries#setAcceleration(Geometries.Acceleration)} */
+    @Test
+    public void testFindIntersectionsBvh() {
+        Geometries linear = new Geometries();
+        Geometries bvh = new Geometries().setAcceleration(Geometries.Acceleration.BVH);
+
+        // a plane, a row of spheres and a row of triangles - enough geometries to build a few levels
+        Plane plane = new Plane(new Point(0, -5, 0), new Vector(0, 1, 0));
+        linear.add(plane);
+        bvh.add(plane);
+        for (int i = 0; i < 20; i++) {
+            Sphere sphere = new Sphere(new Point(i * 3, 0, 0), 1);
+            Triangle triangle = new Triangle(new Point(i * 3 - 1, 2, -1), new Point(i * 3 + 1, 2, -1), new Point(i * 3, 2, 1));
+            linear.add(sphere, triangle);
+            bvh.add(sphere, triangle);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 ray along the row goes through all the spheres
+        Ray ray = new Ray(new Point(-5, 0, 0), new Vector(1, 0, 0));
+        assertEquals(40, bvh.findGeoIntersections(ray).size(), "ERROR: wrong amount of points");
+        assertEquals(linear.findGeoIntersections(ray), bvh.findGeoIntersections(ray), "ERROR: wrong order of points");
+
+        //TC02 ray goes through a triangle, a sphere and the plane
+        ray = new Ray(new Point(30, 10, 0.1), new Vector(0, -1, 0));
+        assertEquals(linear.findGeoIntersections(ray), bvh.findGeoIntersections(ray), "ERROR: wrong points");
+
+        //TC03 max distance stops before the plane
+        assertEquals(linear.findGeoIntersections(ray, 11), bvh.findGeoIntersections(ray, 11), "ERROR: wrong points");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 ray misses all the bounded geometries
+        ray = new Ray(new Point(0, 10, 10), new Vector(1, 0, 0));
+        assertNull(bvh.findGeoIntersections(ray), "ERROR: intersect when shouldn't be");
+
+        //TC12 empty collection
+        assertNull(new Geometries().setAcceleration(Geometries.Acceleration.BVH).findGeoIntersections(ray),
+                "ERROR: intersect when shouldn't be");
+    }
+
+    /** Test method for {@link geometries.Geometries#setAcceleration(Geometries.Acceleration)} with a flat hierarchy */
+    @Test
+    public void testFindIntersectionsFlatBvh() {
+        // a random scene of the batched triangles and spheres, with polygons, cylinders and a plane between them
+        Random random = new Random(13);
+        Intersectable[] mix = new Intersectable[401];
+        mix[0] = new Plane(new Point(0, -20, 0), new Vector(0, 1, 0));
+        for (int i = 1; i < mix.length; i++) {
+            Point p = new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), random.nextDouble(-15, 15));
+            mix[i] = switch (i % 5) {
+                case 0 -> new Polygon(p, p.add(new Vector(2, 0, 0)), p.add(new Vector(2, 2, 0)), p.add(new Vector(0, 2, 0)));
+                case 1 -> new Cylinder(new Ray(p, new Vector(1, 1, 0)), 0.5, 2);
+                case 2, 3 -> new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5)));
+                default -> new Sphere(p, random.nextDouble(0.2, 2));
+            };
+        }
+        Geometries linear = new Geometries(mix);
+        Geometries flat = new Geometries(mix).setAcceleration(Geometries.Acceleration.FLAT_BVH);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the flat hierarchy finds the same closest point and the same list of points as the linear search
+        int hits = 0;
+        for (int i = 0; i < 500; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-30, 30), random.nextDouble(-30, 30), 40),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            var expected = linear.findClosestGeoIntersection(ray);
+            var closest = flat.findClosestGeoIntersection(ray);
+            assertEquals(expected, closest, "ERROR: wrong closest point");
+            if (expected != null) {
+                hits++;
+                assertEquals(expected.distance, closest.distance, "ERROR: wrong distance");
+                assertEquals(expected.u, closest.u, "ERROR: wrong barycentric coordinates");
+                assertEquals(expected.v, closest.v, "ERROR: wrong barycentric coordinates");
+            }
+            assertEquals(linear.findGeoIntersections(ray), flat.findGeoIntersections(ray), "ERROR: wrong points");
+        }
+        assertTrue(hits > 100, "ERROR: test rays should hit the scene");
+
+        //TC02 max distance that stops inside the scene
+        for (int i = 0; i < 100; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), 40), new Vector(0, 0, -1));
+            double maxDistance = random.nextDouble(25, 55);
+            assertEquals(linear.findClosestGeoIntersection(ray, maxDistance),
+                    flat.findClosestGeoIntersection(ray, maxDistance), "ERROR: wrong closest point in range");
+            assertEquals(linear.findGeoIntersections(ray, maxDistance), flat.findGeoIntersections(ray, maxDistance),
+                    "ERROR: wrong points in range");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 ray that misses all the bounded geometries finds only the plane
+        Ray ray = new Ray(new Point(100, 100, 100), new Vector(0, -1, 0));
+        assertEquals(linear.findGeoIntersections(ray), flat.findGeoIntersections(ray), "ERROR: only the plane");
+        assertSame(mix[0], flat.findClosestGeoIntersection(ray).geometry, "ERROR: only the plane");
+    }
+
+    /** Test method for {@link geometries.Geometries#setSplitStrategy(Geometries.SplitStrategy)} */
+    @Test
+    public void testSplitStrategies() {
+        // a plane, a big sphere and a dense cluster of small triangles
+        Geometries linear = new Geometries(
+                new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)),
+                new Sphere(new Point(-100, 0, 0), 40));
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                linear.add(new Triangle(new Point(i, j, 0), new Point(i + 1, j, 0), new Point(i, j + 1, 0)));
+            }
+        }
+
+        Ray[] rays = {
+                new Ray(new Point(2.2, 3.3, 10), new Vector(0, 0, -1)),
+                new Ray(new Point(-200, 0, 0), new Vector(1, 0.01, 0)),
+                new Ray(new Point(5, 100, 0.5), new Vector(0.01, -1, 0))
+        };
+
+        for (Geometries.SplitStrategy strategy : Geometries.SplitStrategy.values()) {
+            Geometries flat = new Geometries().setAcceleration(Geometries.Acceleration.BVH).setSplitStrategy(strategy);
+            flat.add(new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)), new Sphere(new Point(-100, 0, 0), 40));
+            for (int i = 0; i < 10; i++) {
+                for (int j = 0; j < 10; j++) {
+                    flat.add(new Triangle(new Point(i, j, 0), new Point(i + 1, j, 0), new Point(i, j + 1, 0)));
+                }
+            }
+
+            // ============ Equivalence Partitions Tests ==============
+            //TC01 every strategy finds the same intersections
+            for (Ray ray : rays) {
+                assertEquals(linear.findIntersections(ray), flat.findIntersections(ray),
+                        "ERROR: wrong points with " + strategy);
+            }
+
+            //TC02 statistics describe the whole tree
+            BvhStatistics statistics = flat.getBvhStatistics();
+            assertEquals(1, statistics.unboundedCount(), "ERROR: the plane should be outside the tree");
+            assertEquals(statistics.leafCount() * 2 - 1, statistics.nodeCount(), "ERROR: wrong amount of nodes");
+            assertEquals(101, Math.round(statistics.averageLeafSize() * statistics.leafCount()),
+                    "ERROR: wrong amount of geometries in the leaves with " + strategy);
+            assertTrue(statistics.sahCost() > 0, "ERROR: wrong SAH cost");
+        }
+
+        // =============== Boundary Values Tests ==================
+        //TC11 nested geometries is a single unbounded geometry (it contains a plane)
+        Geometries nested = new Geometries(linear).setAcceleration(Geometries.Acceleration.BVH);
+        assertEquals(0, nested.getBvhStatistics().nodeCount(), "ERROR: unbounded geometries should not be in the tree");
+
+        //TC12 no statistics without a hierarchy
+        assertNull(linear.getBvhStatistics(), "ERROR: statistics without a hierarchy");
+    }
+
+    /** Test method for {@link geometries.Geometries#setAcceleration(Geometries.Acceleration)} with a grid */
+    @Test
+    public void testFindIntersectionsGrid() {
+        // a plane and a grid of spheres with a triangle above every sphere
+        Plane plane = new Plane(new Point(0, -5, 0), new Vector(0, 1, 0));
+        Geometries linear = new Geometries(plane);
+        Geometries grid = new Geometries(plane).setAcceleration(Geometries.Acceleration.GRID);
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                Sphere sphere = new Sphere(new Point(i * 3, 0, j * 3), 1);
+                Triangle triangle = new Triangle(new Point(i * 3 - 1, 2, j * 3 - 1), new Point(i * 3 + 1, 2, j * 3 - 1),
+                        new Point(i * 3, 2, j * 3 + 1));
+                linear.add(sphere, triangle);
+                grid.add(sphere, triangle);
+            }
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 ray along a row goes through all its spheres
+        Ray ray = new Ray(new Point(-5, 0, 6), new Vector(1, 0, 0));
+        assertEquals(20, grid.findGeoIntersections(ray).size(), "ERROR: wrong amount of points");
+        assertEquals(linear.findGeoIntersections(ray), grid.findGeoIntersections(ray), "ERROR: wrong order of points");
+
+        //TC02 diagonal ray that crosses many cells
+        ray = new Ray(new Point(-5, 5, -5), new Vector(1, -0.1, 1));
+        assertEquals(linear.findGeoIntersections(ray), grid.findGeoIntersections(ray), "ERROR: wrong points");
+
+        //TC03 ray that starts inside the grid, with a max distance that stops before the plane
+        ray = new Ray(new Point(12, 10, 12.1), new Vector(0, -1, 0));
+        assertEquals(linear.findGeoIntersections(ray, 11), grid.findGeoIntersections(ray, 11), "ERROR: wrong points");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 ray misses all the bounded geometries
+        ray = new Ray(new Point(0, 10, 0), new Vector(1, 0, 0));
+        assertNull(grid.findGeoIntersections(ray), "ERROR: intersect when shouldn't be");
+
+        //TC12 only the plane
+        assertEquals(1, new Geometries(plane).setAcceleration(Geometries.Acceleration.GRID)
+                .findGeoIntersections(new Ray(Point.ZERO, new Vector(0, -1, 0))).size(), "ERROR: wrong amount of points");
+
+        //TC13 empty collection
+        assertNull(new Geometries().setAcceleration(Geometries.Acceleration.GRID).findGeoIntersections(ray),
+                "ERROR: intersect when shouldn't be");
+    }
+
+    /** Test method for {@link geometries.Geometries#refit()} */
+    @Test
+    public void testRefit() {
+        // a row of instances of a single sphere
+        Geometries sphere = new Geometries(new Sphere(Point.ZERO, 1));
+        Instance[] instances = new Instance[40];
+        Geometries geometries = new Geometries().setAcceleration(Geometries.Acceleration.BVH).setRebuildThreshold(1000);
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = new Instance(sphere, Transform.translation(i * 3, 0, 0));
+            geometries.add(instances[i]);
+        }
+        Ray ray = new Ray(new Point(30, 10, 0), new Vector(0, -1, 0));
+        assertEquals(2, geometries.findGeoIntersections(ray).size(), "ERROR: wrong amount of points");
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 moved instance is found in its new place after a refit
+        instances[10].setTransform(Transform.translation(new Vector(30, 0, 5)));
+        geometries.refit();
+        assertNull(geometries.findGeoIntersections(ray), "ERROR: instance should move away from the ray");
+        assertEquals(2, geometries.findGeoIntersections(new Ray(new Point(30, 10, 5), new Vector(0, -1, 0))).size(),
+                "ERROR: instance should be found in its new place");
+
+        //TC02 scattering the instances keeps the structure of the tree, so it gets more expensive than a new tree
+        int nodes = geometries.getBvhStatistics().nodeCount();
+        for (int i = 0; i < instances.length; i++) {
+            instances[i].setTransform(Transform.translation((i * 17) % 40 * 3, (i * 7) % 5 * 3, 0));
+        }
+        geometries.refit();
+        Geometries fresh = new Geometries(instances).setAcceleration(Geometries.Acceleration.BVH);
+        assertEquals(nodes, geometries.getBvhStatistics().nodeCount(), "ERROR: refit should keep the tree");
+        assertTrue(geometries.getBvhStatistics().sahCost() > fresh.getBvhStatistics().sahCost(),
+                "ERROR: scattered tree should be more expensive than a new tree");
+        ray = new Ray(new Point(-5, 3, 0), new Vector(1, 0, 0));
+        assertEquals(new Geometries(instances).findGeoIntersections(ray), geometries.findGeoIntersections(ray),
+                "ERROR: wrong points after a refit");
+
+        //TC03 a tree that passes the threshold is built again
+        geometries.setRebuildThreshold(1.5).refit();
+        assertEquals(fresh.getBvhStatistics(), geometries.getBvhStatistics(), "ERROR: tree should be built again");
+
+        //TC04 a single instance that moves far away spoils the tree, although the root box grows with it
+        instances[0].setTransform(Transform.translation(new Vector(100000, 0, 0)));
+        geometries.refit();
+        assertEquals(new Geometries(instances).setAcceleration(Geometries.Acceleration.BVH).getBvhStatistics(),
+                geometries.getBvhStatistics(), "ERROR: tree should be built again after a far move");
+        instances[0].setTransform(Transform.IDENTITY);
+        geometries.refit();
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 flat hierarchy and grid find the moved instance too
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            Geometries other = new Geometries(instances).setAcceleration(acceleration);
+            other.findGeoIntersections(ray);
+            instances[0].setTransform(Transform.translation(new Vector(0, 100, 0)));
+            other.refit();
+            assertEquals(2, other.findGeoIntersections(new Ray(new Point(0, 110, 0), new Vector(0, -1, 0))).size(),
+                    "ERROR: wrong points after a refit with " + acceleration);
+            instances[0].setTransform(Transform.IDENTITY);
+        }
+
+        //TC12 threshold below 1 is not allowed
+        assertThrows(IllegalArgumentException.class, () -> geometries.setRebuildThreshold(0.5),
+                "ERROR: threshold below 1 should throw an exception");
+    }
+
+    /** Test method for {@link geometries.Geometries#setBuildThreads(int)} */
+    @Test
+    public void testBuildThreads() {
+        // enough spheres to build subtrees and to bin the top nodes in parallel
+        Random random = new Random(3);
+        Intersectable[] spheres = new Intersectable[70000];
+        for (int i = 0; i < spheres.length; i++) {
+            spheres[i] = new Sphere(new Point(random.nextDouble(-100, 100), random.nextDouble(-100, 100),
+                    random.nextDouble(-100, 100)), random.nextDouble(0.1, 1));
+        }
+        List<Intersectable> list = List.of(spheres);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the tree is the same for any amount of threads
+        BoundingVolumeHierarchy sequential = new BoundingVolumeHierarchy(list, Geometries.SplitStrategy.SAH, null);
+        for (int threads : new int[] { 2, 4 }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            BoundingVolumeHierarchy parallel = new BoundingVolumeHierarchy(list, Geometries.SplitStrategy.SAH, pool);
+            pool.shutdown();
+            assertEquals(sequential.statistics, parallel.statistics, "ERROR: different tree with " + threads + " threads");
+            assertArrayEquals(sequential.indices, parallel.indices, "ERROR: different tree with " + threads + " threads");
+        }
+
+        //TC02 parallel build finds the same intersections
+        Geometries geometries = new Geometries(spheres).setAcceleration(Geometries.Acceleration.BVH).setBuildThreads(3);
+        Ray ray = new Ray(new Point(-150, 0, 0), new Vector(1, 0.1, 0.05));
+        assertEquals(new Geometries(spheres).findGeoIntersections(ray), geometries.findGeoIntersections(ray),
+                "ERROR: wrong points with a parallel build");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 negative amount of threads is not allowed
+        assertThrows(IllegalArgumentException.class, () -> geometries.setBuildThreads(-1),
+                "ERROR: negative amount of threads should throw an exception");
+    }
+
+    /** Test method for {@link geometries.Geometries#setVectorized(boolean)} */
+    @Test
+    public void testVectorized() {
+        // triangles that overlap each other and share edges, mixed with spheres in the same leaves
+        Random random = new Random(17);
+        Intersectable[] mix = new Intersectable[601];
+        mix[0] = new Plane(new Point(0, -20, 0), new Vector(0, 1, 0));
+        for (int i = 1; i < mix.length; i++) {
+            Point p = new Point(random.nextDouble(-10, 10), random.nextDouble(-10, 10), random.nextDouble(-10, 10));
+            mix[i] = i % 5 == 0
+                    ? new Sphere(p, random.nextDouble(0.2, 1))
+                    : i % 5 == 1 && mix[i - 1] instanceof Triangle previous
+                    ? new Triangle(previous.vertices.get(1), previous.vertices.get(2), p)
+                    : new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5)));
+        }
+
+        Geometries scalar = new Geometries(mix).setAcceleration(Geometries.Acceleration.FLAT_BVH).setVectorized(false);
+        Geometries vectorized = new Geometries(mix).setAcceleration(Geometries.Acceleration.FLAT_BVH)
+                .setVectorized(true);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the vector test of the triangles finds exactly the closest points of the scalar test
+        for (int i = 0; i < 500; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 30),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            assertSameClosest(scalar.findClosestGeoIntersection(ray), vectorized.findClosestGeoIntersection(ray));
+        }
+
+        //TC02 packets find exactly the closest points of the scalar test
+        for (int i = 0; i < 50; i++) {
+            Point head = new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 30);
+            Point target = new Point(random.nextDouble(-10, 10), random.nextDouble(-10, 10), 0);
+            Ray[] rays = packet(random, head, target, 2, 16);
+            var expected = scalar.findClosestGeoIntersections(rays);
+            var closest = vectorized.findClosestGeoIntersections(rays);
+            for (int k = 0; k < rays.length; k++) {
+                assertSameClosest(expected[k], closest[k]);
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 triangle at the max distance, and just after it
+        Triangle triangle = new Triangle(new Point(0, 0, -5), new Point(2, 0, -5), new Point(0, 2, -5));
+        Geometries single = new Geometries(triangle).setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        Ray ray = new Ray(new Point(0.5, 0.5, 0), new Vector(0, 0, -1));
+        assertEquals(5, single.findClosestGeoIntersection(ray, 5).distance, 1e-9,
+                "ERROR: triangle is at the max distance");
+        assertNull(single.findClosestGeoIntersection(ray, 4.9), "ERROR: triangle is after the max distance");
+
+        //TC12 ray through an edge that two triangles share
+        Geometries shared = new Geometries(triangle,
+                new Triangle(new Point(2, 0, -5), new Point(2, 2, -5), new Point(0, 2, -5)))
+                .setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        assertNull(shared.findClosestGeoIntersection(new Ray(new Point(1, 1, 0), new Vector(0, 0, -1))),
+                "ERROR: ray through the shared edge shouldn't intersect the triangles");
+    }
+
+    /**
+     * assertSameClosest function checks that two closest points are exactly the same - the geometry, the distance
+     * and the barycentric coordinates
+     * @param expected the closest point of the scalar test
+     * @param actual the closest point of the vector test
+     */
+    private static void assertSameClosest(Intersectable.GeoPoint expected, Intersectable.GeoPoint actual) {
+        assertEquals(expected, actual, "ERROR: wrong closest point");
+        if (expected != null) {
+            assertEquals(expected.distance, actual.distance, 0, "ERROR: wrong distance");
+            assertEquals(expected.u, actual.u, 0, "ERROR: wrong barycentric coordinate u");
+            assertEquals(expected.v, actual.v, 0, "ERROR: wrong barycentric coordinate v");
+        }
+    }
+
+    /** Test method for {@link geometries.Intersectable#findClosestGeoIntersection(Ray, double)} */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        // a mix of all the kinds of geometries, including overlapping ones
+        Random random = new Random(9);
+        Intersectable[] mix = new Intersectable[301];
+        mix[0] = new Plane(new Point(0, -20, 0), new Vector(0, 1, 0));
+        for (int i = 1; i < mix.length; i++) {
+            Point p = new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), random.nextDouble(-15, 15));
+            mix[i] = switch (i % 4) {
+                case 0 -> new Sphere(p, random.nextDouble(0.2, 2));
+                case 1 -> new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5)));
+                case 2 -> new Polygon(p, p.add(new Vector(2, 0, 0)), p.add(new Vector(2, 2, 0)), p.add(new Vector(0, 2, 0)));
+                default -> new Cylinder(new Ray(p, new Vector(0, 1, 1)), 0.5, 2);
+            };
+        }
+
+        Geometries linear = new Geometries(mix);
+        Geometries[] accelerated = new Geometries[Geometries.Acceleration.values().length];
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            accelerated[acceleration.ordinal()] = new Geometries(mix).setAcceleration(acceleration);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the closest intersection is the closest of all the intersections, for every acceleration
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-30, 30), random.nextDouble(-30, 30), 40),
+                    new Vector(random.nextDouble(-1, 1), random.nextDouble(-1, 1), -1));
+            var expected = ray.findClosestGeoPoint(linear.findGeoIntersections(ray));
+            for (Geometries geometries : accelerated) {
+                var closest = geometries.findClosestGeoIntersection(ray);
+                assertEquals(expected, closest, "ERROR: wrong closest point");
+                if (closest != null) {
+                    assertEquals(closest.point.distance(ray.head), closest.distance, 1e-9, "ERROR: wrong distance");
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 intersection after the max distance is not found
+        Ray ray = new Ray(new Point(0, 0, 0), new Vector(0, -1, 0));
+        assertNull(new Geometries(mix[0]).findClosestGeoIntersection(ray, 19), "ERROR: plane is after the max distance");
+        assertEquals(20, new Geometries(mix[0]).findClosestGeoIntersection(ray, 20).distance, 1e-9,
+                "ERROR: plane is at the max distance");
+
+        //TC12 ray that starts inside a sphere finds the far side
+        assertEquals(new Point(0, 0, 3), new Sphere(Point.ZERO, 3)
+                .findClosestGeoIntersection(new Ray(new Point(0, 0, 1), new Vector(0, 0, 1))).point,
+                "ERROR: wrong point from inside the sphere");
+
+        //TC13 shapes that the flat hierarchy tests on arrays - ray from the center of a sphere, and ray from a vertex
+        Geometries flat = new Geometries(new Sphere(Point.ZERO, 3),
+                new Triangle(new Point(0, 0, -5), new Point(2, 0, -5), new Point(0, 2, -5)))
+                .setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        var closest = flat.findClosestGeoIntersection(new Ray(Point.ZERO, new Vector(0, 0, -1)));
+        assertEquals(new Point(0, 0, -3), closest.point, "ERROR: wrong point from the center of the sphere");
+        assertEquals(3, closest.distance, 1e-9, "ERROR: wrong distance from the center of the sphere");
+        assertNull(flat.findClosestGeoIntersection(new Ray(new Point(0, 0, -5), new Vector(0, 0, -1))),
+                "ERROR: ray from a vertex shouldn't intersect the triangle");
+    }
+
+    /** Test method for {@link geometries.Intersectable#findTransparency(Ray, double, double)} */
+    @Test
+    public void testFindTransparency() {
+        // opaque, half transparent and almost transparent geometries
+        Random random = new Random(10);
+        double[] transparencies = { 0, 0.5, 0.9 };
+        Intersectable[] mix = new Intersectable[300];
+        for (int i = 0; i < mix.length; i++) {
+            Point p = new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), random.nextDouble(-15, 15));
+            Geometry geometry = i % 2 == 0
+                    ? new Sphere(p, random.nextDouble(0.2, 2))
+                    : new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5)));
+            mix[i] = geometry.setMaterial(new Material().setKt(transparencies[random.nextInt(3)]));
+        }
+
+        Geometries linear = new Geometries(mix);
+        Geometries[] accelerated = new Geometries[Geometries.Acceleration.values().length];
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            accelerated[acceleration.ordinal()] = new Geometries(mix).setAcceleration(acceleration);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the transparency is the product of the transparencies of all the intersections, for every acceleration
+        int blocked = 0;
+        for (int i = 0; i < 300; i++) {
+            Ray ray = new Ray(new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 20),
+                    new Vector(random.nextDouble(-0.5, 0.5), random.nextDouble(-0.5, 0.5), -1));
+            double maxDistance = random.nextDouble(10, 40);
+
+            Double3 expected = Double3.ONE;
+            var intersections = linear.findGeoIntersections(ray, maxDistance);
+            if (intersections != null) {
+                for (var gp : intersections) expected = expected.product(gp.geometry.getMaterial().kT);
+            }
+            if (expected.lowerThan(0.001)) {
+                expected = Double3.ZERO;
+                blocked++;
+            }
+
+            for (Geometries geometries : accelerated) {
+                assertEquals(expected, geometries.findTransparency(ray, maxDistance, 0.001),
+                        "ERROR: wrong transparency");
+            }
+        }
+        assertTrue(blocked > 0 && blocked < 300, "ERROR: test rays should be both blocked and not blocked");
+
+        //TC02 opaque geometry blocks the light
+        Geometries wall = new Geometries(new Sphere(new Point(0, 0, -5), 1).setMaterial(new Material().setKt(0.5)),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)));
+        Ray ray = new Ray(Point.ZERO, new Vector(0, 0, -1));
+        assertSame(Double3.ZERO, wall.findTransparency(ray, 20, 0.001), "ERROR: plane should block the light");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 geometries after the max distance don't block the light
+        assertEquals(new Double3(0.25), wall.findTransparency(ray, 9, 0.001), "ERROR: plane is after the max distance");
+
+        //TC12 transparency that falls below the threshold blocks the light
+        assertSame(Double3.ZERO, wall.findTransparency(ray, 9, 0.3), "ERROR: transparency is below the threshold");
+    }
+
+    /**
+     * creates a packet of rays from a point to a square around a target, like the rays of a pixel
+     * @param random the random generator
+     * @param head the head of the rays
+     * @param target the center of the square
+     * @param size the size of the square
+     * @param count amount of rays
+     * @return the packet
+     */
+    private static Ray[] packet(Random random, Point head, Point target, double size, int count) {
+        Ray[] rays = new Ray[count];
+        for (int k = 0; k < count; k++) {
+            rays[k] = new Ray(head, target.add(new Vector(random.nextDouble(-size, size),
+                    random.nextDouble(-size, size), 0.001)).subtract(head));
+        }
+        return rays;
+    }
+
+    /** Test method for {@link geometries.Intersectable#findClosestGeoIntersections(Ray[])} */
+    @Test
+    public void testFindClosestGeoIntersections() {
+        Random random = new Random(11);
+        Intersectable[] mix = new Intersectable[301];
+        mix[0] = new Plane(new Point(0, -20, 0), new Vector(0, 1, 0));
+        for (int i = 1; i < mix.length; i++) {
+            Point p = new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), random.nextDouble(-15, 15));
+            mix[i] = i % 2 == 0
+                    ? new Sphere(p, random.nextDouble(0.2, 2))
+                    : new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5)));
+        }
+
+        Geometries linear = new Geometries(mix);
+        Geometries[] accelerated = new Geometries[Geometries.Acceleration.values().length];
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            accelerated[acceleration.ordinal()] = new Geometries(mix).setAcceleration(acceleration);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 coherent packets find the closest intersection of every ray, for every acceleration
+        for (int i = 0; i < 100; i++) {
+            Point head = new Point(random.nextDouble(-30, 30), random.nextDouble(-30, 30), 40);
+            Point target = new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), 0);
+            Ray[] rays = packet(random, head, target, 3, 16);
+            for (Geometries geometries : accelerated) {
+                var closest = geometries.findClosestGeoIntersections(rays);
+                for (int k = 0; k < rays.length; k++) {
+                    assertEquals(linear.findClosestGeoIntersection(rays[k]), closest[k], "ERROR: wrong closest point");
+                }
+            }
+        }
+
+        //TC02 packet that diverges (rays in all directions) is searched ray by ray
+        Ray[] rays = packet(random, Point.ZERO, new Point(0, 0, -1), 20, 16);
+        for (Geometries geometries : accelerated) {
+            var closest = geometries.findClosestGeoIntersections(rays);
+            for (int k = 0; k < rays.length; k++) {
+                assertEquals(linear.findClosestGeoIntersection(rays[k]), closest[k], "ERROR: wrong closest point");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 single ray packet
+        Ray ray = new Ray(new Point(0, 0, 40), new Vector(0, 0, -1));
+        assertArrayEquals(new Object[] { linear.findClosestGeoIntersection(ray) },
+                accelerated[Geometries.Acceleration.FLAT_BVH.ordinal()].findClosestGeoIntersections(new Ray[] { ray }),
+                "ERROR: wrong closest point of a single ray");
+
+        //TC12 empty packet
+        assertEquals(0, linear.findClosestGeoIntersections(new Ray[0]).length, "ERROR: empty packet has no points");
+    }
+
+    /** Test method for {@link geometries.Intersectable#findTransparencies(Ray[], double, double)} */
+    @Test
+    public void testFindTransparencies() {
+        Random random = new Random(12);
+        double[] transparencies = { 0, 0.5, 0.9 };
+        Intersectable[] mix = new Intersectable[300];
+        for (int i = 0; i < mix.length; i++) {
+            Point p = new Point(random.nextDouble(-15, 15), random.nextDouble(-15, 15), random.nextDouble(-15, 15));
+            Geometry geometry = i % 2 == 0
+                    ? new Sphere(p, random.nextDouble(0.2, 2))
+                    : new Triangle(p, p.add(new Vector(2, 0, 0.5)), p.add(new Vector(0, 2, -0.5)));
+            mix[i] = geometry.setMaterial(new Material().setKt(transparencies[random.nextInt(3)]));
+        }
+
+        Geometries linear = new Geometries(mix);
+        Geometries[] accelerated = new Geometries[Geometries.Acceleration.values().length];
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            accelerated[acceleration.ordinal()] = new Geometries(mix).setAcceleration(acceleration);
+        }
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 shadow rays from a point to an area light find the transparency of every ray, for every acceleration
+        for (int i = 0; i < 100; i++) {
+            Point head = new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), -20);
+            Point light = new Point(random.nextDouble(-20, 20), random.nextDouble(-20, 20), 20);
+            Ray[] rays = packet(random, head, light, 2, 16);
+            double maxDistance = light.distance(head);
+            for (Geometries geometries : accelerated) {
+                Double3[] ktr = geometries.findTransparencies(rays, maxDistance, 0.001);
+                for (int k = 0; k < rays.length; k++) {
+                    assertEquals(linear.findTransparency(rays[k], maxDistance, 0.001), ktr[k],
+                            "ERROR: wrong transparency");
+                }
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 opaque geometry blocks the light of all the rays
+        Geometries wall = new Geometries(new Sphere(new Point(0, 0, -5), 1).setMaterial(new Material().setKt(0.5)),
+                new Plane(new Point(0, 0, -10), new Vector(0, 0, 1)))
+                .setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        for (Double3 ktr : wall.findTransparencies(packet(random, Point.ZERO, new Point(0, 0, -10), 0.5, 8), 20, 0.001)) {
+            assertSame(Double3.ZERO, ktr, "ERROR: plane should block the light");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
+import primitives.Vector;
+
+import java.util.List;
+
+/** Unit tests for Instance */
+public class InstanceTests {
+
+    /** Test method for {@link geometries.Instance#findGeoIntersections(Ray)} */
+    @Test
+    public void testFindIntersections() {
+        // a unit sphere that's moved and scaled is the same as a sphere that's placed there
+        Geometries mesh = new Geometries(new Sphere(Point.ZERO, 1));
+        Instance instance = new Instance(mesh,
+                Transform.scaling(2).then(Transform.translation(new Vector(5, 0, 0))));
+        Sphere placed = new Sphere(new Point(5, 0, 0), 2);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 ray goes through the instance
+        Ray ray = new Ray(new Point(0, 0.5, 0), new Vector(1, 0, 0));
+        List<Point> expected = placed.findIntersections(ray);
+        List<Point> result = instance.findIntersections(ray);
+        assertEquals(2, result.size(), "ERROR: wrong amount of points");
+        for (int i = 0; i < 2; i++) {
+            assertEquals(expected.get(i).getX(), result.get(i).getX(), 1e-10, "ERROR: wrong point");
+        }
+
+        //TC02 ray misses the instance
+        assertNull(instance.findGeoIntersections(new Ray(new Point(0, 3, 0), new Vector(1, 0, 0))),
+                "ERROR: intersect when shouldn't be");
+
+        //TC03 max distance is measured in the world space
+        assertEquals(1, instance.findGeoIntersections(ray, 6).size(), "ERROR: wrong amount of points in range");
+
+        //TC04 normals are in the world space
+        Intersectable.GeoPoint gp = instance.findGeoIntersections(ray).getFirst();
+        assertEquals(placed.getNormal(gp.point), gp.geometry.getNormal(gp.point), "ERROR: wrong normal");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 box of the instance is the transformed box
+        BoundingBox box = instance.getBoundingBox();
+        assertEquals(3, box.minX, 1e-5, "ERROR: wrong instance box");
+        assertEquals(7, box.maxX, 1e-5, "ERROR: wrong instance box");
+
+        //TC12 two instances of the same object under a hierarchy
+        Geometries scene = new Geometries(instance,
+                new Instance(mesh, Transform.translation(new Vector(-5, 0, 0))))
+                .setAcceleration(Geometries.Acceleration.BVH);
+        assertEquals(4, scene.findGeoIntersections(new Ray(new Point(-10, 0, 0), new Vector(1, 0, 0))).size(),
+                "ERROR: wrong amount of points through both instances");
+
+        //TC13 views of the same geometry are equal in an instance, and aren't equal in another instance
+        assertEquals(gp.geometry, instance.findGeoIntersections(ray).getFirst().geometry,
+                "ERROR: views of the same geometry should be equal");
+        assertEquals(gp.geometry.hashCode(), instance.findClosestGeoIntersection(ray).geometry.hashCode(),
+                "ERROR: views of the same geometry should have the same hash code");
+        assertNotEquals(gp.geometry, new Instance(mesh, instance.getTransform()).findGeoIntersections(ray)
+                .getFirst().geometry, "ERROR: views in different instances shouldn't be equal");
+    }
+}
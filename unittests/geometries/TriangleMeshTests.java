@@ -0,0 +1,202 @@
+package geometries;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Color;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/** Unit tests for TriangleMesh */
+class TriangleMeshTests {
+
+    private final double DELTA = 0.000001;
+
+    /**
+     * creates the triangles of a bumpy grid surface
+     * @return the triangles
+     */
+    private static Triangle[] grid() {
+        int size = 8;
+        Point[] points = new Point[(size + 1) * (size + 1)];
+        for (int i = 0; i <= size; i++) {
+            for (int j = 0; j <= size; j++) {
+                points[i * (size + 1) + j] = new Point(j * 10 - 40, i * 10 - 40, ((i * 7 + j * 3) % 5) * 2);
+            }
+        }
+
+        Triangle[] triangles = new Triangle[size * size * 2];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int p = i * (size + 1) + j;
+                triangles[(i * size + j) * 2] = new Triangle(points[p], points[p + 1], points[p + size + 2]);
+                triangles[(i * size + j) * 2 + 1] = new Triangle(points[p], points[p + size + 2], points[p + size + 1]);
+            }
+        }
+        return triangles;
+    }
+
+    /** Test method for {@link geometries.TriangleMesh#of(Triangle...)} */
+    @Test
+    void testOf() {
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the vertices of the grid are shared by the faces
+        TriangleMesh mesh = TriangleMesh.of(grid());
+        assertEquals(128, mesh.getFaceCount(), "ERROR: wrong amount of faces");
+        assertEquals(81, mesh.getVertexCount(), "ERROR: the vertices aren't shared");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 vertices that are only close to each other aren't shared, in any order of the faces
+        Point close = new Point(1e-13, 0, 0);
+        Triangle first = new Triangle(new Point(0, 0, 0), new Point(1, 0, 0), new Point(0, 1, 0));
+        Triangle second = new Triangle(close, new Point(0, -1, 0), new Point(1, 0, 0));
+        Triangle third = new Triangle(close, new Point(-1, 0, 0), new Point(0, -1, 0));
+        assertEquals(6, TriangleMesh.of(first, second, third).getVertexCount(),
+                "ERROR: wrong amount of vertices");
+        assertEquals(6, TriangleMesh.of(second, first, third).getVertexCount(),
+                "ERROR: the order of the faces changed the vertices");
+
+        //TC12 a negative zero is the same coordinate as a zero
+        Triangle negative = new Triangle(new Point(-0.0, 0, 0), new Point(0, -1, 0), new Point(1, 0, 0));
+        assertEquals(4, TriangleMesh.of(first, negative).getVertexCount(), "ERROR: the zero vertex isn't shared");
+    }
+
+    /** Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[], double[])} */
+    @Test
+    void testConstructor() {
+        double[] positions = { 0, 0, 0, 1, 0, 0, 0, 1, 0, 2, 0, 0 };
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 correct mesh
+        assertDoesNotThrow(() -> new TriangleMesh(positions, new int[] { 0, 1, 2 }), "ERROR: correct mesh throws");
+
+        //TC02 a face with a vertex that doesn't exist
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[] { 0, 1, 4 }),
+                "ERROR: a vertex that doesn't exist should throw");
+
+        //TC03 vertices of a face in the same line
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[] { 0, 1, 3 }),
+                "ERROR: a face in a line should throw");
+
+        //TC04 the mesh keeps its own copy of the buffers
+        double[] buffer = { 0, 0, 0, 1, 0, 0, 0, 1, 0 };
+        TriangleMesh copied = new TriangleMesh(buffer, new int[] { 0, 1, 2 });
+        buffer[0] = 5;
+        Ray down = new Ray(new Point(0.25, 0.25, 1), new Vector(0, 0, -1));
+        assertEquals(new Point(0.25, 0.25, 0), copied.findClosestGeoIntersection(down).point,
+                "ERROR: changing the caller's buffer changed the mesh");
+
+        //TC05 normals of only some of the vertices
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(positions, new int[] { 0, 1, 2 }, new double[] { 0, 0, 1 }),
+                "ERROR: normals of only some of the vertices should throw");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 faces that aren't triads
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(positions, new int[] { 0, 1 }),
+                "ERROR: faces that aren't triads should throw");
+
+        //TC12 empty mesh has no intersections and no box
+        TriangleMesh empty = new TriangleMesh(new double[0], new int[0]);
+        assertNull(empty.findIntersections(new Ray(new Point(0, 0, 1), new Vector(0, 0, -1))),
+                "ERROR: empty mesh has no intersections");
+        assertNull(empty.getBoundingBox(), "ERROR: empty mesh has no box");
+    }
+
+    /** Test method for {@link geometries.TriangleMesh#findGeoIntersections(Ray)} */
+    @Test
+    void testFindGeoIntersections() {
+        Triangle[] triangles = grid();
+        TriangleMesh mesh = TriangleMesh.of(triangles);
+        Geometries separate = new Geometries(triangles);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the mesh finds the points and the distances of the separate triangles
+        for (int i = 0; i < 30; i++) {
+            for (int j = 0; j < 30; j++) {
+                Ray ray = new Ray(new Point(-50 + j * 3.3, -50 + i * 3.3, 60), new Vector(0.1 * (j - 15), 0.2, -1));
+                GeoPoint expected = separate.findClosestGeoIntersection(ray);
+                GeoPoint closest = mesh.findClosestGeoIntersection(ray);
+                if (expected == null) {
+                    assertNull(closest, "ERROR: intersection where the triangles have none");
+                    assertNull(mesh.findGeoIntersections(ray), "ERROR: intersections where the triangles have none");
+                    continue;
+                }
+                assertEquals(expected.point, closest.point, "ERROR: wrong closest point");
+                assertEquals(expected.distance, closest.distance, "ERROR: wrong distance");
+                assertEquals(expected.geometry.getNormal(expected.point), closest.geometry.getNormal(closest.point),
+                        "ERROR: wrong normal of the face");
+                assertEquals(expected.u, closest.u, "ERROR: wrong barycentric coordinates");
+                assertEquals(expected.v, closest.v, "ERROR: wrong barycentric coordinates");
+                assertEquals(separate.findGeoIntersections(ray).size(), mesh.findGeoIntersections(ray).size(),
+                        "ERROR: wrong amount of intersections");
+            }
+        }
+
+        //TC02 the faces of the intersections have the material and the emission of the mesh
+        Material material = new Material().setKd(0.3).setKt(0.5);
+        mesh.setMaterial(material).setEmission(new Color(10, 20, 30));
+        Ray ray = new Ray(new Point(1, 2, 60), new Vector(0, 0, -1));
+        GeoPoint gp = mesh.findClosestGeoIntersection(ray);
+        assertSame(material, gp.geometry.getMaterial(), "ERROR: wrong material of the face");
+        assertEquals(new Color(10, 20, 30).toString(), gp.geometry.getEmission().toString(),
+                "ERROR: wrong emission of the face");
+        assertEquals(gp.geometry, mesh.findClosestGeoIntersection(ray).geometry,
+                "ERROR: views of the same face should be equal");
+
+        //TC03 the transparency of the mesh multiplies at every intersection
+        assertEquals(new Double3(0.5), mesh.findTransparency(ray, 100, 0.001), "ERROR: wrong transparency");
+        Geometry layers = new TriangleMesh(new double[] { 0, 0, 0, 4, 0, 0, 0, 4, 0, 0, 0, 5, 4, 0, 5, 0, 4, 5 },
+                new int[] { 0, 1, 2, 3, 4, 5 }).setMaterial(material);
+        Ray through = new Ray(new Point(1, 1, 10), new Vector(0, 0, -1));
+        assertEquals(new Double3(0.25), layers.findTransparency(through, 100, 0.001),
+                "ERROR: wrong transparency of two faces");
+        assertEquals(Double3.ZERO, layers.setMaterial(new Material()).findTransparency(through, 100, 0.001),
+                "ERROR: opaque mesh should block the light");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 the intersection is further than the max distance
+        assertNull(mesh.findGeoIntersections(ray, 10), "ERROR: intersection further than the max distance");
+        assertNull(mesh.findClosestGeoIntersection(new Ray(new Point(1, 2, 60), new Vector(0, 0, 1))),
+                "ERROR: ray that goes away from the mesh");
+    }
+
+    /** Test method for {@link geometries.TriangleMesh#getNormal(Point)} */
+    @Test
+    void testGetNormal() {
+        double[] positions = { 0, 0, 0, 2, 0, 0, 0, 2, 0 };
+        double[] normals = { 0, 0, 1, 1, 0, 0, 0, 1, 0 };
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 flat face
+        TriangleMesh flat = new TriangleMesh(positions, new int[] { 0, 1, 2 });
+        assertEquals(new Vector(0, 0, 1), flat.getNormal(new Point(0.5, 0.5, 0)), "ERROR: wrong normal of a flat face");
+
+        //TC02 the normals of the vertices are interpolated
+        TriangleMesh smooth = new TriangleMesh(positions, new int[] { 0, 1, 2 }, normals);
+        Vector normal = smooth.getNormal(new Point(0.5, 0.5, 0));
+        assertEquals(1, normal.length(), DELTA, "ERROR: normal is not a unit vector");
+        assertEquals(new Vector(1, 1, 2).normalize(), normal, "ERROR: wrong interpolated normal");
+
+        //TC03 point that isn't on the mesh
+        assertThrows(IllegalArgumentException.class, () -> flat.getNormal(new Point(3, 3, 0)),
+                "ERROR: point that isn't on the mesh should throw");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 normal at a vertex is the normal of the vertex
+        assertEquals(new Vector(1, 0, 0), smooth.getNormal(new Point(2, 0, 0)), "ERROR: wrong normal at a vertex");
+    }
+}
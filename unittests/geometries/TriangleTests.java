@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 
 import primitives.Point;
 import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 
 import java.util.List;
@@ -115,4 +116,40 @@ public class TriangleTests {
         assertNull(triangle.findGeoIntersections(new Ray(new Point(1,1,1), new Vector(-1,-1,-1)), 0.1),
                 "ERROR: bad intersect for max distance");
     }
+
+    /** Test method for the barycentric coordinates of {@link Triangle#findClosestGeoIntersection(Ray)} */
+    @Test
+    public void testBarycentrics() {
+        Point p1 = new Point(1, 0, 0), p2 = new Point(0, 2, 0), p3 = new Point(0, 0, 3);
+        Triangle triangle = new Triangle(p1, p2, p3);
+        Ray ray = new Ray(new Point(0.5, 0.5, 5), new Vector(0, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the point is (1 - u - v) * p1 + u * p2 + v * p3
+        Intersectable.GeoPoint gp = triangle.findClosestGeoIntersection(ray);
+        assertEquals(0.25, gp.u, DELTA, "ERROR: wrong weight of the second vertex");
+        assertEquals(0.25, gp.v, DELTA, "ERROR: wrong weight of the third vertex");
+        assertEquals(new Point(0.5, 0.5, 0.75), gp.point, "ERROR: wrong point");
+
+        //TC02 the hierarchies and the instances keep the coordinates of the triangle
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            Geometries geometries = new Geometries(triangle, new Sphere(new Point(10, 10, 10), 1))
+                    .setAcceleration(acceleration);
+            Intersectable.GeoPoint closest = geometries.findClosestGeoIntersection(ray);
+            assertEquals(gp.u, closest.u, DELTA, "ERROR: wrong u in " + acceleration);
+            assertEquals(gp.v, closest.v, DELTA, "ERROR: wrong v in " + acceleration);
+            closest = geometries.findClosestGeoIntersections(new Ray[] { ray, ray, ray, ray })[3];
+            assertEquals(gp.u, closest.u, DELTA, "ERROR: wrong u of a packet in " + acceleration);
+            assertEquals(gp.v, closest.v, DELTA, "ERROR: wrong v of a packet in " + acceleration);
+        }
+        Intersectable.GeoPoint moved = new Instance(triangle, Transform.translation(1, 2, 3))
+                .findClosestGeoIntersection(new Ray(new Point(1.5, 2.5, 8), new Vector(0, 0, -1)));
+        assertEquals(gp.u, moved.u, DELTA, "ERROR: wrong u of an instance");
+        assertEquals(gp.v, moved.v, DELTA, "ERROR: wrong v of an instance");
+
+        //TC03 other geometries have no barycentric coordinates
+        assertTrue(Double.isNaN(new Sphere(Point.ZERO, 1).findClosestGeoIntersection(ray).u),
+                "ERROR: sphere has no barycentric coordinates");
+    }
 }
@@ -0,0 +1,91 @@
+package primitives;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for MutableVector */
+class MutableVectorTests {
+
+    /**
+     * checks that a scratch vector has exactly the coordinates of an immutable vector
+     * @param expected the immutable vector
+     * @param actual the scratch vector
+     * @param message the message of a failure
+     */
+    private static void assertCoordinates(Vector expected, MutableVector actual, String message) {
+        assertArrayEquals(new double[] { expected.getX(), expected.getY(), expected.getZ() },
+                new double[] { actual.x, actual.y, actual.z }, message);
+    }
+
+    /** Test method for {@link primitives.MutableVector#subtract(Point, Point)} */
+    @Test
+    void testSubtract() {
+        Point p1 = new Point(1.1, 2.2, 3.3);
+        Point p2 = new Point(-0.7, 5.9, 1.3);
+        MutableVector scratch = new MutableVector().set(9, 9, 9);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01: the same coordinates as the immutable subtraction
+        assertCoordinates(p1.subtract(p2), scratch.subtract(p1, p2), "ERROR: wrong subtraction");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11: a scratch vector may be zero
+        assertEquals(0, scratch.subtract(p1, p1).lengthSquared(), "ERROR: subtraction from itself should be zero");
+    }
+
+    /** Test method for {@link primitives.MutableVector#addScaled(MutableVector, double)} */
+    @Test
+    void testAddScaled() {
+        Vector v1 = new Vector(0.3, -1.7, 2.9);
+        Vector v2 = new Vector(4.1, 0.6, -0.2);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01: the same coordinates as the immutable addition and scale
+        assertCoordinates(v1.add(v2.scale(-2.3)), new MutableVector().set(v1).addScaled(new MutableVector().set(v2), -2.3),
+                "ERROR: wrong scaled addition");
+
+        //TC02: the same coordinates as the immutable subtraction of a scaled vector
+        assertCoordinates(v1.subtract(v2.scale(1.9)), new MutableVector().set(v1).addScaled(new MutableVector().set(v2), -1.9),
+                "ERROR: wrong scaled subtraction");
+    }
+
+    /** Test method for {@link primitives.MutableVector#dotProduct(Vector)} */
+    @Test
+    void testDotProduct() {
+        Vector v1 = new Vector(0.3, -1.7, 2.9);
+        Vector v2 = new Vector(4.1, 0.6, -0.2);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01: the same result as the immutable dot product
+        assertEquals(v1.dotProduct(v2), new MutableVector().set(v1).dotProduct(v2), "ERROR: wrong dot product");
+        assertEquals(v1.dotProduct(v2), new MutableVector().set(v1).dotProduct(new MutableVector().set(v2)),
+                "ERROR: wrong dot product of scratch vectors");
+    }
+
+    /** Test method for {@link primitives.MutableVector#normalize()} */
+    @Test
+    void testNormalize() {
+        Vector v = new Vector(0.3, -1.7, 2.9);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01: the same coordinates as the immutable normalization
+        assertCoordinates(v.normalize(), new MutableVector().set(v).normalize(), "ERROR: wrong normalization");
+
+        //TC02: back to an immutable vector
+        assertEquals(v.normalize(), new MutableVector().set(v).normalize().toVector(), "ERROR: wrong vector");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11: zero vector can't be normalized or converted
+        assertThrows(IllegalArgumentException.class, () -> new MutableVector().normalize(),
+                "ERROR: zero vector normalization should throw");
+        assertThrows(IllegalArgumentException.class, () -> new MutableVector().toVector(),
+                "ERROR: zero vector conversion should throw");
+    }
+}
@@ -42,6 +42,30 @@ class RayTests {
 
 
 
+    /** Test method for {@link Ray#Ray(Point, MutableVector, MutableVector)}} */
+
+    @Test
+    public void testDeflectedConstructor() {
+        Point head = new Point(1, 2, 3);
+        Vector n = new Vector(0, 0, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 same ray as the immutable vectors, moved along the normal to the side of the direction
+        for (Vector direction : new Vector[] { new Vector(1, 2, 2), new Vector(1, 2, -2) }) {
+            Ray expected = new Ray(head, n, direction);
+            Ray ray = new Ray(head, new MutableVector().set(n), new MutableVector().set(direction));
+            assertEquals(expected, ray, "ERROR: scratch vectors should create the same ray");
+            assertEquals(expected.head.getZ(), ray.head.getZ(), "ERROR: head should be moved by the same delta");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 direction parallel to the surface doesn't move the head
+        assertEquals(head, new Ray(head, new MutableVector().set(n), new MutableVector().set(1, 1, 0)).head,
+                "ERROR: parallel direction shouldn't move the head");
+    }
+
     /** Test method for {@link Ray#getPoint(double)}} */
 
     @Test
@@ -0,0 +1,50 @@
+package primitives;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for Transform */
+class TransformTests {
+
+    /** Test method for {@link Transform#apply(Point)} and {@link Transform#applyInverse(Point)} */
+    @Test
+    void testApply() {
+        Transform transform = Transform.scaling(2)
+                .then(Transform.rotation(new Vector(0, 0, 1), Math.PI / 2))
+                .then(Transform.translation(new Vector(1, 2, 3)));
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 scale, then rotate around z, then move
+        assertEquals(new Point(1, 4, 3), transform.apply(new Point(1, 0, 0)), "ERROR: wrong transformed point");
+
+        //TC02 inverse brings the point back
+        assertEquals(new Point(1, 0, 0), transform.applyInverse(new Point(1, 4, 3)), "ERROR: wrong inverse point");
+
+        //TC03 vectors are not moved
+        assertEquals(new Vector(0, 2, 0), transform.applyVector(new Vector(1, 0, 0)), "ERROR: wrong transformed vector");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 identity doesn't change the point
+        assertEquals(new Point(1, 2, 3), Transform.IDENTITY.apply(new Point(1, 2, 3)), "ERROR: identity changed the point");
+
+        //TC12 zero scale can't be inverted
+        assertThrows(IllegalArgumentException.class, () -> Transform.scaling(1, 0, 1),
+                "ERROR: zero scale should throw an exception");
+    }
+
+    /** Test method for {@link Transform#applyNormal(Vector)} */
+    @Test
+    void testApplyNormal() {
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 normal of a plane that's stretched along x stays orthogonal to the plane
+        Transform transform = Transform.scaling(4, 1, 1);
+        Vector normal = transform.applyNormal(new Vector(1, 1, 0).normalize());
+        Vector surface = transform.applyVector(new Vector(1, -1, 0));
+        assertEquals(0, normal.dotProduct(surface), 1e-10, "ERROR: normal is not orthogonal to the surface");
+        assertEquals(1, normal.length(), 1e-10, "ERROR: normal is not normalized");
+    }
+}
@@ -1,6 +1,14 @@
 package renderer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -60,4 +68,315 @@ class CameraTest {
       assertEquals(new Ray(Point.ZERO, new Vector(2, -2, -10)),
                    camera2.constructRay(3, 3, 0, 0), badRay);
    }
-}
\ No newline at end of file
+
+   /**
+    * Test method for
+    * {@link renderer.Camera#renderImage()}.
+    */
+   @Test
+   void testRenderImage() {
+      final int nX = 37, nY = 23;
+
+      // ============ Equivalence Partitions Tests ==============
+      // EP01: every mode with every amount of threads traces every pixel exactly once
+      for (Camera.RenderMode mode : Camera.RenderMode.values()) {
+         for (int threads : new int[] { 0, -1, 3 }) {
+            AtomicInteger count = new AtomicInteger();
+            Set<Vector> directions = ConcurrentHashMap.newKeySet();
+            RayTracerBase tracer = new RayTracerBase(new Scene("Test")) {
+               @Override
+               public Color traceRay(Ray ray) {
+                  count.incrementAndGet();
+                  directions.add(ray.direction);
+                  return Color.BLACK;
+               }
+            };
+
+            cameraBuilder.setVpSize(8, 8).setRayTracer(tracer).setImageWriter(new ImageWriter("Test", nX, nY))
+               .setRenderMode(mode).setMultithreading(threads).setTileSize(5)
+               .build().renderImage();
+            assertEquals(nX * nY, count.get(), "Wrong amount of rays in " + mode + " with " + threads + " threads");
+            assertEquals(nX * nY, directions.size(), "Pixel traced twice in " + mode + " with " + threads + " threads");
+         }
+      }
+
+      // =============== Boundary Values Tests ==================
+      // BV01: virtual threads trace every tile in a task of its own, but only the amount of threads at the same time
+      Set<Thread> threads = ConcurrentHashMap.newKeySet();
+      AtomicInteger tracing = new AtomicInteger(), maxTracing = new AtomicInteger();
+      RayTracerBase tracer = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            threads.add(Thread.currentThread());
+            maxTracing.accumulateAndGet(tracing.incrementAndGet(), Math::max);
+            Thread.yield();
+            tracing.decrementAndGet();
+            return Color.BLACK;
+         }
+      };
+      cameraBuilder.setVpSize(8, 8).setRayTracer(tracer).setImageWriter(new ImageWriter("Test", nX, nY))
+         .setRenderMode(Camera.RenderMode.VIRTUAL_THREADS).setMultithreading(3).setTileSize(5)
+         .build().renderImage();
+      assertEquals(40, threads.size(), "Every tile should be traced in a virtual thread of its own");
+      assertTrue(maxTracing.get() <= 3, "Tiles traced at the same time " + maxTracing.get());
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera#constructRays(int, int, int, int)}.
+    */
+   @Test
+   void testConstructRaysConcurrently() throws InterruptedException {
+      // 4X4 pixels of size 2X2 on a view plane at distance 10, 5X5 rays per pixel
+      Camera camera = cameraBuilder.setVpSize(8, 8).setDensity(4).build();
+      List<String> errors = new ArrayList<>();
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < 4; ++t) {
+         threads.add(new Thread(() -> {
+            for (int k = 0; k < 2000; ++k) {
+               int i = k % 4, j = (k / 4) % 4;
+               Ray center = camera.constructRay(4, 4, j, i);
+               for (Ray ray : camera.constructRays(4, 4, j, i)) {
+                  // the ray and the center of the pixel on the view plane
+                  Vector d = ray.direction.scale(-10 / ray.direction.getZ());
+                  Vector c = center.direction.scale(-10 / center.direction.getZ());
+                  if (Math.abs(d.getX() - c.getX()) > 1.25 || Math.abs(d.getY() - c.getY()) > 1.25)
+                     synchronized (errors) { errors.add("(" + j + "," + i + ")"); }
+               }
+            }
+         }));
+      }
+      for (Thread thread : threads) thread.start();
+      for (Thread thread : threads) thread.join();
+
+      // ============ Equivalence Partitions Tests ==============
+      // EP01: threads that sample pixels at the same time get rays through their own pixels only
+      assertTrue(errors.isEmpty(), "Rays outside of pixels " + errors);
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera#getSavedRays()}.
+    */
+   @Test
+   void testSuperSamplingCache() {
+      final int nX = 5, nY = 4;
+      AtomicInteger count = new AtomicInteger();
+      Set<Vector> directions = ConcurrentHashMap.newKeySet();
+      RayTracerBase tracer = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            count.incrementAndGet();
+            directions.add(ray.direction);
+            // an edge in the middle of the image, so some of the pixels are split
+            return ray.direction.getX() > 0.01 ? new Color(255, 255, 255) : Color.BLACK;
+         }
+      };
+
+      // density 4 - super sampling of two levels, a lattice of 8X8 cells in every pixel
+      Camera camera = cameraBuilder.setVpSize(8, 8).setRayTracer(tracer).setImageWriter(new ImageWriter("Test", nX, nY))
+         .setDensity(4).setSuperSampling(true).setMultithreading(0).setTileSize(8)
+         .build();
+      camera.renderImage();
+
+      // ============ Equivalence Partitions Tests ==============
+      // EP01: every lattice point in a tile is traced once
+      assertEquals(count.get(), directions.size(), "Lattice point traced twice");
+      assertTrue(count.get() <= (nX * 8 + 1) * (nY * 8 + 1), "Too many traced rays");
+
+      // EP02: the points shared between areas and pixels are saved
+      assertTrue(camera.getSavedRays() > 0, "No rays were saved");
+
+      // =============== Boundary Values Tests ==================
+      // BV01: a uniform image isn't split - every pixel takes its 3X3 grid and its top left corner (10 samples),
+      // and only the (2 * nX + 1) X (2 * nY + 1) distinct points of the grids are traced
+      RayTracerBase uniform = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) { return new Color(100, 100, 100); }
+      };
+      camera = cameraBuilder.setRayTracer(uniform).build();
+      camera.renderImage();
+      assertEquals(10 * nX * nY - (2 * nX + 1) * (2 * nY + 1), camera.getSavedRays(), "Wrong amount of saved rays");
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera.Builder#setAdaptiveSampling(double)}.
+    */
+   @Test
+   void testAdaptiveSampling() {
+      final int nX = 6, nY = 5;
+      AtomicInteger count = new AtomicInteger();
+      RayTracerBase flat = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            count.incrementAndGet();
+            return new Color(100, 100, 100);
+         }
+      };
+      RayTracerBase noisy = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            // every other sample is white
+            return count.incrementAndGet() % 2 == 0 ? new Color(255, 255, 255) : Color.BLACK;
+         }
+      };
+      cameraBuilder.setVpSize(8, 8).setImageWriter(new ImageWriter("Test", nX, nY))
+         .setDensity(5).setAdaptiveSampling(1).setMultithreading(0).setTileSize(4);
+
+      // ============ Equivalence Partitions Tests ==============
+      // EP01: flat pixels stop after the minimal samples
+      cameraBuilder.setRayTracer(flat).build().renderImage();
+      assertEquals(4 * nX * nY, count.get(), "Flat pixels should take the minimal samples");
+
+      // EP02: noisy pixels take all the samples of the pattern
+      count.set(0);
+      cameraBuilder.setRayTracer(noisy).build().renderImage();
+      assertEquals(25 * nX * nY, count.get(), "Noisy pixels should take all the samples");
+
+      // EP03: the ray budget of the frame limits the noisy pixels
+      count.set(0);
+      cameraBuilder.setRayBudget(10 * nX * nY).build().renderImage();
+      assertTrue(count.get() <= 10 * nX * nY && count.get() >= 4 * nX * nY, "Ray budget is not kept " + count);
+
+      // EP04: the rays that the flat pixels don't need are taken by the noisy pixels in other tiles
+      RayTracerBase mixed = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            // the first column is noisy, the rest are flat
+            int k = count.incrementAndGet();
+            return ray.direction.getX() < 0.25 ? new Color(100, 100, 100)
+               : k % 2 == 0 ? new Color(255, 255, 255) : Color.BLACK;
+         }
+      };
+      count.set(0);
+      cameraBuilder.setRayTracer(mixed).setRayBudget(6 * nX * nY).build().renderImage();
+      assertEquals(6 * nX * nY, count.get(), "The whole ray budget should be used");
+      cameraBuilder.setRayTracer(noisy);
+
+      // =============== Boundary Values Tests ==================
+      // BV01: budget that's lower than the minimal samples still gives every pixel its minimal samples
+      count.set(0);
+      cameraBuilder.setRayBudget(1).build().renderImage();
+      assertEquals(4 * nX * nY, count.get(), "Every pixel should take the minimal samples");
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera.Builder#setProgressive(double, int)}.
+    */
+   @Test
+   void testProgressive() {
+      final int nX = 6, nY = 5;
+      AtomicInteger count = new AtomicInteger();
+      RayTracerBase tracer = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            count.incrementAndGet();
+            return Color.BLACK;
+         }
+      };
+      List<Integer> passes = new ArrayList<>();
+      cameraBuilder.setVpSize(8, 8).setRayTracer(tracer).setImageWriter(new ImageWriter("Test", nX, nY))
+         .setMultithreading(0).setTileSize(4).setPassListener(passes::add);
+
+      // ============ Equivalence Partitions Tests ==============
+      // EP01: passes until the maximum samples, every pass adds a sample to every pixel
+      cameraBuilder.setProgressive(100, 3).build().renderImage();
+      assertEquals(List.of(1, 2, 3), passes, "Wrong passes");
+      assertEquals(3 * nX * nY, count.get(), "Wrong amount of samples");
+
+      // EP02: cancellation stops the passes
+      count.set(0);
+      passes.clear();
+      Camera[] camera = new Camera[1];
+      camera[0] = cameraBuilder.setProgressive(100, 10).setPassListener(samples -> {
+         passes.add(samples);
+         if (samples == 2) camera[0].cancel();
+      }).build();
+      camera[0].renderImage();
+      assertEquals(List.of(1, 2), passes, "Passes should stop after cancellation");
+      assertEquals(2 * nX * nY, count.get(), "Wrong amount of samples after cancellation");
+
+      // EP03: the first pass samples the centers of the pixels with every pattern
+      Set<Vector> directions = ConcurrentHashMap.newKeySet();
+      RayTracerBase recorder = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            directions.add(ray.direction);
+            return Color.BLACK;
+         }
+      };
+      Set<Vector> centers = new HashSet<>();
+      Camera center = cameraBuilder.setProgressive(0, 1).build();
+      for (int i = 0; i < nY; i++) {
+         for (int j = 0; j < nX; j++) {
+            centers.add(center.constructRay(nX, nY, j, i).direction);
+         }
+      }
+      for (SamplePattern pattern : SamplePattern.values()) {
+         directions.clear();
+         cameraBuilder.setRayTracer(recorder).setSamplePattern(pattern).setPassListener(null)
+            .setProgressive(100, 1).build().renderImage();
+         assertEquals(centers, directions, "First pass should sample the centers with " + pattern);
+      }
+      cameraBuilder.setRayTracer(tracer).setSamplePattern(null);
+
+      // =============== Boundary Values Tests ==================
+      // BV01: time limit that passed already still renders the first pass
+      count.set(0);
+      passes.clear();
+      cameraBuilder.setPassListener(passes::add).setProgressive(1e-9, 50).build().renderImage();
+      assertEquals(List.of(1), passes, "Only the first pass should be rendered");
+      assertEquals(nX * nY, count.get(), "First pass should cover the image");
+
+      // BV02: cancellation just before the render stops it, and the next render is complete
+      count.set(0);
+      passes.clear();
+      Camera cancelled = cameraBuilder.setProgressive(100, 3).build();
+      cancelled.cancel();
+      cancelled.renderImage();
+      assertEquals(0, count.get(), "Render cancelled before it started should trace nothing");
+      cancelled.renderImage();
+      assertEquals(List.of(1, 2, 3), passes, "Render after a cancelled render should be complete");
+   }
+
+   /**
+    * Test method for
+    * {@link renderer.Camera.Builder#setRayPackets(boolean)}.
+    */
+   @Test
+   void testRayPackets() {
+      final int nX = 6, nY = 5;
+      AtomicInteger count = new AtomicInteger();
+      List<Integer> packets = new ArrayList<>();
+      RayTracerBase tracer = new RayTracerBase(new Scene("Test")) {
+         @Override
+         public Color traceRay(Ray ray) {
+            count.incrementAndGet();
+            return Color.BLACK;
+         }
+
+         @Override
+         public Color[] traceRays(Ray[] rays) {
+            packets.add(rays.length);
+            return super.traceRays(rays);
+         }
+      };
+      cameraBuilder.setVpSize(8, 8).setRayTracer(tracer).setImageWriter(new ImageWriter("Test", nX, nY))
+         .setDensity(3).setMultithreading(0);
+
+      // ============ Equivalence Partitions Tests ==============
+      // EP01: the rays of every pixel are traced as a single packet
+      cameraBuilder.setRayPackets(true).build().renderImage();
+      assertEquals(nX * nY, packets.size(), "Every pixel should be a single packet");
+      assertTrue(packets.stream().allMatch(size -> size > 1), "Packet should hold all the rays of a pixel");
+      assertEquals(packets.stream().mapToInt(Integer::intValue).sum(), count.get(), "Every ray should be in a packet");
+
+      // =============== Boundary Values Tests ==================
+      // BV01: without packets every ray is traced by itself
+      packets.clear();
+      cameraBuilder.setRayPackets(false).build().renderImage();
+      assertTrue(packets.isEmpty(), "Rays should be traced one by one");
+   }
+}
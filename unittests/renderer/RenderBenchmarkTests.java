@@ -0,0 +1,256 @@
+package renderer;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+
+import geometries.Geometries;
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import primitives.Color;
+import primitives.Material;
+import primitives.Point;
+import primitives.Vector;
+import scene.Scene;
+
+/**
+ * Benchmarks of the render modes of the camera - every benchmark renders the same scene in every mode
+ * and prints how long each one took.
+ * They are heavy, so they run only when they are asked for (-Dbenchmarks=true)
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+public class RenderBenchmarkTests {
+
+    /**
+     * creates a scene where the cost of the pixels is uneven - a cluster of reflective and transparent spheres
+     * in one corner of the image, and an opaque floor everywhere else
+     * @return the scene
+     */
+    private static Scene unevenScene() {
+        Scene scene = new Scene("Uneven scene");
+        Material glass = new Material().setKd(0.2).setKs(0.3).setShininess(50).setKr(0.5).setKt(0.4);
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 5; y++) {
+                scene.geometries.add(new Sphere(new Point(-80 + x * 14, 30 + y * 14, -100 - (x + y) * 6), 8)
+                        .setEmission(new Color(20, 20, 60)).setMaterial(glass));
+            }
+        }
+        scene.geometries.add(new Plane(new Point(0, -100, 0), new Vector(0, 1, 0))
+                .setEmission(new Color(40, 40, 40)).setMaterial(new Material().setKd(0.5)));
+        scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 200, 200)).setKl(0.0005));
+        return scene;
+    }
+
+    /**
+     * creates a camera of the uneven scene
+     * @return the camera builder
+     */
+    private static Camera.Builder unevenCamera() {
+        return Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(unevenScene()))
+                .setLocation(new Point(0, 0, 300)).setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(300).setVpSize(200, 200)
+                .setImageWriter(new ImageWriter("renderBenchmark", 400, 400));
+    }
+
+    /**
+     * measures how long a camera renders an image
+     * @param name name of the measurement to print
+     * @param camera the camera
+     * @return the duration in seconds
+     */
+    private static double measure(String name, Camera camera) {
+        // the first round warms up
+        camera.renderImage();
+        long start = System.nanoTime();
+        camera.renderImage();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%-10s %8.3f sec%n", name, seconds);
+        return seconds;
+    }
+
+    /** Benchmark of the thread per core loop against fork/join work stealing */
+    @Test
+    public void benchmarkForkJoin() {
+        Camera.Builder builder = unevenCamera().setMultithreading(-2);
+
+        measure("THREADS", builder.setRenderMode(Camera.RenderMode.THREADS).build());
+        measure("FORK_JOIN", builder.setRenderMode(Camera.RenderMode.FORK_JOIN).build());
+        builder.build().writeToImage();
+    }
+
+    /** Benchmark of the thread per core loop against a parallel stream of tiles */
+    @Test
+    public void benchmarkStream() {
+        Camera.Builder builder = unevenCamera();
+
+        measure("THREADS", builder.setMultithreading(-2).setRenderMode(Camera.RenderMode.THREADS).build());
+        measure("STREAM", builder.setRenderMode(Camera.RenderMode.STREAM).build());
+        measure("COMMON", builder.setMultithreading(-1).build());
+    }
+
+    /** Benchmark of the thread per core loop against virtual thread tasks */
+    @Test
+    public void benchmarkVirtualThreads() {
+        Camera.Builder builder = unevenCamera().setMultithreading(-2);
+
+        measure("THREADS", builder.setRenderMode(Camera.RenderMode.THREADS).build());
+        measure("VIRTUAL", builder.setRenderMode(Camera.RenderMode.VIRTUAL_THREADS).build());
+    }
+
+    /** Benchmark of anti-aliasing with many rays per pixel on all the cores */
+    @Test
+    public void benchmarkSupersampling() {
+        Camera.Builder builder = unevenCamera().setMultithreading(-2).setDensity(17)
+                .setImageWriter(new ImageWriter("renderBenchmarkSupersampling", 64, 64));
+
+        measure("DENSITY 17", builder.build());
+        builder.build().writeToImage();
+    }
+
+    /** Benchmark of creating the anti-aliasing rays - the jittered grid of the blackboard against a sample table */
+    @Test
+    public void benchmarkSamplePatterns() {
+        for (SamplePattern pattern : new SamplePattern[] { null, SamplePattern.SOBOL }) {
+            Camera camera = unevenCamera().setDensity(17).setSamplePattern(pattern).build();
+            int rays = 0;
+            long start = 0;
+            // the first round warms up
+            for (int round = 0; round < 2; round++) {
+                rays = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < 200; i++) {
+                    for (int j = 0; j < 200; j++) {
+                        rays += camera.constructRays(200, 200, j, i).size();
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-10s %,12.0f rays/sec%n", pattern == null ? "BLACKBOARD" : pattern, rays / seconds);
+        }
+    }
+
+    /** Benchmark of adaptive super sampling, that traces every point of the sub-pixel lattice once */
+    @Test
+    public void benchmarkAdaptiveSuperSampling() {
+        Camera.Builder builder = unevenCamera().setDensity(17).setSuperSampling(true)
+                .setImageWriter(new ImageWriter("renderBenchmarkSuperSampling", 40, 40));
+
+        Camera camera = builder.build();
+        measure("ADAPTIVE", camera);
+        System.out.printf("%-10s %,12d rays saved%n", "ADAPTIVE", camera.getSavedRays());
+        camera.writeToImage();
+    }
+
+    /** Benchmark of a fixed amount of samples in every pixel against variance driven adaptive sampling */
+    @Test
+    public void benchmarkAdaptiveSampling() {
+        Camera.Builder builder = unevenCamera().setDensity(17).setSamplePattern(SamplePattern.SOBOL)
+                .setImageWriter(new ImageWriter("renderBenchmarkAdaptive", 64, 64));
+
+        measure("FIXED", builder.build());
+        measure("ADAPTIVE", builder.setAdaptiveSampling(2).build());
+        builder.build().writeToImage();
+        measure("BUDGET", builder.setRayBudget(64 * 64 * 16).build());
+    }
+
+    /** Benchmark of progressive rendering - how many samples every pixel gets within a time limit */
+    @Test
+    public void benchmarkProgressive() {
+        long start = System.nanoTime();
+        Camera camera = unevenCamera().setMultithreading(-2).setProgressive(5, 256)
+                .setImageWriter(new ImageWriter("renderBenchmarkProgressive", 200, 200))
+                .setPassListener(samples -> System.out.printf("%-10s %3d samples %8.3f sec%n", "PASS", samples,
+                        (System.nanoTime() - start) / 1e9))
+                .build();
+        camera.renderImage();
+        camera.writeToImage();
+    }
+
+    /** Benchmark of the memory that is allocated while tracing a ray, on the thread that renders the image */
+    @Test
+    public void benchmarkAllocation() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().threadId();
+        Camera camera = unevenCamera().setImageWriter(new ImageWriter("renderBenchmarkAllocation", 200, 200)).build();
+
+        // the first round warms up
+        camera.renderImage();
+        long bytes = threads.getThreadAllocatedBytes(id);
+        long start = System.nanoTime();
+        camera.renderImage();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        bytes = threads.getThreadAllocatedBytes(id) - bytes;
+
+        System.out.printf("%-10s %,12.0f bytes/ray %,12.0f rays/sec%n", "ALLOCATION", bytes / (200 * 200d),
+                200 * 200 / seconds);
+    }
+
+    /**
+     * Benchmark of tracing the rays of every pixel one by one against packets of coherent rays, on the flat
+     * hierarchy - and of the soft shadow rays of every hit point one by one against a packet to the light
+     */
+    @Test
+    public void benchmarkRayPackets() {
+        Scene scene = unevenScene();
+        scene.geometries.setAcceleration(Geometries.Acceleration.FLAT_BVH);
+
+        for (int density : new int[] { 9, 17 }) {
+            Camera.Builder builder = unevenCamera().setRayTracer(new SimpleRayTracer(scene)).setDensity(density)
+                    .setSamplePattern(SamplePattern.SOBOL)
+                    .setImageWriter(new ImageWriter("renderBenchmarkPackets", 48, 48));
+            comparePackets("DENSITY " + density, builder);
+        }
+
+        Scene soft = unevenScene();
+        soft.geometries.setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        ((PointLight) soft.lights.getFirst()).setRadius(10);
+        comparePackets("SOFT", unevenCamera().setRayTracer(new SimpleRayTracer(soft).setUseSoftShadows(true))
+                .setImageWriter(new ImageWriter("renderBenchmarkPackets", 32, 32)));
+    }
+
+    /**
+     * Benchmark of the recursive tracer against the wavefront tracer, that traces every bounce of the reflected
+     * and refracted rays of a pixel together - on all the cores
+     */
+    @Test
+    public void benchmarkWavefront() {
+        Scene scene = unevenScene();
+        scene.geometries.setAcceleration(Geometries.Acceleration.FLAT_BVH);
+        Camera.Builder builder = unevenCamera().setMultithreading(-2).setDensity(9).setRayPackets(true)
+                .setSamplePattern(SamplePattern.SOBOL)
+                .setImageWriter(new ImageWriter("renderBenchmarkWavefront", 64, 64));
+
+        // the best of alternating rounds, so the order doesn't favor one of them
+        double recursive = Double.POSITIVE_INFINITY, wavefront = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < 3; round++) {
+            recursive = Math.min(recursive,
+                    measure("RECURSIVE", builder.setRayTracer(new SimpleRayTracer(scene)).build()));
+            wavefront = Math.min(wavefront,
+                    measure("WAVEFRONT", builder.setRayTracer(new WavefrontRayTracer(scene)).build()));
+        }
+        System.out.printf("%-10s %8.2fx%n", "WAVEFRONT", recursive / wavefront);
+        builder.build().writeToImage();
+    }
+
+    /**
+     * measures a camera with and without ray packets, in alternating rounds so the order doesn't favor one of them
+     * @param name name of the measurement to print
+     * @param builder the camera builder
+     */
+    private static void comparePackets(String name, Camera.Builder builder) {
+        double single = Double.POSITIVE_INFINITY, packets = Double.POSITIVE_INFINITY;
+        for (int round = 0; round < 3; round++) {
+            single = Math.min(single, measure("SINGLE", builder.setRayPackets(false).build()));
+            packets = Math.min(packets, measure("PACKETS", builder.setRayPackets(true).build()));
+        }
+        System.out.printf("%-10s %8.2fx%n", name, single / packets);
+    }
+}
@@ -0,0 +1,101 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.Scene;
+
+/** Unit tests for SamplePattern */
+class SamplePatternTests {
+
+    /**
+     * counts the samples in every cell of an equal grid over the pixel
+     * @param offsets the offsets of the samples
+     * @param cells amount of cells in every row and column
+     * @return the counters of the cells
+     */
+    private static int[] cells(double[] offsets, int cells) {
+        int[] counters = new int[cells * cells];
+        for (int k = 0; k < offsets.length; k += 2) {
+            ++counters[(int) ((offsets[k + 1] + 0.5) * cells) * cells + (int) ((offsets[k] + 0.5) * cells)];
+        }
+        return counters;
+    }
+
+    /** Test method for {@link renderer.SamplePattern#offsets(int)} */
+    @Test
+    void testOffsets() {
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 every pattern has density X density samples inside the pixel
+        for (SamplePattern pattern : SamplePattern.values()) {
+            double[] offsets = pattern.offsets(5);
+            assertEquals(50, offsets.length, "ERROR: wrong amount of samples in " + pattern);
+            for (double offset : offsets) {
+                assertTrue(offset >= -0.5 && offset < 0.5, "ERROR: sample outside of the pixel in " + pattern);
+            }
+        }
+
+        //TC02 stratified, jittered and Sobol patterns have a single sample in every cell
+        for (SamplePattern pattern : new SamplePattern[] { SamplePattern.STRATIFIED, SamplePattern.JITTERED,
+                SamplePattern.SOBOL }) {
+            for (int counter : cells(pattern.offsets(4), 4)) {
+                assertEquals(1, counter, "ERROR: cell should have a single sample in " + pattern);
+            }
+        }
+
+        //TC03 first samples of the low discrepancy sequences
+        assertArrayEquals(new double[] { -0.5, -0.5, 0, -1 / 6d, -0.25, 1 / 6d, 0.25, -7 / 18d },
+                SamplePattern.HALTON.offsets(2), 1e-12, "ERROR: wrong Halton samples");
+        assertArrayEquals(new double[] { -0.5, -0.5, 0, 0, -0.25, 0.25, 0.25, -0.25 },
+                SamplePattern.SOBOL.offsets(2), 1e-12, "ERROR: wrong Sobol samples");
+
+        //TC04 blue noise samples are far from each other
+        double[] offsets = SamplePattern.BLUE_NOISE.offsets(6);
+        for (int a = 0; a < offsets.length; a += 2) {
+            for (int b = a + 2; b < offsets.length; b += 2) {
+                assertTrue(Math.hypot(offsets[a] - offsets[b], offsets[a + 1] - offsets[b + 1]) > 0.5 / 6,
+                        "ERROR: blue noise samples are too close");
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 single sample is in the pixel
+        assertArrayEquals(new double[] { 0, 0 }, SamplePattern.STRATIFIED.offsets(1), 1e-12,
+                "ERROR: single sample should be in the center");
+
+        //TC12 density must be positive
+        assertThrows(IllegalArgumentException.class, () -> SamplePattern.HALTON.offsets(0),
+                "ERROR: zero density should throw");
+    }
+
+    /** Test method for {@link renderer.Camera#constructRays(int, int, int, int)} with a sample pattern */
+    @Test
+    void testConstructRays() {
+        // 3X3 pixels of size 2X2 on a view plane at distance 10
+        Camera camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(new Scene("Test")))
+                .setImageWriter(new ImageWriter("Test", 1, 1))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, -1, 0))
+                .setVpDistance(10).setVpSize(6, 6)
+                .setDensity(3).setSamplePattern(SamplePattern.STRATIFIED)
+                .build();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 rays go through the centers of the cells of the pixel
+        var rays = camera.constructRays(3, 3, 0, 0);
+        assertEquals(9, rays.size(), "ERROR: wrong amount of rays");
+        assertEquals(new Ray(Point.ZERO, new Vector(2 + 2 / 3d, -2 - 2 / 3d, -10)), rays.getFirst(),
+                "ERROR: wrong ray to the first cell");
+        assertEquals(new Ray(Point.ZERO, new Vector(2, -2, -10)), rays.get(4), "ERROR: wrong ray to the center cell");
+        assertEquals(new Ray(Point.ZERO, new Vector(4 / 3d, -4 / 3d, -10)), rays.getLast(),
+                "ERROR: wrong ray to the last cell");
+    }
+}
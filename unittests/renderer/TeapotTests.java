@@ -1,17 +1,27 @@
 package renderer;
 
 import static java.awt.Color.YELLOW;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 
+import geometries.Geometries;
+import geometries.Instance;
+import geometries.Intersectable;
 import geometries.Triangle;
+import geometries.TriangleMesh;
 import lighting.PointLight;
 import primitives.Color;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
+import primitives.Transform;
 import primitives.Vector;
 import renderer.Camera;
 import renderer.ImageWriter;
+import renderer.SamplePattern;
 import renderer.SimpleRayTracer;
 import scene.Scene;
 
@@ -571,7 +581,272 @@ public class TeapotTests {
      */
     @Test
     public void teapot() {
-        scene.geometries.add( //
+        scene.geometries.add(teapotTriangles());
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+
+        builder.setRayTracer(new SimpleRayTracer(scene)).build().renderImage();
+        builder.build().printGrid(50, new Color(YELLOW));
+        builder.build().writeToImage();
+    }
+
+    /**
+     * Produce the scene of the 3D model with a bounding volume hierarchy over its triangles and render it into
+     * a png image
+     */
+    @Test
+    public void teapotBvh() {
+        scene.geometries.add(teapotTriangles());
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+        scene.geometries.setAcceleration(Geometries.Acceleration.BVH);
+
+        builder.setImageWriter(new ImageWriter("teapot-bvh", 400, 400)).setDensity(1)
+                .setRayTracer(new SimpleRayTracer(scene)).build().renderImage().writeToImage();
+    }
+
+    /**
+     * Produce a scene with a crowd of teapots that share a single mesh and render it into a png image
+     * (only with -Dbenchmarks=true)
+     */
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void teapotCrowd() {
+        Geometries mesh = new Geometries(teapotTriangles()).setAcceleration(Geometries.Acceleration.BVH);
+        for (int row = 0; row < 6; row++) {
+            for (int column = 0; column < 6; column++) {
+                scene.geometries.add(new Instance(mesh, Transform.scaling(0.25)
+                        .then(Transform.rotation(new Vector(0, 1, 0), (row * 6 + column) * Math.PI / 18))
+                        .then(Transform.translation(new Vector(-80 + column * 32, -80 + row * 32, row * 40)))));
+            }
+        }
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+        scene.geometries.setAcceleration(Geometries.Acceleration.BVH);
+
+        builder.setImageWriter(new ImageWriter("teapot-crowd", 400, 400)).setDensity(1)
+                .setRayTracer(new SimpleRayTracer(scene)).build().renderImage().writeToImage();
+    }
+
+    /**
+     * Produce a sequence of frames of a single scene where the teapots of the crowd spin and the camera moves
+     * around them - the hierarchy is refitted between the frames instead of being built again
+     * (only with -Dbenchmarks=true)
+     */
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void teapotCrowdAnimation() {
+        Geometries mesh = new Geometries(teapotTriangles()).setAcceleration(Geometries.Acceleration.BVH);
+        Instance[] crowd = new Instance[16];
+        for (int i = 0; i < crowd.length; i++) {
+            crowd[i] = new Instance(mesh, Transform.IDENTITY);
+            scene.geometries.add(crowd[i]);
+        }
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+        scene.geometries.setAcceleration(Geometries.Acceleration.BVH);
+        builder.setRayTracer(new SimpleRayTracer(scene)).setDensity(1);
+
+        for (int frame = 0; frame < 4; frame++) {
+            for (int i = 0; i < crowd.length; i++) {
+                crowd[i].setTransform(Transform.scaling(0.3)
+                        .then(Transform.rotation(new Vector(0, 1, 0), (i + frame) * Math.PI / 8))
+                        .then(Transform.translation(-60 + i % 4 * 40, -60 + i / 4 * 40, 0)));
+            }
+            scene.geometries.refit();
+
+            double angle = Math.toRadians(frame * 5);
+            builder.transform(new Point(1000 * Math.sin(angle), 0, -1000 * Math.cos(angle)), Point.ZERO, 180)
+                    .setImageWriter(new ImageWriter("teapot-crowd-frame-" + frame, 200, 200))
+                    .build().renderImage().writeToImage();
+        }
+    }
+
+    /**
+     * Benchmark of the closest hit search of the camera rays through the teapot - the hierarchy of geometry objects
+     * against the flat hierarchy, that tests the triangles of its leaves on arrays (only with -Dbenchmarks=true)
+     */
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void teapotBenchmark() {
+        Camera camera = builder.setRayTracer(new SimpleRayTracer(scene)).setDensity(1).build();
+        int size = 400;
+        Ray[] rays = new Ray[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                rays[i * size + j] = camera.constructRays(size, size, j, i).getFirst();
+            }
+        }
+
+        Geometries.Acceleration[] accelerations = { Geometries.Acceleration.BVH, Geometries.Acceleration.FLAT_BVH };
+        Geometries[] meshes = new Geometries[accelerations.length];
+        double[] sums = new double[accelerations.length];
+        double[] best = new double[accelerations.length];
+        // the hierarchies take turns, so the compiled code is the same for all of them, and the fastest round counts
+        for (int round = 0; round < 6; round++) {
+            for (int k = 0; k < accelerations.length; k++) {
+                if (round == 0) meshes[k] = new Geometries(teapotTriangles()).setAcceleration(accelerations[k]).build();
+
+                double sum = 0;
+                long start = System.nanoTime();
+                for (Ray ray : rays) {
+                    Intersectable.GeoPoint closest = meshes[k].findClosestGeoIntersection(ray);
+                    if (closest != null) sum += closest.distance;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                sums[k] = sum;
+                if (round > 0 && (round == 1 || seconds < best[k])) best[k] = seconds;
+            }
+        }
+        for (int k = 0; k < accelerations.length; k++) {
+            System.out.printf("%-10s %,12.0f rays/sec%n", accelerations[k], rays.length / best[k]);
+        }
+
+        assertEquals(sums[0], sums[1], "ERROR: different closest points in the hierarchies");
+    }
+
+    /**
+     * Benchmark of the closest hit search of the anti-aliasing rays of the pixels through the teapot in the flat
+     * hierarchy - every ray by itself against the rays of every pixel as a packet (only with -Dbenchmarks=true)
+     */
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void teapotPacketBenchmark() {
+        Geometries mesh = new Geometries(teapotTriangles()).setAcceleration(Geometries.Acceleration.FLAT_BVH).build();
+        int size = 64;
+        for (int density : new int[] { 9, 17 }) {
+            Camera camera = builder.setRayTracer(new SimpleRayTracer(scene)).setDensity(density)
+                    .setSamplePattern(SamplePattern.SOBOL).build();
+            Ray[][] pixels = new Ray[size * size][];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    pixels[i * size + j] = camera.constructRays(size, size, j, i).toArray(new Ray[0]);
+                }
+            }
+
+            double[] sums = new double[2];
+            double[] best = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+            // single rays and packets take turns, and the fastest round counts
+            for (int round = 0; round < 6; round++) {
+                for (int k = 0; k < 2; k++) {
+                    double sum = 0;
+                    long start = System.nanoTime();
+                    for (Ray[] rays : pixels) {
+                        if (k == 0) {
+                            for (Ray ray : rays) {
+                                Intersectable.GeoPoint closest = mesh.findClosestGeoIntersection(ray);
+                                if (closest != null) sum += closest.distance;
+                            }
+                        } else {
+                            for (Intersectable.GeoPoint closest : mesh.findClosestGeoIntersections(rays)) {
+                                if (closest != null) sum += closest.distance;
+                            }
+                        }
+                    }
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    sums[k] = sum;
+                    if (round > 0) best[k] = Math.min(best[k], seconds);
+                }
+            }
+            System.out.printf("%-10s %,12.0f rays/sec SINGLE %,12.0f rays/sec PACKETS%n", "DENSITY " + density,
+                    pixels.length * density * density / best[0], pixels.length * density * density / best[1]);
+
+            assertEquals(sums[0], sums[1], "ERROR: different closest points in packets");
+        }
+    }
+
+    /**
+     * Produce a scene with the teapot as a single mesh of shared vertices and render it into a png image -
+     * the mesh finds the same intersections and normals as the separate triangles
+     */
+    @Test
+    public void teapotMesh() {
+        scene.geometries.add(teapotTriangleMesh().setEmission(color).setMaterial(mat));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
+
+        builder.setImageWriter(new ImageWriter("teapot-mesh", 400, 400)).setDensity(1)
+                .setRayTracer(new SimpleRayTracer(scene)).build().renderImage().writeToImage();
+    }
+
+    /**
+     * Benchmark of the memory and the closest hit search of the teapot - the separate triangles in the flat
+     * hierarchy against a single mesh of shared vertices (only with -Dbenchmarks=true)
+     */
+    @Test
+    @Tag("benchmark")
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    public void teapotMeshBenchmark() {
+        // the memory of many copies, so the size of a copy is above the noise of the heap
+        int copies = 200;
+        Runtime runtime = Runtime.getRuntime();
+        Intersectable[][] models = new Intersectable[2][copies];
+        long[] bytes = new long[2];
+        for (int k = 0; k < 2; k++) {
+            System.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            for (int copy = 0; copy < copies; copy++) {
+                models[k][copy] = k == 0
+                        ? new Geometries(teapotTriangles()).setAcceleration(Geometries.Acceleration.FLAT_BVH).build()
+                        : teapotTriangleMesh();
+            }
+            System.gc();
+            bytes[k] = (runtime.totalMemory() - runtime.freeMemory() - before) / copies;
+        }
+
+        Camera camera = builder.setRayTracer(new SimpleRayTracer(scene)).setDensity(1).build();
+        int size = 400;
+        Ray[] rays = new Ray[size * size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                rays[i * size + j] = camera.constructRays(size, size, j, i).getFirst();
+            }
+        }
+
+        double[] sums = new double[2];
+        double[] best = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        // the models take turns, and the fastest round counts
+        for (int round = 0; round < 6; round++) {
+            for (int k = 0; k < 2; k++) {
+                double sum = 0;
+                long start = System.nanoTime();
+                for (Ray ray : rays) {
+                    Intersectable.GeoPoint closest = models[k][0].findClosestGeoIntersection(ray);
+                    if (closest != null) sum += closest.distance;
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                sums[k] = sum;
+                if (round > 0) best[k] = Math.min(best[k], seconds);
+            }
+        }
+        int faces = teapotTriangles().length;
+        String[] names = { "TRIANGLES", "MESH" };
+        for (int k = 0; k < 2; k++) {
+            System.out.printf("%-10s %,8d bytes/triangle %,12.0f rays/sec%n", names[k], bytes[k] / faces,
+                    rays.length / best[k]);
+        }
+
+        assertEquals(sums[0], sums[1], "ERROR: different closest points in the mesh");
+    }
+
+    /**
+     * teapotTriangleMesh function creates the teapot model as a single mesh of shared vertices
+     * @return the mesh of the teapot
+     */
+    private static TriangleMesh teapotTriangleMesh() {
+        Intersectable[] geometries = teapotTriangles();
+        Triangle[] triangles = new Triangle[geometries.length];
+        for (int i = 0; i < geometries.length; i++) {
+            triangles[i] = (Triangle) geometries[i];
+        }
+        return TriangleMesh.of(triangles);
+    }
+
+    /**
+     * teapotTriangles function creates the triangles of the teapot model
+     * @return the triangles of the teapot
+     */
+    private static Intersectable[] teapotTriangles() {
+        return new Intersectable[] { //
                 new Triangle(pnts[7], pnts[6], pnts[1]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[1], pnts[2], pnts[7]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[8], pnts[7], pnts[2]).setEmission(color).setMaterial(mat), //
@@ -1564,11 +1839,6 @@ public class TeapotTests {
                 new Triangle(pnts[528], pnts[529], pnts[469]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[470], pnts[469], pnts[529]).setEmission(color).setMaterial(mat), //
                 new Triangle(pnts[529], pnts[530], pnts[470]).setEmission(color).setMaterial(mat) //
-        );
-        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 0, -100)).setKq(0.000001));
-
-        builder.setRayTracer(new SimpleRayTracer(scene)).build().renderImage();
-        builder.build().printGrid(50, new Color(YELLOW));
-        builder.build().writeToImage();
+        };
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Unit tests for TileScheduler */
+class TileSchedulerTests {
+
+    /**
+     * counts how many times every pixel is covered by the tiles
+     * @param tiles the tiles
+     * @param nX the amount of pixel columns
+     * @param nY the amount of pixel rows
+     * @return the counters of the pixels
+     */
+    private static int[][] coverage(TileScheduler.Tile[] tiles, int nX, int nY) {
+        int[][] counters = new int[nX][nY];
+        for (TileScheduler.Tile tile : tiles)
+            for (int i = tile.x0(); i < tile.x1(); ++i)
+                for (int j = tile.y0(); j < tile.y1(); ++j)
+                    ++counters[i][j];
+        return counters;
+    }
+
+    /** Test method for {@link renderer.TileScheduler#tiles(int, int, int, Camera.TileOrder)} */
+    @Test
+    void testTiles() {
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 every order covers every pixel exactly once, including partial tiles at the borders
+        for (Camera.TileOrder order : Camera.TileOrder.values()) {
+            for (int[] counters : coverage(TileScheduler.tiles(37, 21, 8, order), 37, 21))
+                for (int counter : counters)
+                    assertEquals(1, counter, "ERROR: pixel should be covered once in " + order);
+        }
+
+        //TC02 tiles that follow each other along the Hilbert curve are neighbors
+        TileScheduler.Tile[] tiles = TileScheduler.tiles(64, 64, 8, Camera.TileOrder.HILBERT);
+        for (int k = 1; k < tiles.length; ++k) {
+            int distance = Math.abs(tiles[k].x0() - tiles[k - 1].x0()) + Math.abs(tiles[k].y0() - tiles[k - 1].y0());
+            assertEquals(8, distance, "ERROR: consecutive Hilbert tiles should be neighbors");
+        }
+
+        //TC03 the spiral starts at the center of the image and the rings grow
+        tiles = TileScheduler.tiles(45, 45, 5, Camera.TileOrder.SPIRAL);
+        assertEquals(new TileScheduler.Tile(20, 20, 25, 25), tiles[0], "ERROR: spiral should start at the center");
+        for (int k = 1; k < 9; ++k) {
+            assertTrue(Math.abs(tiles[k].x0() - 20) <= 5 && Math.abs(tiles[k].y0() - 20) <= 5,
+                    "ERROR: first ring should surround the center");
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 tile that is larger than the image
+        tiles = TileScheduler.tiles(3, 2, 16, Camera.TileOrder.HILBERT);
+        assertArrayEquals(new TileScheduler.Tile[] { new TileScheduler.Tile(0, 0, 3, 2) }, tiles,
+                "ERROR: whole image should be a single tile");
+    }
+
+    /** Test method for {@link renderer.TileScheduler#nextTile()} */
+    @Test
+    void testNextTile() throws InterruptedException {
+        TileScheduler scheduler = new TileScheduler(100, 70, 4, Camera.TileOrder.SPIRAL, 0);
+        List<List<TileScheduler.Tile>> taken = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int k = 0; k < 4; ++k) {
+            List<TileScheduler.Tile> tiles = new ArrayList<>();
+            taken.add(tiles);
+            threads.add(new Thread(() -> {
+                TileScheduler.Tile tile;
+                while ((tile = scheduler.nextTile()) != null) {
+                    tiles.add(tile);
+                    scheduler.tileDone(tile);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 threads that take tiles at the same time render every pixel exactly once
+        TileScheduler.Tile[] all = taken.stream().flatMap(List::stream).toArray(TileScheduler.Tile[]::new);
+        for (int[] counters : coverage(all, 100, 70))
+            for (int counter : counters)
+                assertEquals(1, counter, "ERROR: pixel should be rendered once");
+
+        //TC02 the progress counters of all the threads are merged
+        assertEquals(7000, scheduler.pixelsDone(), "ERROR: wrong amount of rendered pixels");
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 no more tiles after the image is done
+        assertNull(scheduler.nextTile(), "ERROR: no tiles should be left");
+    }
+}
@@ -0,0 +1,87 @@
+package renderer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import geometries.Geometries;
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.Triangle;
+import lighting.AmbientLight;
+import lighting.PointLight;
+import lighting.SpotLight;
+import primitives.*;
+import scene.Scene;
+
+/** Unit tests for WavefrontRayTracer */
+class WavefrontRayTracerTests {
+
+    /**
+     * creates a scene of reflective and transparent spheres in front of a mirror, on a floor
+     * @param acceleration the acceleration of the geometries of the scene
+     * @return the scene
+     */
+    private static Scene glassScene(Geometries.Acceleration acceleration) {
+        Scene scene = new Scene("Glass scene").setBackground(new Color(10, 20, 30));
+        Material glass = new Material().setKd(0.2).setKs(0.5).setShininess(60).setKt(0.6).setKr(0.2);
+        Material metal = new Material().setKd(0.3).setKs(0.6).setShininess(30).setKr(0.5);
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 3; y++) {
+                scene.geometries.add(new Sphere(new Point(-45 + x * 30, -20 + y * 25, -100 - x * 10), 12)
+                        .setEmission(new Color(20 + x * 20, 30, 60 - y * 10)).setMaterial((x + y) % 2 == 0 ? glass : metal));
+            }
+        }
+        scene.geometries.add(
+                new Triangle(new Point(-150, -60, -200), new Point(150, -60, -200), new Point(0, 120, -220))
+                        .setEmission(new Color(20, 20, 20)).setMaterial(new Material().setKd(0.2).setKr(0.8)),
+                new Plane(new Point(0, -60, 0), new Vector(0, 1, 0))
+                        .setEmission(new Color(40, 40, 40)).setMaterial(new Material().setKd(0.5).setKr(0.3)));
+        scene.geometries.setAcceleration(acceleration);
+        scene.setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+        scene.lights.add(new PointLight(new Color(500, 500, 500), new Point(100, 200, 200)).setKl(0.0005));
+        scene.lights.add(new SpotLight(new Color(400, 300, 300), new Point(-100, 100, 50), new Vector(1, -1, -2))
+                .setKl(0.0004));
+        return scene;
+    }
+
+    /** Test method for {@link renderer.WavefrontRayTracer#traceRays(Ray[])} */
+    @Test
+    void testTraceRays() {
+        // ============ Equivalence Partitions Tests ==============
+
+        //TC01 the colors of the camera rays are exactly the colors of the recursive tracer, for every acceleration
+        for (Geometries.Acceleration acceleration : Geometries.Acceleration.values()) {
+            Scene scene = glassScene(acceleration);
+            RayTracerBase simple = new SimpleRayTracer(scene);
+            RayTracerBase wavefront = new WavefrontRayTracer(scene);
+
+            Ray[] rays = new Ray[40 * 40];
+            for (int i = 0; i < 40; i++) {
+                for (int j = 0; j < 40; j++) {
+                    rays[i * 40 + j] = new Ray(new Point(0, 0, 300), new Vector(-80 + j * 4, -80 + i * 4, -300));
+                }
+            }
+
+            Color[] colors = wavefront.traceRays(rays);
+            for (int k = 0; k < rays.length; k++) {
+                assertEquals(simple.traceRay(rays[k]).toString(), colors[k].toString(),
+                        "ERROR: wrong color in " + acceleration);
+            }
+        }
+
+        // =============== Boundary Values Tests ==================
+
+        //TC11 a single ray, and a ray that misses the scene gets the background
+        Scene scene = glassScene(Geometries.Acceleration.NONE);
+        Ray ray = new Ray(new Point(0, 0, 300), new Vector(0, 0, -1));
+        assertEquals(new SimpleRayTracer(scene).traceRay(ray).toString(),
+                new WavefrontRayTracer(scene).traceRay(ray).toString(), "ERROR: wrong color of a single ray");
+        assertEquals(scene.background.toString(),
+                new WavefrontRayTracer(scene).traceRay(new Ray(new Point(0, 0, 300), new Vector(0, 1, 0))).toString(),
+                "ERROR: ray that misses the scene should get the background");
+
+        //TC12 empty packet
+        assertEquals(0, new WavefrontRayTracer(scene).traceRays(new Ray[0]).length, "ERROR: empty packet has no colors");
+    }
+}